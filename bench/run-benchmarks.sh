@@ -0,0 +1,24 @@
+#!/bin/sh
+# Builds the solver sources (src), the vector lane kernel (vector/src) and the benchmark sources
+# (bench/src) into bench/build, then runs BenchmarkRunner with the given arguments, e.g.
+#   bench/run-benchmarks.sh '.*HARD' -wi 3 -i 5 -save results.csv
+# Benchmark classes are compiled against the solver classes but never into them,
+# so nothing under bench/ ships with the solver.
+# The JVM runs with jdk.incubator.vector, so LaneBatchSolver uses VectorLaneKernel.
+# Set LANE_KERNEL=scalar to run without the module and measure the scalar lane loops instead.
+set -e
+
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+BUILD="$ROOT/bench/build"
+VECTOR_MODULE="--add-modules jdk.incubator.vector"
+
+rm -rf "$BUILD"
+mkdir -p "$BUILD/classes" "$BUILD/bench-classes"
+javac -d "$BUILD/classes" $(find "$ROOT/src" -name '*.java')
+javac $VECTOR_MODULE -cp "$BUILD/classes" -d "$BUILD/classes" $(find "$ROOT/vector/src" -name '*.java')
+javac -cp "$BUILD/classes" -d "$BUILD/bench-classes" $(find "$ROOT/bench/src" -name '*.java')
+
+if [ "$LANE_KERNEL" = "scalar" ]; then
+	VECTOR_MODULE=""
+fi
+exec java $VECTOR_MODULE -cp "$BUILD/classes:$BUILD/bench-classes" com.gmail.aparna14.sudokuh.bench.BenchmarkRunner "$@"
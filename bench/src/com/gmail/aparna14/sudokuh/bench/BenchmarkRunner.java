@@ -0,0 +1,275 @@
+package com.gmail.aparna14.sudokuh.bench;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * This class runs the benchmarks of BenchmarkSuite using only the JDK, so it runs offline.
+ * For every benchmark, warm up iterations are followed by measured iterations of fixed duration.
+ * Reported per benchmark:
+ * 1. ops/sec - mean and standard deviation over measured iterations
+ * 2. B/op - bytes allocated by the benchmark thread per operation
+ * 3. alloc MB/sec - allocation rate
+ * 4. gc count / gc ms - collections run during measurement
+ *
+ * Results can be saved and later used as baseline. With baseline given, run fails
+ * (exit status 1) if any benchmark got slower or allocates more than tolerance allows,
+ * so that release builds can be gated on it.
+ *
+ * Benchmarks live in their own source root (bench/src) and are built and run by
+ * bench/run-benchmarks.sh, which passes its arguments on, so they never ship with the solver classes.
+ *
+ * Usage: BenchmarkRunner [regex] [-wi warmupIterations] [-i iterations] [-t iterationMillis]
+ *        [-save results.csv] [-baseline results.csv] [-tolerance percent]
+ * @author aparna
+ *
+ */
+public class BenchmarkRunner
+{
+	private static final String SEPARATOR = ",";
+
+	/* operations result is accumulated here, so that JIT can not drop them */
+	private static volatile int sink;
+
+	private int warmupIterations = 2;
+	private int iterations = 5;
+	private long iterationMillis = 1000;
+	private Pattern filter = Pattern.compile(".*");
+	private String savePath;
+	private String baselinePath;
+	private double tolerancePercent = 10;
+
+	public static void main(String[] args) throws Exception
+	{
+		BenchmarkRunner runner = new BenchmarkRunner();
+		runner.parseArguments(args);
+		System.exit(runner.run() ? 0 : 1);
+	}
+
+	private void parseArguments(String[] args)
+	{
+		for(int i = 0; i < args.length; i++)
+		{
+			if("-wi".equals(args[i]))
+				warmupIterations = Integer.parseInt(args[++i]);
+			else if("-i".equals(args[i]))
+				iterations = Integer.parseInt(args[++i]);
+			else if("-t".equals(args[i]))
+				iterationMillis = Long.parseLong(args[++i]);
+			else if("-save".equals(args[i]))
+				savePath = args[++i];
+			else if("-baseline".equals(args[i]))
+				baselinePath = args[++i];
+			else if("-tolerance".equals(args[i]))
+				tolerancePercent = Double.parseDouble(args[++i]);
+			else
+				filter = Pattern.compile(args[i]);
+		}
+	}
+
+	/*
+	 * Runs matching benchmarks, returns false if baseline comparison failed.
+	 */
+	private boolean run() throws Exception
+	{
+		Map<String, Result> baseline = (baselinePath != null) ? load(baselinePath) : new HashMap<String, Result>();
+		PrintWriter saved = (savePath != null) ? new PrintWriter(new FileWriter(savePath)) : null;
+		boolean passed = true;
+
+		System.out.println(String.format(Locale.ROOT, "%-45s %14s %10s %12s %12s %8s %8s",
+				"Benchmark", "ops/sec", "+-", "B/op", "alloc MB/s", "gc", "gc ms"));
+		try
+		{
+			List<MicroBenchmark> benchmarks = BenchmarkSuite.all();
+			for(MicroBenchmark benchmark : benchmarks)
+			{
+				if(!filter.matcher(benchmark.getName()).find())
+					continue;
+
+				Result result = measure(benchmark);
+				String verdict = compare(result, baseline.get(benchmark.getName()));
+				if(verdict != null)
+					passed = false;
+
+				System.out.println(String.format(Locale.ROOT, "%-45s %14.1f %10.1f %12.0f %12.1f %8d %8d%s",
+						benchmark.getName(), result.opsPerSec, result.opsPerSecError, result.bytesPerOp,
+						result.allocMBPerSec, result.gcCount, result.gcMillis, (verdict != null) ? "  " + verdict : ""));
+				if(saved != null)
+				{
+					saved.println(benchmark.getName() + SEPARATOR + result.opsPerSec + SEPARATOR + result.bytesPerOp);
+				}
+			}
+		}
+		finally
+		{
+			if(saved != null)
+				saved.close();
+		}
+		return passed;
+	}
+
+	private Result measure(MicroBenchmark benchmark) throws Exception
+	{
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		boolean allocationSupported = threadBean instanceof com.sun.management.ThreadMXBean
+				&& ((com.sun.management.ThreadMXBean)threadBean).isThreadAllocatedMemorySupported();
+		long threadId = Thread.currentThread().getId();
+
+		benchmark.setUp();
+		try
+		{
+			for(int i = 0; i < warmupIterations; i++)
+			{
+				iterate(benchmark);
+			}
+
+			double[] opsPerSec = new double[iterations];
+			long totalOps = 0;
+			long totalNanos = 0;
+			long gcCountStart = gcCount();
+			long gcMillisStart = gcMillis();
+			long allocatedStart = allocationSupported ? ((com.sun.management.ThreadMXBean)threadBean).getThreadAllocatedBytes(threadId) : 0;
+
+			for(int i = 0; i < iterations; i++)
+			{
+				long start = System.nanoTime();
+				long ops = iterate(benchmark);
+				long elapsed = System.nanoTime() - start;
+				opsPerSec[i] = ops / (elapsed / 1e9);
+				totalOps += ops;
+				totalNanos += elapsed;
+			}
+
+			long allocated = allocationSupported
+					? ((com.sun.management.ThreadMXBean)threadBean).getThreadAllocatedBytes(threadId) - allocatedStart : -1;
+
+			Result result = new Result();
+			result.opsPerSec = mean(opsPerSec);
+			result.opsPerSecError = standardDeviation(opsPerSec, result.opsPerSec);
+			result.bytesPerOp = (allocated < 0) ? Double.NaN : (double)allocated / totalOps;
+			result.allocMBPerSec = (allocated < 0) ? Double.NaN : allocated / (1024.0 * 1024.0) / (totalNanos / 1e9);
+			result.gcCount = gcCount() - gcCountStart;
+			result.gcMillis = gcMillis() - gcMillisStart;
+			return result;
+		}
+		finally
+		{
+			benchmark.tearDown();
+		}
+	}
+
+	/* calls operation until iteration time is over, returns number of operations */
+	private long iterate(MicroBenchmark benchmark) throws Exception
+	{
+		long deadline = System.nanoTime() + iterationMillis * 1000000L;
+		long ops = 0;
+		int consumed = 0;
+		do
+		{
+			consumed += benchmark.operation();
+			ops++;
+		}
+		while(System.nanoTime() < deadline);
+		sink += consumed;
+		return ops;
+	}
+
+	/*
+	 * Returns description of regression against baseline, null if within tolerance.
+	 */
+	private String compare(Result result, Result base)
+	{
+		if(base == null)
+			return null;
+
+		double factor = tolerancePercent / 100;
+		if(result.opsPerSec < base.opsPerSec * (1 - factor))
+		{
+			return String.format(Locale.ROOT, "SLOWER than baseline %.1f ops/sec", base.opsPerSec);
+		}
+		/* 64 bytes slack, thread allocation counters are not exact for tiny allocations */
+		if(result.bytesPerOp > base.bytesPerOp * (1 + factor) + 64)
+		{
+			return String.format(Locale.ROOT, "ALLOCATES more than baseline %.0f B/op", base.bytesPerOp);
+		}
+		return null;
+	}
+
+	private static Map<String, Result> load(String path) throws IOException
+	{
+		Map<String, Result> results = new HashMap<String, Result>();
+		BufferedReader reader = new BufferedReader(new FileReader(path));
+		try
+		{
+			String line;
+			while((line = reader.readLine()) != null)
+			{
+				String[] fields = line.split(SEPARATOR);
+				Result result = new Result();
+				result.opsPerSec = Double.parseDouble(fields[1]);
+				result.bytesPerOp = Double.parseDouble(fields[2]);
+				results.put(fields[0], result);
+			}
+		}
+		finally
+		{
+			reader.close();
+		}
+		return results;
+	}
+
+	private static long gcCount()
+	{
+		long count = 0;
+		for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+			count += Math.max(0, gc.getCollectionCount());
+		return count;
+	}
+
+	private static long gcMillis()
+	{
+		long millis = 0;
+		for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+			millis += Math.max(0, gc.getCollectionTime());
+		return millis;
+	}
+
+	private static double mean(double[] values)
+	{
+		double sum = 0;
+		for(double value : values)
+			sum += value;
+		return sum / values.length;
+	}
+
+	private static double standardDeviation(double[] values, double mean)
+	{
+		if(values.length < 2)
+			return 0;
+		double sum = 0;
+		for(double value : values)
+			sum += (value - mean) * (value - mean);
+		return Math.sqrt(sum / (values.length - 1));
+	}
+
+	private static class Result
+	{
+		double opsPerSec;
+		double opsPerSecError;
+		double bytesPerOp;
+		double allocMBPerSec;
+		long gcCount;
+		long gcMillis;
+	}
+}
@@ -0,0 +1,642 @@
+package com.gmail.aparna14.sudokuh.bench;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.gmail.aparna14.sudokuh.algo.BackTrackingStrategy;
+import com.gmail.aparna14.sudokuh.algo.BatchSolver;
+import com.gmail.aparna14.sudokuh.algo.BinaryBoardReader;
+import com.gmail.aparna14.sudokuh.algo.BinaryFileManager;
+import com.gmail.aparna14.sudokuh.algo.BinaryFileManagerImpl;
+import com.gmail.aparna14.sudokuh.algo.BoardOutputSink;
+import com.gmail.aparna14.sudokuh.algo.CSVFileManager;
+import com.gmail.aparna14.sudokuh.algo.CSVFileManagerImpl;
+import com.gmail.aparna14.sudokuh.algo.CachingSolver;
+import com.gmail.aparna14.sudokuh.algo.ConstraintPropagator;
+import com.gmail.aparna14.sudokuh.algo.HeursiticAlgo;
+import com.gmail.aparna14.sudokuh.algo.LaneBatchSolver;
+import com.gmail.aparna14.sudokuh.algo.MappedCSVBoardReader;
+import com.gmail.aparna14.sudokuh.algo.PuzzleGenerator;
+import com.gmail.aparna14.sudokuh.algo.SolutionCounter;
+import com.gmail.aparna14.sudokuh.algo.SolveCache;
+import com.gmail.aparna14.sudokuh.algo.SolverStrategy;
+import com.gmail.aparna14.sudokuh.algo.StreamingCSVParser;
+import com.gmail.aparna14.sudokuh.data.BatchResult;
+import com.gmail.aparna14.sudokuh.data.Board;
+
+/**
+ * This class lists the benchmarks run by BenchmarkRunner:
+ * 1. HeursiticAlgo.solveBoard and BackTrackingStrategy.solve on EASY, MEDIUM, HARD and MINIMAL corpus,
+ * one operation being one puzzle of the corpus, taken in turn. HeursiticAlgo also on flat Board.
+ * B/op of HeursiticAlgo is expected to be 0, the solver reuses all its working arrays.
+ * 2. CSVFileManagerImpl readFile and writeToFile for one 9*9 board,
+ * readBoards and writeBoardsToFile for file of 1000 boards.
+ * 3. MappedCSVBoardReader reading the same file of 1000 boards, into one reused board.
+ * 4. BinaryFileManagerImpl readBoards and writeBoardsToFile for binary file of 1000 boards,
+ * BinaryBoardReader reading it into one reused board.
+ * 5. BoardOutputSink appending one 9*9 board to open file, the batch counterpart of writeToFile.
+ * 6. SolutionCounter.isUnique on the corpus, one operation being one puzzle checked for uniqueness.
+ * 7. PuzzleGenerator.next, one operation being one 9*9 puzzle of any difficulty.
+ * 8. CachingSolver.solve on the corpus, with every puzzle already cached, i.e. cost of a cache hit.
+ * 9. ConstraintPropagator.solve on the corpus as int[][] and as flat Board, and
+ * CSVFileManagerImpl.readFlatBoards for file of 1000 boards, the flat counterpart of readBoards.
+ * 10. LaneBatchSolver.solveBoards and BatchSolver.solveBoards on batch of 64 corpus puzzles,
+ * one operation being the whole batch.
+ * @author aparna
+ *
+ */
+public class BenchmarkSuite
+{
+	private static final String[] CORPUS_NAMES = {"EASY", "MEDIUM", "HARD", "MINIMAL"};
+
+	private static final String[][] CORPORA = {
+		PuzzleCorpus.EASY, PuzzleCorpus.MEDIUM, PuzzleCorpus.HARD, PuzzleCorpus.MINIMAL
+	};
+
+	private static final int BOARDS_PER_FILE = 1000;
+
+	public static List<MicroBenchmark> all()
+	{
+		List<MicroBenchmark> benchmarks = new ArrayList<MicroBenchmark>();
+		for(int c = 0; c < CORPORA.length; c++)
+		{
+			benchmarks.add(new SolveBenchmark("HeursiticAlgo.solveBoard:" + CORPUS_NAMES[c], new HeursiticAlgo(), CORPORA[c]));
+			benchmarks.add(new FlatSolveBenchmark("HeursiticAlgo.solve(Board):" + CORPUS_NAMES[c], new HeursiticAlgo(), CORPORA[c]));
+		}
+		for(int c = 0; c < CORPORA.length; c++)
+		{
+			benchmarks.add(new SolveBenchmark("BackTrackingStrategy.solve:" + CORPUS_NAMES[c], new BackTrackingStrategy(), CORPORA[c]));
+		}
+		for(int c = 0; c < CORPORA.length; c++)
+		{
+			benchmarks.add(new UniquenessBenchmark("SolutionCounter.isUnique:" + CORPUS_NAMES[c], CORPORA[c]));
+		}
+		benchmarks.add(new GenerateBenchmark());
+		for(int c = 0; c < CORPORA.length; c++)
+		{
+			benchmarks.add(new CachedSolveBenchmark("CachingSolver.solve:" + CORPUS_NAMES[c], CORPORA[c]));
+		}
+		for(int c = 0; c < CORPORA.length; c++)
+		{
+			benchmarks.add(new SolveBenchmark("ConstraintPropagator.solve:" + CORPUS_NAMES[c], new ConstraintPropagator(), CORPORA[c]));
+			benchmarks.add(new FlatSolveBenchmark("ConstraintPropagator.solve(Board):" + CORPUS_NAMES[c], new ConstraintPropagator(), CORPORA[c]));
+		}
+		for(int c = 0; c < CORPORA.length; c++)
+		{
+			benchmarks.add(new BatchBenchmark("BatchSolver.solveBoards:64x" + CORPUS_NAMES[c], false, CORPORA[c]));
+			benchmarks.add(new BatchBenchmark("LaneBatchSolver.solveBoards:64x" + CORPUS_NAMES[c], true, CORPORA[c]));
+		}
+		benchmarks.add(new ReadFileBenchmark());
+		benchmarks.add(new WriteToFileBenchmark());
+		benchmarks.add(new ReadBoardsBenchmark());
+		benchmarks.add(new WriteBoardsToFileBenchmark());
+		benchmarks.add(new ReadFlatBoardsBenchmark());
+		benchmarks.add(new MappedReadBenchmark());
+		benchmarks.add(new BinaryReadBoardsBenchmark());
+		benchmarks.add(new BinaryWriteBoardsBenchmark());
+		benchmarks.add(new BinaryReaderBenchmark());
+		benchmarks.add(new SinkWriteBenchmark());
+		return benchmarks;
+	}
+
+	/*
+	 * Checks the corpus puzzles for unique solution in turn, counter does not modify the puzzle.
+	 */
+	private static class UniquenessBenchmark extends MicroBenchmark
+	{
+		private final SolutionCounter counter = new SolutionCounter();
+		private final int[][][] corpus;
+		private int next;
+
+		UniquenessBenchmark(String name, String[] puzzles)
+		{
+			super(name);
+			this.corpus = PuzzleCorpus.toBoards(puzzles);
+		}
+
+		@Override
+		public int operation()
+		{
+			int[][] puzzle = corpus[next];
+			next = (next + 1) % corpus.length;
+			return counter.isUnique(puzzle) ? 1 : 0;
+		}
+	}
+
+	/*
+	 * Generates 9*9 puzzles from fixed seed, so runs generate the same puzzles.
+	 */
+	private static class GenerateBenchmark extends MicroBenchmark
+	{
+		private PuzzleGenerator generator;
+
+		GenerateBenchmark()
+		{
+			super("PuzzleGenerator.next");
+		}
+
+		@Override
+		public void setUp()
+		{
+			generator = new PuzzleGenerator(9, 1);
+		}
+
+		@Override
+		public int operation()
+		{
+			return generator.next().getClueCount();
+		}
+	}
+
+	/*
+	 * Solves the corpus puzzles in turn, each time on fresh copy of the puzzle.
+	 */
+	private static class SolveBenchmark extends MicroBenchmark
+	{
+		private final SolverStrategy solver;
+		private final int[][][] corpus;
+		private final int[][] work;
+		private int next;
+
+		SolveBenchmark(String name, SolverStrategy solver, String[] puzzles)
+		{
+			super(name);
+			this.solver = solver;
+			this.corpus = PuzzleCorpus.toBoards(puzzles);
+			this.work = new int[9][9];
+		}
+
+		@Override
+		public int operation()
+		{
+			int[][] puzzle = corpus[next];
+			next = (next + 1) % corpus.length;
+			for(int row = 0; row < puzzle.length; row++)
+			{
+				System.arraycopy(puzzle[row], 0, work[row], 0, puzzle[row].length);
+			}
+			return solver.solve(work) ? work[0][0] : -1;
+		}
+	}
+
+	/*
+	 * Same as SolveBenchmark, puzzles are kept and solved as flat boards.
+	 */
+	private static class FlatSolveBenchmark extends MicroBenchmark
+	{
+		private final SolverStrategy solver;
+		private final Board[] corpus;
+		private final Board work;
+		private int next;
+
+		FlatSolveBenchmark(String name, SolverStrategy solver, String[] puzzles)
+		{
+			super(name);
+			this.solver = solver;
+			int[][][] boards = PuzzleCorpus.toBoards(puzzles);
+			this.corpus = new Board[boards.length];
+			for(int idx = 0; idx < boards.length; idx++)
+			{
+				corpus[idx] = Board.fromArray(boards[idx]);
+			}
+			this.work = new Board(9);
+		}
+
+		@Override
+		public int operation()
+		{
+			Board puzzle = corpus[next];
+			next = (next + 1) % corpus.length;
+			work.copyFrom(puzzle);
+			return solver.solve(work) ? work.get(0) : -1;
+		}
+	}
+
+	/*
+	 * Solves batch of corpus puzzles, copied afresh from the corpus before every operation.
+	 */
+	private static class BatchBenchmark extends MicroBenchmark
+	{
+		private static final int BATCH_SIZE = 64;
+
+		private final Board[] corpus;
+		private final List<Board> batch = new ArrayList<Board>(BATCH_SIZE);
+		private final boolean lanes;
+		private final BatchSolver batchSolver = new BatchSolver();
+		private final LaneBatchSolver laneSolver = new LaneBatchSolver();
+
+		BatchBenchmark(String name, boolean lanes, String[] puzzles)
+		{
+			super(name);
+			this.lanes = lanes;
+			int[][][] boards = PuzzleCorpus.toBoards(puzzles);
+			this.corpus = new Board[boards.length];
+			for(int idx = 0; idx < boards.length; idx++)
+			{
+				corpus[idx] = Board.fromArray(boards[idx]);
+			}
+			for(int idx = 0; idx < BATCH_SIZE; idx++)
+			{
+				batch.add(new Board(9));
+			}
+		}
+
+		@Override
+		public int operation()
+		{
+			for(int idx = 0; idx < BATCH_SIZE; idx++)
+			{
+				batch.get(idx).copyFrom(corpus[idx % corpus.length]);
+			}
+			BatchResult result = lanes ? laneSolver.solveBoards(batch) : batchSolver.solveBoards(batch);
+			return result.getSolvedCount();
+		}
+	}
+
+	/*
+	 * Solves every corpus puzzle once in setUp, so that measured solves are all cache hits.
+	 */
+	private static class CachedSolveBenchmark extends SolveBenchmark
+	{
+		private final int puzzleCount;
+
+		CachedSolveBenchmark(String name, String[] puzzles)
+		{
+			super(name, new CachingSolver(new SolveCache()), puzzles);
+			this.puzzleCount = puzzles.length;
+		}
+
+		@Override
+		public void setUp()
+		{
+			for(int idx = 0; idx < puzzleCount; idx++)
+			{
+				operation();
+			}
+		}
+	}
+
+	/*
+	 * File benchmarks work in their own temporary directory, deleted in tearDown.
+	 */
+	private static abstract class FileBenchmark extends MicroBenchmark
+	{
+		protected final CSVFileManager csvFileManager = new CSVFileManagerImpl();
+		protected File dir;
+
+		FileBenchmark(String name)
+		{
+			super(name);
+		}
+
+		@Override
+		public void setUp() throws Exception
+		{
+			dir = File.createTempFile("sudoku-bench", "");
+			dir.delete();
+			dir.mkdir();
+		}
+
+		protected List<int[][]> boards(int count)
+		{
+			int[][][] corpus = PuzzleCorpus.toBoards(PuzzleCorpus.HARD);
+			List<int[][]> boards = new ArrayList<int[][]>(count);
+			for(int i = 0; i < count; i++)
+			{
+				boards.add(corpus[i % corpus.length]);
+			}
+			return boards;
+		}
+
+		@Override
+		public void tearDown()
+		{
+			deleteAll(dir);
+		}
+
+		private static void deleteAll(File file)
+		{
+			File[] children = file.listFiles();
+			if(children != null)
+			{
+				for(File child : children)
+					deleteAll(child);
+			}
+			file.delete();
+		}
+	}
+
+	private static class ReadFileBenchmark extends FileBenchmark
+	{
+		private String path;
+
+		ReadFileBenchmark()
+		{
+			super("CSVFileManagerImpl.readFile:9x9");
+		}
+
+		@Override
+		public void setUp() throws Exception
+		{
+			super.setUp();
+			path = new File(dir, "board.csv").getPath();
+			csvFileManager.writeBoardsToFile(boards(1), path);
+		}
+
+		@Override
+		public int operation() throws Exception
+		{
+			return csvFileManager.readFile(path)[8][8];
+		}
+	}
+
+	private static class WriteToFileBenchmark extends FileBenchmark
+	{
+		private String userDir;
+		private int[][] board;
+
+		WriteToFileBenchmark()
+		{
+			super("CSVFileManagerImpl.writeToFile:9x9");
+		}
+
+		@Override
+		public void setUp() throws Exception
+		{
+			super.setUp();
+			board = boards(1).get(0);
+			/* writeToFile writes into current working directory */
+			userDir = System.getProperty("user.dir");
+			System.setProperty("user.dir", dir.getPath());
+		}
+
+		@Override
+		public int operation() throws Exception
+		{
+			csvFileManager.writeToFile(board, "board.csv");
+			return board[0][0];
+		}
+
+		@Override
+		public void tearDown()
+		{
+			System.setProperty("user.dir", userDir);
+			super.tearDown();
+		}
+	}
+
+	private static class ReadBoardsBenchmark extends FileBenchmark
+	{
+		private String path;
+
+		ReadBoardsBenchmark()
+		{
+			super("CSVFileManagerImpl.readBoards:" + BOARDS_PER_FILE + "x9x9");
+		}
+
+		@Override
+		public void setUp() throws Exception
+		{
+			super.setUp();
+			path = new File(dir, "boards.csv").getPath();
+			csvFileManager.writeBoardsToFile(boards(BOARDS_PER_FILE), path);
+		}
+
+		@Override
+		public int operation() throws Exception
+		{
+			return csvFileManager.readBoards(path).size();
+		}
+	}
+
+	private static class ReadFlatBoardsBenchmark extends FileBenchmark
+	{
+		private String path;
+
+		ReadFlatBoardsBenchmark()
+		{
+			super("CSVFileManagerImpl.readFlatBoards:" + BOARDS_PER_FILE + "x9x9");
+		}
+
+		@Override
+		public void setUp() throws Exception
+		{
+			super.setUp();
+			path = new File(dir, "boards.csv").getPath();
+			csvFileManager.writeBoardsToFile(boards(BOARDS_PER_FILE), path);
+		}
+
+		@Override
+		public int operation() throws Exception
+		{
+			return csvFileManager.readFlatBoards(path).size();
+		}
+	}
+
+	private static class WriteBoardsToFileBenchmark extends FileBenchmark
+	{
+		private String path;
+		private List<int[][]> boards;
+
+		WriteBoardsToFileBenchmark()
+		{
+			super("CSVFileManagerImpl.writeBoardsToFile:" + BOARDS_PER_FILE + "x9x9");
+		}
+
+		@Override
+		public void setUp() throws Exception
+		{
+			super.setUp();
+			path = new File(dir, "boards.csv").getPath();
+			boards = boards(BOARDS_PER_FILE);
+		}
+
+		@Override
+		public int operation() throws Exception
+		{
+			csvFileManager.writeBoardsToFile(boards, path);
+			return boards.size();
+		}
+	}
+
+	private static class MappedReadBenchmark extends FileBenchmark
+	{
+		private MappedCSVBoardReader reader;
+		private int[][] board;
+
+		MappedReadBenchmark()
+		{
+			super("MappedCSVBoardReader.read:" + BOARDS_PER_FILE + "x9x9");
+		}
+
+		@Override
+		public void setUp() throws Exception
+		{
+			super.setUp();
+			String path = new File(dir, "boards.csv").getPath();
+			csvFileManager.writeBoardsToFile(boards(BOARDS_PER_FILE), path);
+			reader = new MappedCSVBoardReader(path);
+		}
+
+		@Override
+		public int operation() throws Exception
+		{
+			StreamingCSVParser parser = reader.wholeFile().open();
+			int count = 0;
+			int[][] read;
+			while((read = parser.nextBoard(board)) != null)
+			{
+				board = read;
+				count++;
+			}
+			return count;
+		}
+
+		@Override
+		public void tearDown()
+		{
+			try
+			{
+				reader.close();
+			}
+			catch(Exception e)
+			{
+				/* temporary file is deleted anyway */
+			}
+			super.tearDown();
+		}
+	}
+
+	private static class BinaryReadBoardsBenchmark extends FileBenchmark
+	{
+		private final BinaryFileManager binaryFileManager = new BinaryFileManagerImpl();
+		private String path;
+
+		BinaryReadBoardsBenchmark()
+		{
+			super("BinaryFileManagerImpl.readBoards:" + BOARDS_PER_FILE + "x9x9");
+		}
+
+		@Override
+		public void setUp() throws Exception
+		{
+			super.setUp();
+			path = new File(dir, "boards.sdkb").getPath();
+			binaryFileManager.writeBoardsToFile(boards(BOARDS_PER_FILE), path);
+		}
+
+		@Override
+		public int operation() throws Exception
+		{
+			return binaryFileManager.readBoards(path).size();
+		}
+	}
+
+	private static class BinaryWriteBoardsBenchmark extends FileBenchmark
+	{
+		private final BinaryFileManager binaryFileManager = new BinaryFileManagerImpl();
+		private String path;
+		private List<int[][]> boards;
+
+		BinaryWriteBoardsBenchmark()
+		{
+			super("BinaryFileManagerImpl.writeBoardsToFile:" + BOARDS_PER_FILE + "x9x9");
+		}
+
+		@Override
+		public void setUp() throws Exception
+		{
+			super.setUp();
+			path = new File(dir, "boards.sdkb").getPath();
+			boards = boards(BOARDS_PER_FILE);
+		}
+
+		@Override
+		public int operation() throws Exception
+		{
+			binaryFileManager.writeBoardsToFile(boards, path);
+			return boards.size();
+		}
+	}
+
+	private static class BinaryReaderBenchmark extends FileBenchmark
+	{
+		private String path;
+		private int[][] board;
+
+		BinaryReaderBenchmark()
+		{
+			super("BinaryBoardReader.read:" + BOARDS_PER_FILE + "x9x9");
+		}
+
+		@Override
+		public void setUp() throws Exception
+		{
+			super.setUp();
+			path = new File(dir, "boards.sdkb").getPath();
+			new BinaryFileManagerImpl().writeBoardsToFile(boards(BOARDS_PER_FILE), path);
+		}
+
+		@Override
+		public int operation() throws Exception
+		{
+			BinaryBoardReader reader = BinaryBoardReader.open(path);
+			int count = 0;
+			try
+			{
+				int[][] read;
+				while((read = reader.nextBoard(board)) != null)
+				{
+					board = read;
+					count++;
+				}
+			}
+			finally
+			{
+				reader.close();
+			}
+			return count;
+		}
+	}
+
+	private static class SinkWriteBenchmark extends FileBenchmark
+	{
+		private BoardOutputSink sink;
+		private int[][] board;
+
+		SinkWriteBenchmark()
+		{
+			super("BoardOutputSink.write:9x9");
+		}
+
+		@Override
+		public void setUp() throws Exception
+		{
+			super.setUp();
+			board = boards(1).get(0);
+			sink = new BoardOutputSink(new File(dir, "boards.csv").getPath());
+		}
+
+		@Override
+		public int operation() throws Exception
+		{
+			sink.write(board);
+			return board[0][0];
+		}
+
+		@Override
+		public void tearDown()
+		{
+			try
+			{
+				sink.close();
+			}
+			catch(Exception e)
+			{
+				/* temporary file is deleted anyway */
+			}
+			super.tearDown();
+		}
+	}
+}
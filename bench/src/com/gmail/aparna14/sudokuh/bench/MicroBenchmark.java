@@ -0,0 +1,36 @@
+package com.gmail.aparna14.sudokuh.bench;
+
+/**
+ * This class is the unit measured by BenchmarkRunner.
+ * setUp and tearDown run outside of measurement, operation is called repeatedly
+ * and its result is consumed by the runner, so that JIT can not drop the work.
+ * @author aparna
+ *
+ */
+public abstract class MicroBenchmark
+{
+	private final String name;
+
+	protected MicroBenchmark(String name)
+	{
+		this.name = name;
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	public void setUp() throws Exception
+	{
+	}
+
+	/**
+	 * Performs one operation and returns any value depending on its result.
+	 */
+	public abstract int operation() throws Exception;
+
+	public void tearDown() throws Exception
+	{
+	}
+}
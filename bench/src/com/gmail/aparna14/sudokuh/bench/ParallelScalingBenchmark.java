@@ -0,0 +1,85 @@
+package com.gmail.aparna14.sudokuh.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import com.gmail.aparna14.sudokuh.algo.BitMaskBackTrackingStrategy;
+import com.gmail.aparna14.sudokuh.algo.CellOrdering;
+import com.gmail.aparna14.sudokuh.algo.ParallelBatchSolver;
+import com.gmail.aparna14.sudokuh.algo.SolverStrategy;
+import com.gmail.aparna14.sudokuh.data.BatchResult;
+
+/**
+ * This class reports how ParallelBatchSolver scales with number of threads.
+ * Batch is made of the HARD and MINIMAL corpus puzzles repeated, parallelism is doubled
+ * from 1 upto the number of available processors (or given maximum).
+ * Usage: ParallelScalingBenchmark [puzzles] [maxParallelism]
+ * @author aparna
+ *
+ */
+public class ParallelScalingBenchmark
+{
+	private static final int ROUNDS = 3;
+
+	public static void main(String[] args)
+	{
+		int puzzles = (args.length > 0) ? Integer.parseInt(args[0]) : 5000;
+		int maxParallelism = (args.length > 1) ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+		int[][][] corpus = concat(PuzzleCorpus.toBoards(PuzzleCorpus.HARD), PuzzleCorpus.toBoards(PuzzleCorpus.MINIMAL));
+		Supplier<SolverStrategy> solverFactory = new Supplier<SolverStrategy>() {
+			@Override
+			public SolverStrategy get() {
+				return new BitMaskBackTrackingStrategy(CellOrdering.MINIMUM_REMAINING_VALUES);
+			}
+		};
+
+		System.out.println(puzzles + " puzzles, " + Runtime.getRuntime().availableProcessors() + " processors available");
+		System.out.println(String.format("%8s %14s %9s %11s", "threads", "puzzles/sec", "speedup", "efficiency"));
+
+		double baseline = 0;
+		for(int parallelism = 1; parallelism <= maxParallelism; parallelism *= 2)
+		{
+			ParallelBatchSolver solver = new ParallelBatchSolver(parallelism, solverFactory);
+			double best = 0;
+			/* first round warms up the worker threads and JIT */
+			for(int round = 0; round <= ROUNDS; round++)
+			{
+				BatchResult result = solver.solveAll(batch(corpus, puzzles));
+				if(round > 0)
+					best = Math.max(best, result.getPuzzlesPerSecond());
+			}
+			solver.shutdown();
+
+			if(parallelism == 1)
+				baseline = best;
+			System.out.println(String.format("%8d %14.1f %8.2fx %10.0f%%",
+					parallelism, best, best / baseline, 100 * best / baseline / parallelism));
+		}
+	}
+
+	private static List<int[][]> batch(int[][][] corpus, int puzzles)
+	{
+		List<int[][]> boards = new ArrayList<int[][]>(puzzles);
+		for(int p = 0; p < puzzles; p++)
+		{
+			int[][] puzzle = corpus[p % corpus.length];
+			int[][] board = new int[puzzle.length][];
+			for(int row = 0; row < puzzle.length; row++)
+			{
+				board[row] = puzzle[row].clone();
+			}
+			boards.add(board);
+		}
+		return boards;
+	}
+
+	private static int[][][] concat(int[][][] first, int[][][] second)
+	{
+		int[][][] all = new int[first.length + second.length][][];
+		System.arraycopy(first, 0, all, 0, first.length);
+		System.arraycopy(second, 0, all, first.length, second.length);
+		return all;
+	}
+}
@@ -0,0 +1,63 @@
+package com.gmail.aparna14.sudokuh.bench;
+
+import java.util.Arrays;
+
+import com.gmail.aparna14.sudokuh.algo.BitMaskBackTrackingStrategy;
+import com.gmail.aparna14.sudokuh.algo.CellOrdering;
+import com.gmail.aparna14.sudokuh.algo.ParallelBackTrackingStrategy;
+import com.gmail.aparna14.sudokuh.algo.SolverStrategy;
+
+/**
+ * This class compares latency of single puzzle search on one thread
+ * and split over ForkJoinPool.commonPool(), for easy and for hard puzzles.
+ * Usage: ParallelSearchBenchmark [repeats]
+ * @author aparna
+ *
+ */
+public class ParallelSearchBenchmark
+{
+	public static void main(String[] args)
+	{
+		int repeats = (args.length > 0) ? Integer.parseInt(args[0]) : 5;
+
+		String[] names = {"9x9 hard", "9x9 adversarial 1", "9x9 adversarial 2", "16x16 100 clues", "25x25 300 clues"};
+		int[][][] puzzles = {
+			PuzzleCorpus.toBoard(PuzzleCorpus.HARD[0]),
+			PuzzleCorpus.toBoard(PuzzleCorpus.ADVERSARIAL[0]),
+			PuzzleCorpus.toBoard(PuzzleCorpus.ADVERSARIAL[1]),
+			PuzzleCorpus.generate(16, 100, 0),
+			PuzzleCorpus.generate(25, 300, 0)
+		};
+
+		SolverStrategy sequential = new BitMaskBackTrackingStrategy(CellOrdering.MINIMUM_REMAINING_VALUES);
+		SolverStrategy parallel = new ParallelBackTrackingStrategy();
+
+		System.out.println("Parallelism of common pool: " + java.util.concurrent.ForkJoinPool.getCommonPoolParallelism());
+		System.out.println(String.format("%-20s %16s %16s", "puzzle", "sequential ms", "parallel ms"));
+		for(int p = 0; p < puzzles.length; p++)
+		{
+			System.out.println(String.format("%-20s %16.2f %16.2f", names[p],
+					medianMillis(sequential, puzzles[p], repeats), medianMillis(parallel, puzzles[p], repeats)));
+		}
+	}
+
+	/* first solve is warm up, median of the remaining repeats is returned */
+	private static double medianMillis(SolverStrategy solver, int[][] puzzle, int repeats)
+	{
+		double[] millis = new double[repeats];
+		for(int r = -1; r < repeats; r++)
+		{
+			int[][] board = new int[puzzle.length][];
+			for(int row = 0; row < puzzle.length; row++)
+			{
+				board[row] = puzzle[row].clone();
+			}
+			long start = System.nanoTime();
+			solver.solve(board);
+			if(r >= 0)
+				millis[r] = (System.nanoTime() - start) / 1e6;
+		}
+		Arrays.sort(millis);
+		return millis[repeats / 2];
+	}
+}
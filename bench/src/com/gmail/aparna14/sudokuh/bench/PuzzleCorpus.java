@@ -0,0 +1,153 @@
+package com.gmail.aparna14.sudokuh.bench;
+
+import java.util.Random;
+
+/**
+ * This class holds fixed set of well known 9*9 puzzles used for comparing solvers.
+ * Puzzles are written in 81 character form, row by row, '.' or '0' marking blank cell.
+ * Puzzles of other sizes are generated from seed, so that runs are repeatable.
+ * @author aparna
+ *
+ */
+public class PuzzleCorpus
+{
+	/* puzzles solved by filling cells having only one feasible value */
+	public static final String[] EASY = {
+		"003020600900305001001806400008102900700000008006708200002609500800203009005010300",
+		"020810740700003100090002805009040087400208003160030200302700060005600008076051090",
+		"480006902002008001900370060840010200003704100001060049020085007700900600609200018"
+	};
+
+	/* puzzles needing values which fit only one cell of row, column or grid, or more */
+	public static final String[] MEDIUM = {
+		"200080300060070084030500209000105408000000000402706000301007040720040060004010003",
+		"000000907000420180000705026100904000050000040000507009920108000034059000507000000",
+		"030050040008010500460000012070502080000603000040109030250000098001020600080060020",
+		"100920000524010000000000070050008102000000000402700090060000000000030945000071006",
+		"043080250600000000000001094900004070000608000010200003820500000000000005034090710"
+	};
+
+	/* puzzles known to be hard for human solving techniques */
+	public static final String[] HARD = {
+		"8..........36......7..9.2...5...7.......457.....1...3...1....68..85...1..9....4..",
+		"1....7.9..3..2...8..96..5....53..9...1..8...26....4...3......1..4......7..7...3..",
+		"..53.....8......2..7..1.5..4....53...1..7...6..32...8..6.5....9..4....3......97..",
+		"85...24..72......9..4.........1.7..23.5...9...4...........8..7..17..........36.4.",
+		"52...6.........7.13...........4..8..6......5...........418.........3..2...87.....",
+		"6.....8.3.4.7.................5.4.7.3..2.....1.6.......2.....5.....8.6......1....",
+		"48.3............71.2.......7.5....6....2..8.............1.76...3.....4......5...."
+	};
+
+	/* puzzles with 17 clues, the minimum for unique solution */
+	public static final String[] MINIMAL = {
+		"000000010400000000020000000000050407008000300001090000300400200050100000000806000",
+		"000000010400000000020000000000050604008000300001090000300400200050100000000807000",
+		"000000012000035000000600070700000300000400800100000000000120000080000040050000600",
+		"000000012003600000000007000410020000000500300700000600280000040000300500000000000",
+		"000000012008030000000000040120500000000004700060000000507000300000620000000100000"
+	};
+
+	/* puzzles whose first rows are nearly empty, worst case for row major backtracking */
+	public static final String[] ADVERSARIAL = {
+		"4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......",
+		"....14....3....2...7..........9...3.6.1.............8.2.....1.4....5.6.....7.8..."
+	};
+
+	/**
+	 * Converts puzzle in 81 character form to sudoku matrix.
+	 * @param puzzle - puzzle string with dimension^2 characters
+	 * @return matrix - two dimensional array, blank cells hold 0
+	 */
+	public static int[][] toBoard(String puzzle)
+	{
+		int dimension = (int)Math.round(Math.sqrt(puzzle.length()));
+		int[][] board = new int[dimension][dimension];
+		for(int i = 0; i < puzzle.length(); i++)
+		{
+			char ch = puzzle.charAt(i);
+			board[i / dimension][i % dimension] = (ch == '.') ? 0 : Character.digit(ch, 10);
+		}
+		return board;
+	}
+
+	/**
+	 * Converts every puzzle string to sudoku matrix.
+	 */
+	public static int[][][] toBoards(String[] puzzles)
+	{
+		int[][][] boards = new int[puzzles.length][][];
+		for(int i = 0; i < puzzles.length; i++)
+		{
+			boards[i] = toBoard(puzzles[i]);
+		}
+		return boards;
+	}
+
+	/**
+	 * Generates solvable puzzle of n^2*n^2 board.
+	 * Patterned full board is shuffled by permuting bands, rows within band, stacks,
+	 * columns within stack and values, and then all but given number of cells are blanked.
+	 * Puzzle is not guaranteed to have unique solution.
+	 * @param dimension - no of rows /columns, e.g 9, 16 or 25
+	 * @param clues - number of cells left filled
+	 * @param seed - same seed gives same puzzle
+	 * @return matrix - two dimensional array, blank cells hold 0
+	 */
+	public static int[][] generate(int dimension, int clues, long seed)
+	{
+		Random random = new Random(seed);
+		int gridDimension = (int)Math.round(Math.sqrt(dimension));
+		int[] rowOrder = bandPermutation(gridDimension, random);
+		int[] colOrder = bandPermutation(gridDimension, random);
+		int[] values = permutation(dimension, random);
+
+		int[][] board = new int[dimension][dimension];
+		for(int row = 0; row < dimension; row++)
+			for(int col = 0; col < dimension; col++)
+			{
+				int r = rowOrder[row];
+				int c = colOrder[col];
+				board[row][col] = values[(gridDimension * (r % gridDimension) + r / gridDimension + c) % dimension] + 1;
+			}
+
+		int[] cells = permutation(dimension * dimension, random);
+		for(int idx = clues; idx < cells.length; idx++)
+		{
+			board[cells[idx] / dimension][cells[idx] % dimension] = 0;
+		}
+		return board;
+	}
+
+	/* permutation of rows (or columns) keeping every row within a band */
+	private static int[] bandPermutation(int gridDimension, Random random)
+	{
+		int[] bands = permutation(gridDimension, random);
+		int[] order = new int[gridDimension * gridDimension];
+		for(int band = 0; band < gridDimension; band++)
+		{
+			int[] rows = permutation(gridDimension, random);
+			for(int row = 0; row < gridDimension; row++)
+			{
+				order[band * gridDimension + row] = bands[band] * gridDimension + rows[row];
+			}
+		}
+		return order;
+	}
+
+	private static int[] permutation(int size, Random random)
+	{
+		int[] perm = new int[size];
+		for(int i = 0; i < size; i++)
+		{
+			perm[i] = i;
+		}
+		for(int i = size - 1; i > 0; i--)
+		{
+			int j = random.nextInt(i + 1);
+			int tmp = perm[i];
+			perm[i] = perm[j];
+			perm[j] = tmp;
+		}
+		return perm;
+	}
+}
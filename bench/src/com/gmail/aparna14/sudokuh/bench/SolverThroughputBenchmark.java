@@ -0,0 +1,112 @@
+package com.gmail.aparna14.sudokuh.bench;
+
+import com.gmail.aparna14.sudokuh.algo.BackTrackingStrategy;
+import com.gmail.aparna14.sudokuh.algo.BitMaskBackTrackingStrategy;
+import com.gmail.aparna14.sudokuh.algo.CellOrdering;
+import com.gmail.aparna14.sudokuh.algo.ConstraintPropagator;
+import com.gmail.aparna14.sudokuh.algo.DancingLinksStrategy;
+import com.gmail.aparna14.sudokuh.algo.SolverStrategy;
+
+/**
+ * This class compares throughput of solving engines side by side
+ * on the fixed corpus of puzzles, reporting puzzles per second and search nodes per puzzle.
+ * Usage: SolverThroughputBenchmark [rounds] [HARD|MINIMAL|ADVERSARIAL]
+ * @author aparna
+ *
+ */
+public class SolverThroughputBenchmark
+{
+	private static final int WARMUP_ROUNDS = 3;
+
+	public static void main(String[] args)
+	{
+		int rounds = (args.length > 0) ? Integer.parseInt(args[0]) : 5;
+		String corpusName = (args.length > 1) ? args[1] : "HARD";
+		int[][][] corpus = PuzzleCorpus.toBoards(corpus(corpusName));
+
+		System.out.println("Corpus " + corpusName + ", " + corpus.length + " puzzles, " + rounds + " rounds");
+		run("BackTrackingStrategy", new BackTrackingStrategy(), corpus, rounds);
+		run("BackTrackingStrategy/MRV", new BackTrackingStrategy(CellOrdering.MINIMUM_REMAINING_VALUES), corpus, rounds);
+		run("BitMaskBackTrackingStrategy", new BitMaskBackTrackingStrategy(), corpus, rounds);
+		run("BitMaskBackTrackingStrategy/MRV", new BitMaskBackTrackingStrategy(CellOrdering.MINIMUM_REMAINING_VALUES), corpus, rounds);
+		run("DancingLinksStrategy", new DancingLinksStrategy(), corpus, rounds);
+		run("ConstraintPropagator", new ConstraintPropagator(), corpus, rounds);
+	}
+
+	private static String[] corpus(String name)
+	{
+		if("MINIMAL".equalsIgnoreCase(name))
+			return PuzzleCorpus.MINIMAL;
+		if("ADVERSARIAL".equalsIgnoreCase(name))
+			return PuzzleCorpus.ADVERSARIAL;
+		return PuzzleCorpus.HARD;
+	}
+
+	/*
+	 * Solves every puzzle of corpus rounds times and prints puzzles solved per second.
+	 */
+	static void run(String name, SolverStrategy solver, int[][][] corpus, int rounds)
+	{
+		int[][][] work = copyOf(corpus);
+
+		for(int i = 0; i < WARMUP_ROUNDS; i++)
+		{
+			solveAll(solver, corpus, work);
+		}
+
+		long start = System.nanoTime();
+		int solved = 0;
+		long nodes = 0;
+		for(int i = 0; i < rounds; i++)
+		{
+			solved += solveAll(solver, corpus, work);
+		}
+		long elapsed = System.nanoTime() - start;
+
+		/* node counts are deterministic, one more pass gives the per puzzle average */
+		for(int p = 0; p < corpus.length; p++)
+		{
+			copyInto(corpus[p], work[p]);
+			solver.solve(work[p]);
+			nodes += solver.getNodeCount();
+		}
+
+		int puzzles = rounds * corpus.length;
+		System.out.println(String.format("%-34s %12.1f puzzles/sec %14d nodes/puzzle  (%d/%d solved)",
+				name, puzzles / (elapsed / 1e9), nodes / corpus.length, solved, puzzles));
+	}
+
+	private static int solveAll(SolverStrategy solver, int[][][] corpus, int[][][] work)
+	{
+		int solved = 0;
+		for(int p = 0; p < corpus.length; p++)
+		{
+			copyInto(corpus[p], work[p]);
+			if(solver.solve(work[p]))
+				solved++;
+		}
+		return solved;
+	}
+
+	private static void copyInto(int[][] board, int[][] target)
+	{
+		for(int row = 0; row < board.length; row++)
+		{
+			System.arraycopy(board[row], 0, target[row], 0, board[row].length);
+		}
+	}
+
+	private static int[][][] copyOf(int[][][] boards)
+	{
+		int[][][] copy = new int[boards.length][][];
+		for(int p = 0; p < boards.length; p++)
+		{
+			copy[p] = new int[boards[p].length][];
+			for(int row = 0; row < boards[p].length; row++)
+			{
+				copy[p][row] = boards[p][row].clone();
+			}
+		}
+		return copy;
+	}
+}
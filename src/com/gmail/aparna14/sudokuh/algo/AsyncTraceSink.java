@@ -0,0 +1,244 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * This class writes solve trace on its own thread, so that solving threads do not wait for I/O.
+ * Steps are kept as (row, col, value) ints in chunks of STEPS_PER_CHUNK steps, and are only
+ * turned into text by the writer thread. Summary lines are passed as strings.
+ * A full chunk or a line is handed over through a bounded queue, solving threads block
+ * once QUEUE_CAPACITY items are waiting, hence trace is never dropped.
+ * Output is buffered and flushed on close.
+ * Instance is thread safe, solvers of all worker threads may share one sink.
+ * @author aparna
+ *
+ */
+public class AsyncTraceSink implements Closeable
+{
+	public static final int STEPS_PER_CHUNK = 256;
+
+	private static final int QUEUE_CAPACITY = 64;
+
+	private static final int INTS_PER_STEP = 3;
+
+	private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+	/* marks end of trace for writer thread */
+	private static final Object END = new Object();
+
+	/* chunks and lines waiting to be written, in order */
+	private final BlockingQueue<Object> pending = new ArrayBlockingQueue<Object>(QUEUE_CAPACITY);
+
+	/* written chunks, reused instead of allocating new ones */
+	private final BlockingQueue<int[]> spareChunks = new ArrayBlockingQueue<int[]>(QUEUE_CAPACITY);
+
+	private final Writer out;
+
+	/* false for console, which is flushed but left open */
+	private final boolean closeOut;
+
+	private final Thread writer;
+
+	/* chunk being filled, its first int holds number of ints used */
+	private int[] chunk;
+
+	private boolean closed;
+
+	/* first write failure, reported by close */
+	private volatile IOException failure;
+
+	/**
+	 * Trace goes to file at path, which is created or overwritten.
+	 */
+	public AsyncTraceSink(String path) throws IOException
+	{
+		this(new FileOutputStream(path), true);
+	}
+
+	/**
+	 * Trace goes to console, e.g System.err, which is not closed by close.
+	 */
+	public AsyncTraceSink(PrintStream console)
+	{
+		this(console, false);
+	}
+
+	private AsyncTraceSink(OutputStream stream, boolean closeOut)
+	{
+		this.out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+		this.closeOut = closeOut;
+		this.chunk = newChunk();
+		this.writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				drain();
+			}
+		}, "trace-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Records value determined for cell (row, col).
+	 */
+	public synchronized void step(int row, int col, int value)
+	{
+		if(closed)
+			return;
+		int used = chunk[0];
+		chunk[used + 1] = row;
+		chunk[used + 2] = col;
+		chunk[used + 3] = value;
+		chunk[0] = used + INTS_PER_STEP;
+		if(chunk[0] == STEPS_PER_CHUNK * INTS_PER_STEP)
+		{
+			handOver(chunk);
+			chunk = newChunk();
+		}
+	}
+
+	/**
+	 * Records one line of text, written after the steps recorded before it.
+	 */
+	public synchronized void line(String line)
+	{
+		if(closed)
+			return;
+		handOverChunk();
+		handOver(line);
+	}
+
+	/**
+	 * Writes everything recorded and waits for the writer thread to finish.
+	 * @throws IOException - if writing trace failed
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		synchronized(this)
+		{
+			if(closed)
+				return;
+			handOverChunk();
+			handOver(END);
+			closed = true;
+		}
+		try
+		{
+			writer.join();
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		if(failure != null)
+		{
+			throw failure;
+		}
+	}
+
+	private void handOverChunk()
+	{
+		if(chunk[0] > 0)
+		{
+			handOver(chunk);
+			chunk = newChunk();
+		}
+	}
+
+	private void handOver(Object item)
+	{
+		try
+		{
+			pending.put(item);
+		}
+		catch(InterruptedException e)
+		{
+			/* trace is dropped rather than solving thread kept waiting after interrupt */
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private int[] newChunk()
+	{
+		int[] spare = spareChunks.poll();
+		if(spare == null)
+			return new int[STEPS_PER_CHUNK * INTS_PER_STEP + 1];
+		spare[0] = 0;
+		return spare;
+	}
+
+	/*
+	 * Writer thread: formats and writes items till END, keeps draining after a failure
+	 * so that solving threads are not blocked.
+	 */
+	private void drain()
+	{
+		try
+		{
+			while(true)
+			{
+				Object item = pending.take();
+				if(item == END)
+					break;
+				if(failure != null)
+					continue;
+				try
+				{
+					write(item);
+				}
+				catch(IOException e)
+				{
+					failure = e;
+				}
+			}
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		try
+		{
+			out.flush();
+			if(closeOut)
+				out.close();
+		}
+		catch(IOException e)
+		{
+			if(failure == null)
+				failure = e;
+		}
+	}
+
+	private void write(Object item) throws IOException
+	{
+		if(item instanceof String)
+		{
+			out.write((String) item);
+			out.write('\n');
+			return;
+		}
+		int[] steps = (int[]) item;
+		for(int idx = 1; idx <= steps[0]; idx += INTS_PER_STEP)
+		{
+			out.write("determined (");
+			out.write(Integer.toString(steps[idx]));
+			out.write(',');
+			out.write(Integer.toString(steps[idx + 1]));
+			out.write(") = ");
+			out.write(Integer.toString(steps[idx + 2]));
+			out.write('\n');
+		}
+		spareChunks.offer(steps);
+	}
+}
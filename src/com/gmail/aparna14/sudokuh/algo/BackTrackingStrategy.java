@@ -3,29 +3,127 @@ package com.gmail.aparna14.sudokuh.algo;
 import java.util.Set;
 import java.util.TreeSet;
 
+import com.gmail.aparna14.sudokuh.data.BoardGeometry;
 
 /**
  * This class outlines the backtracking algorithm used for solving sudoku board.
+ * Blank cells are visited either in row major order or, with
+ * CellOrdering.MINIMUM_REMAINING_VALUES, the blank cell with fewest feasible values
+ * is always filled next.
+ * With a SolveListener attached, node, dead end and depth counts and time taken are reported
+ * after every solve.
  * @author aparna
  *
  */
-public class BackTrackingStrategy
+public class BackTrackingStrategy implements SolverStrategy
 {
+	private final CellOrdering cellOrdering;
+	
+	private long nodeCount;
+	
+	/* cells for which every feasible value failed */
+	private long deadEndCount;
+	
+	/* most values assigned by search at once */
+	private int maxDepth;
+	
+	/* null if nobody listens, solve is then not timed */
+	private SolveListener listener;
+	
+	/* state used for minimum remaining values ordering, allocated once per dimension */
+	private BoardGeometry geometry;
+	private int[] rowMask;
+	private int[] colMask;
+	private int[] boxMask;
+	/* number of feasible values for each blank cell */
+	private int[] candidateCount;
+	/* blank cells are kept in doubly linked lists, one list per candidate count */
+	private int[] bucketHead;
+	private int[] nextInBucket;
+	private int[] prevInBucket;
+	
+	public BackTrackingStrategy()
+	{
+		this(CellOrdering.ROW_MAJOR);
+	}
+	
+	public BackTrackingStrategy(CellOrdering cellOrdering)
+	{
+		this.cellOrdering = cellOrdering;
+	}
+	
 	/**
 	 * This function solves for the missing spaces in sudoku board
 	 */
+	@Override
 	public  boolean solve(int[][] sudokuArr)
 	{
-		return	solve(0,0, sudokuArr, 9);
+		if(listener == null)
+		{
+			return search(sudokuArr);
+		}
+		long start = System.nanoTime();
+		boolean solved = search(sudokuArr);
+		long elapsedNanos = System.nanoTime() - start;
+		listener.searchFinished(nodeCount, deadEndCount, maxDepth);
+		listener.boardFinished(sudokuArr.length, solved, elapsedNanos);
+		return solved;
+	}
+	
+	/**
+	 * Sets listener told about every following solve, null to stop reporting.
+	 */
+	public void setListener(SolveListener listener)
+	{
+		this.listener = listener;
+	}
+	
+	private boolean search(int[][] sudokuArr)
+	{
+		nodeCount = 0;
+		deadEndCount = 0;
+		maxDepth = 0;
+		if(cellOrdering == CellOrdering.MINIMUM_REMAINING_VALUES)
+		{
+			return solveFewestCandidatesFirst(sudokuArr);
+		}
+		/* rejects boards which are not n^2*n^2 */
+		BoardGeometry.forDimension(sudokuArr.length);
+		return	solve(0,0, sudokuArr, sudokuArr.length, 1);
+	}
+	
+	/**
+	 * Returns number of values tried (search nodes) during last solve.
+	 */
+	@Override
+	public long getNodeCount()
+	{
+		return nodeCount;
+	}
+	
+	/**
+	 * Returns number of blank cells for which every feasible value failed during last solve.
+	 */
+	public long getDeadEndCount()
+	{
+		return deadEndCount;
+	}
+	
+	/**
+	 * Returns most values assigned by search at once during last solve.
+	 */
+	public int getMaxDepth()
+	{
+		return maxDepth;
 	}
 	
 	/*
 	 * This function tries to find value satisfying row, column and grid constraints 
 	 * for particular blank cell. In case of more than one feasible value, 
 	 * it uses backtracking algorithm to backtrack from false assumption.
-	 * 
+	 * Depth is the number of values assigned by search, once a value is assigned to this cell.
 	 */
-	private boolean solve(int row, int col, int[][] sudokuCells, int dimension)
+	private boolean solve(int row, int col, int[][] sudokuCells, int dimension, int depth)
 	{
 		/* Reached the end of puzzle. No blank spaces */
 		if(row == dimension -1 && col == dimension -1 && sudokuCells[row][col] != 0)
@@ -46,15 +144,22 @@ public class BackTrackingStrategy
 				Set<Integer> valuesForCell = getFeasibleValues(row, col, sudokuCells, dimension);
 			
 				if(valuesForCell.isEmpty())
+				{
+					deadEndCount++;
 					return false;
+				}
+				if(depth > maxDepth)
+					maxDepth = depth;
 				for(Integer feasibleValue: valuesForCell)
 				{
+					nodeCount++;
 					sudokuCells[row][col] = feasibleValue;
-					if(solve(row, col, sudokuCells, dimension))
+					if(solve(row, col, sudokuCells, dimension, depth + 1))
 						return true;
 					
 					sudokuCells[row][col] = 0;
 				}
+				deadEndCount++;
 			}
 			else
 			{
@@ -73,7 +178,7 @@ public class BackTrackingStrategy
 				}
 				else
 					col = col+1;
-				return solve(row, col, sudokuCells, dimension);
+				return solve(row, col, sudokuCells, dimension, depth);
 			}
 			return false;
 		}
@@ -134,4 +239,183 @@ public class BackTrackingStrategy
 			}
 		return feasibleValues;
 	}
+	
+	/*
+	 * Minimum remaining values ordering.
+	 * Row, column and grid bitmaps hold values already used, and for each blank cell
+	 * the count of feasible values is kept up to date as values are assigned and undone.
+	 * Only peers of the assigned cell are touched, and the next cell is taken from
+	 * the lowest non empty count list instead of scanning the board.
+	 */
+	private boolean solveFewestCandidatesFirst(int[][] sudokuCells)
+	{
+		int dimension = sudokuCells.length;
+		if(geometry == null || geometry.getDimension() != dimension)
+		{
+			geometry = BoardGeometry.forDimension(dimension);
+			rowMask = new int[dimension];
+			colMask = new int[dimension];
+			boxMask = new int[dimension];
+			candidateCount = new int[geometry.getCellCount()];
+			bucketHead = new int[dimension + 1];
+			nextInBucket = new int[geometry.getCellCount()];
+			prevInBucket = new int[geometry.getCellCount()];
+		}
+		
+		for(int i = 0; i < dimension; i++)
+		{
+			rowMask[i] = 0;
+			colMask[i] = 0;
+			boxMask[i] = 0;
+		}
+		for(int count = 0; count <= dimension; count++)
+		{
+			bucketHead[count] = -1;
+		}
+		
+		/* form bitmaps of used values, rejecting boards which already violate constraints */
+		int blankCount = 0;
+		for(int cell = 0; cell < geometry.getCellCount(); cell++)
+		{
+			int value = sudokuCells[geometry.rowOf(cell)][geometry.colOf(cell)];
+			if(value == 0)
+			{
+				blankCount++;
+				continue;
+			}
+			if(value < 0 || value > dimension)
+				return false;
+			
+			int bit = 1 << (value - 1);
+			if(((rowMask[geometry.rowOf(cell)] | colMask[geometry.colOf(cell)] | boxMask[geometry.boxOf(cell)]) & bit) != 0)
+				return false;
+			setUsed(cell, bit);
+		}
+		
+		for(int cell = 0; cell < geometry.getCellCount(); cell++)
+		{
+			if(isBlankSpace(geometry.rowOf(cell), geometry.colOf(cell), sudokuCells))
+			{
+				candidateCount[cell] = Integer.bitCount(feasibleMask(cell));
+				addToBucket(cell);
+			}
+		}
+		
+		return solveFewestCandidatesFirst(blankCount, sudokuCells, 1);
+	}
+	
+	private boolean solveFewestCandidatesFirst(int blankCount, int[][] sudokuCells, int depth)
+	{
+		if(blankCount == 0)
+			return true;
+		
+		/* cell with no feasible value left, backtrack */
+		if(bucketHead[0] != -1)
+		{
+			deadEndCount++;
+			return false;
+		}
+		if(depth > maxDepth)
+			maxDepth = depth;
+		
+		int count = 1;
+		while(bucketHead[count] == -1)
+			count++;
+		
+		int cell = bucketHead[count];
+		int row = geometry.rowOf(cell);
+		int col = geometry.colOf(cell);
+		removeFromBucket(cell);
+		
+		int feasible = feasibleMask(cell);
+		while(feasible != 0)
+		{
+			int bit = feasible & -feasible;
+			feasible ^= bit;
+			nodeCount++;
+			
+			sudokuCells[row][col] = Integer.numberOfTrailingZeros(bit) + 1;
+			assign(cell, bit, sudokuCells);
+			
+			if(solveFewestCandidatesFirst(blankCount - 1, sudokuCells, depth + 1))
+				return true;
+			
+			unassign(cell, bit, sudokuCells);
+		}
+		deadEndCount++;
+		sudokuCells[row][col] = 0;
+		addToBucket(cell);
+		return false;
+	}
+	
+	/*
+	 * Marks value as used for cell and lowers candidate count of blank peers,
+	 * which could still take this value.
+	 */
+	private void assign(int cell, int bit, int[][] sudokuCells)
+	{
+		for(int peer : geometry.peersOf(cell))
+		{
+			if(isBlankSpace(geometry.rowOf(peer), geometry.colOf(peer), sudokuCells) && (feasibleMask(peer) & bit) != 0)
+			{
+				removeFromBucket(peer);
+				candidateCount[peer]--;
+				addToBucket(peer);
+			}
+		}
+		setUsed(cell, bit);
+	}
+	
+	/* reverse of assign, value becomes feasible again for blank peers */
+	private void unassign(int cell, int bit, int[][] sudokuCells)
+	{
+		rowMask[geometry.rowOf(cell)] &= ~bit;
+		colMask[geometry.colOf(cell)] &= ~bit;
+		boxMask[geometry.boxOf(cell)] &= ~bit;
+		
+		for(int peer : geometry.peersOf(cell))
+		{
+			if(isBlankSpace(geometry.rowOf(peer), geometry.colOf(peer), sudokuCells) && (feasibleMask(peer) & bit) != 0)
+			{
+				removeFromBucket(peer);
+				candidateCount[peer]++;
+				addToBucket(peer);
+			}
+		}
+	}
+	
+	private void setUsed(int cell, int bit)
+	{
+		rowMask[geometry.rowOf(cell)] |= bit;
+		colMask[geometry.colOf(cell)] |= bit;
+		boxMask[geometry.boxOf(cell)] |= bit;
+	}
+	
+	private int feasibleMask(int cell)
+	{
+		return geometry.getAllValuesMask()
+				& ~(rowMask[geometry.rowOf(cell)] | colMask[geometry.colOf(cell)] | boxMask[geometry.boxOf(cell)]);
+	}
+	
+	private void addToBucket(int cell)
+	{
+		int head = bucketHead[candidateCount[cell]];
+		nextInBucket[cell] = head;
+		prevInBucket[cell] = -1;
+		if(head != -1)
+			prevInBucket[head] = cell;
+		bucketHead[candidateCount[cell]] = cell;
+	}
+	
+	private void removeFromBucket(int cell)
+	{
+		int next = nextInBucket[cell];
+		int prev = prevInBucket[cell];
+		if(prev != -1)
+			nextInBucket[prev] = next;
+		else
+			bucketHead[candidateCount[cell]] = next;
+		if(next != -1)
+			prevInBucket[next] = prev;
+	}
 }
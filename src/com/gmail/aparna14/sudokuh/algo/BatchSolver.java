@@ -0,0 +1,156 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+import java.util.List;
+
+import com.gmail.aparna14.sudokuh.data.BatchResult;
+import com.gmail.aparna14.sudokuh.data.Board;
+
+/**
+ * This class solves many sudoku boards in one process, reusing
+ * one solver instance (HeursiticAlgo by default) and one scratch board for all of them.
+ * Boards are solved in place. Board which can not be solved
+ * is left holding its original values.
+ * Boards may be matrices or flat Boards, the latter keep large batches compact in memory.
+ * Instance is not thread safe.
+ * @author aparna
+ *
+ */
+public class BatchSolver
+{
+	private final SolverStrategy solver;
+	
+	/* copy of board being solved, used for restoring board if it can not be solved */
+	private int[][] original = new int[0][0];
+	
+	/* same for flat board */
+	private Board originalBoard;
+	
+	public BatchSolver()
+	{
+		this(new HeursiticAlgo());
+	}
+	
+	public BatchSolver(SolverStrategy solver)
+	{
+		this.solver = solver;
+	}
+	
+	/**
+	 * Solves every board of the list.
+	 * @param boards - sudoku matrices, solved in place
+	 * @return result holding which boards were solved and time taken
+	 */
+	public BatchResult solveAll(List<int[][]> boards)
+	{
+		boolean[] solved = new boolean[boards.size()];
+		int solvedCount = 0;
+		long start = System.nanoTime();
+		
+		for(int idx = 0; idx < boards.size(); idx++)
+		{
+			solved[idx] = solve(boards.get(idx));
+			if(solved[idx])
+				solvedCount++;
+		}
+		return new BatchResult(solved, solvedCount, System.nanoTime() - start);
+	}
+	
+	/**
+	 * Same as solveAll for flat boards.
+	 */
+	public BatchResult solveBoards(List<Board> boards)
+	{
+		boolean[] solved = new boolean[boards.size()];
+		int solvedCount = 0;
+		long start = System.nanoTime();
+		
+		for(int idx = 0; idx < boards.size(); idx++)
+		{
+			solved[idx] = solve(boards.get(idx));
+			if(solved[idx])
+				solvedCount++;
+		}
+		return new BatchResult(solved, solvedCount, System.nanoTime() - start);
+	}
+	
+	/**
+	 * Solves one board, board is left unchanged if it has no solution
+	 * or is not n^2*n^2 board.
+	 */
+	public boolean solve(int[][] board)
+	{
+		if(!isSquare(board))
+		{
+			/* rejected before copy, which assumes n rows of n values */
+			return false;
+		}
+		copy(board);
+		boolean solved;
+		try
+		{
+			solved = solver.solve(board);
+		}
+		catch(IllegalArgumentException e)
+		{
+			solved = false;
+		}
+		
+		if(!solved)
+		{
+			for(int row = 0; row < board.length; row++)
+			{
+				System.arraycopy(original[row], 0, board[row], 0, board[row].length);
+			}
+		}
+		return solved;
+	}
+	
+	/**
+	 * Same as solve(int[][]) for flat board.
+	 */
+	public boolean solve(Board board)
+	{
+		if(originalBoard == null || originalBoard.getDimension() != board.getDimension())
+		{
+			originalBoard = new Board(board.getDimension());
+		}
+		originalBoard.copyFrom(board);
+		boolean solved;
+		try
+		{
+			solved = solver.solve(board);
+		}
+		catch(IllegalArgumentException e)
+		{
+			solved = false;
+		}
+		
+		if(!solved)
+		{
+			board.copyFrom(originalBoard);
+		}
+		return solved;
+	}
+	
+	private static boolean isSquare(int[][] board)
+	{
+		for(int[] row : board)
+		{
+			if(row == null || row.length != board.length)
+				return false;
+		}
+		return true;
+	}
+	
+	private void copy(int[][] board)
+	{
+		if(original.length != board.length)
+		{
+			original = new int[board.length][board.length];
+		}
+		for(int row = 0; row < board.length; row++)
+		{
+			System.arraycopy(board[row], 0, original[row], 0, board[row].length);
+		}
+	}
+}
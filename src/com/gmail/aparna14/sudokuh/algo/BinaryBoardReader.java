@@ -0,0 +1,281 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.gmail.aparna14.sudokuh.data.Board;
+import com.gmail.aparna14.sudokuh.data.BoardGeometry;
+import com.gmail.aparna14.sudokuh.data.BoardStatus;
+import com.gmail.aparna14.sudokuh.exceptions.InvalidDataException;
+
+/**
+ * This class reads boards written by BinaryBoardWriter, one record at a time.
+ * Records are read in large blocks into reused buffer and unpacked into reused cell array,
+ * from which they are copied into matrix or flat Board.
+ * Instance is not thread safe.
+ * @author aparna
+ *
+ */
+public class BinaryBoardReader implements Closeable
+{
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private static final int NIBBLE_BITS = 4;
+
+	private final InputStream in;
+
+	private final int dimension;
+
+	private final int bitsPerCell;
+
+	private final int recordSize;
+
+	private final byte[] buffer;
+
+	/* values of board last unpacked, in row major order */
+	private final int[] values;
+
+	private int pos;
+
+	private int limit;
+
+	private BoardStatus status;
+
+	private int boardCount;
+
+	/**
+	 * Reads and checks header at once.
+	 * @param in - stream to read from, need not be buffered
+	 * @throws InvalidDataException - if stream does not start with valid header
+	 */
+	public BinaryBoardReader(InputStream in) throws IOException, InvalidDataException
+	{
+		this.in = in;
+		byte[] header = new byte[BinaryBoardWriter.HEADER_SIZE];
+		int read = 0;
+		while(read < header.length)
+		{
+			int count = in.read(header, read, header.length - read);
+			if(count < 0)
+				throw new InvalidDataException("Binary board file header is truncated");
+			read += count;
+		}
+
+		for(int idx = 0; idx < BinaryBoardWriter.MAGIC.length; idx++)
+		{
+			if(header[idx] != BinaryBoardWriter.MAGIC[idx])
+				throw new InvalidDataException("Not a binary board file");
+		}
+		if(header[4] != BinaryBoardWriter.VERSION)
+		{
+			throw new InvalidDataException("Unsupported binary board file version " + header[4]);
+		}
+
+		this.dimension = header[5] & 0xFF;
+		try
+		{
+			BoardGeometry.forDimension(dimension);
+		}
+		catch(IllegalArgumentException e)
+		{
+			throw new InvalidDataException(e.getMessage(), e);
+		}
+		this.bitsPerCell = BinaryBoardWriter.bitsPerCell(dimension);
+		if((header[6] & 0xFF) != bitsPerCell)
+		{
+			throw new InvalidDataException("Bits per cell " + header[6] + " does not match dimension " + dimension);
+		}
+		this.recordSize = BinaryBoardWriter.recordSize(dimension);
+		this.buffer = new byte[Math.max(BUFFER_SIZE, recordSize)];
+		this.values = new int[dimension * dimension];
+	}
+
+	/**
+	 * Opens binary board file and reads its header.
+	 * @throws InvalidDataException - if file does not start with valid header, file is closed again
+	 */
+	public static BinaryBoardReader open(String path) throws IOException, InvalidDataException
+	{
+		FileInputStream in = new FileInputStream(path);
+		boolean opened = false;
+		try
+		{
+			BinaryBoardReader reader = new BinaryBoardReader(in);
+			opened = true;
+			return reader;
+		}
+		finally
+		{
+			if(!opened)
+				in.close();
+		}
+	}
+
+	public int getDimension()
+	{
+		return dimension;
+	}
+
+	/**
+	 * Returns status of the board last read.
+	 */
+	public BoardStatus getStatus()
+	{
+		return status;
+	}
+
+	/**
+	 * Reads next board.
+	 * @param reuse - board to fill, if it has file's dimension, may be null
+	 * @return board read (reuse or newly allocated), null if there are no more boards
+	 */
+	public int[][] nextBoard(int[][] reuse) throws IOException, InvalidDataException
+	{
+		if(!nextRecord())
+		{
+			return null;
+		}
+		int[][] board = (reuse != null && reuse.length == dimension) ? reuse : new int[dimension][dimension];
+		int cell = 0;
+		for(int row = 0; row < dimension; row++)
+		{
+			int[] rowValues = rowOf(board, row);
+			for(int col = 0; col < dimension; col++)
+			{
+				rowValues[col] = values[cell++];
+			}
+		}
+		return board;
+	}
+
+	/**
+	 * Same as nextBoard(int[][]) for flat board.
+	 * @param reuse - board to fill, if it has file's dimension, may be null
+	 */
+	public Board nextBoard(Board reuse) throws IOException, InvalidDataException
+	{
+		if(!nextRecord())
+		{
+			return null;
+		}
+		Board board = (reuse != null && reuse.getDimension() == dimension) ? reuse : new Board(dimension);
+		for(int cell = 0; cell < values.length; cell++)
+		{
+			board.set(cell, values[cell]);
+		}
+		return board;
+	}
+
+	/*
+	 * Unpacks next record into values and status, returns false if there are no more boards.
+	 */
+	private boolean nextRecord() throws IOException, InvalidDataException
+	{
+		if(limit - pos < recordSize && !fill())
+		{
+			return false;
+		}
+		boardCount++;
+
+		int recordStart = pos;
+		int statusCode = buffer[recordStart] & ((1 << BinaryBoardWriter.STATUS_BITS) - 1);
+		status = BoardStatus.fromCode(statusCode);
+		if(status == null)
+		{
+			throw new InvalidDataException("Unknown status " + statusCode + " of board " + boardCount);
+		}
+
+		if(bitsPerCell == NIBBLE_BITS)
+			unpackNibbles(recordStart);
+		else
+			unpackBits(recordStart);
+		pos = recordStart + recordSize;
+		return true;
+	}
+
+	/* 4 bit cells, as of 9*9 board: cell k is nibble k + 1 of the record, after status */
+	private void unpackNibbles(int recordStart) throws InvalidDataException
+	{
+		for(int cell = 0; cell < values.length; cell++)
+		{
+			int nibble = cell + 1;
+			int b = buffer[recordStart + (nibble >> 1)];
+			int value = ((nibble & 1) == 0 ? b : b >>> 4) & 0xF;
+			if(value > dimension)
+			{
+				throw badValue(value, cell / dimension);
+			}
+			values[cell] = value;
+		}
+	}
+
+	private void unpackBits(int recordStart) throws InvalidDataException
+	{
+		int cellMask = (1 << bitsPerCell) - 1;
+		int next = recordStart + 1;
+		long bits = (buffer[recordStart] & 0xFF) >>> BinaryBoardWriter.STATUS_BITS;
+		int bitCount = 8 - BinaryBoardWriter.STATUS_BITS;
+		for(int cell = 0; cell < values.length; cell++)
+		{
+			while(bitCount < bitsPerCell)
+			{
+				bits |= (long)(buffer[next++] & 0xFF) << bitCount;
+				bitCount += 8;
+			}
+			int value = (int)bits & cellMask;
+			if(value > dimension)
+			{
+				throw badValue(value, cell / dimension);
+			}
+			values[cell] = value;
+			bits >>>= bitsPerCell;
+			bitCount -= bitsPerCell;
+		}
+	}
+
+	private static int[] rowOf(int[][] board, int row)
+	{
+		if(board[row].length != board.length)
+		{
+			board[row] = new int[board.length];
+		}
+		return board[row];
+	}
+
+	private InvalidDataException badValue(int value, int row)
+	{
+		return new InvalidDataException("Value " + value + " out of range in row " + (row + 1) + " of board " + boardCount);
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		in.close();
+	}
+
+	/*
+	 * Moves remaining bytes to buffer start and reads until a whole record is buffered.
+	 * Returns false at end of stream, fails if stream ends inside a record.
+	 */
+	private boolean fill() throws IOException, InvalidDataException
+	{
+		int remaining = limit - pos;
+		System.arraycopy(buffer, pos, buffer, 0, remaining);
+		pos = 0;
+		limit = remaining;
+		while(limit < recordSize)
+		{
+			int count = in.read(buffer, limit, buffer.length - limit);
+			if(count < 0)
+			{
+				if(limit == 0)
+					return false;
+				throw new InvalidDataException("Binary board file is truncated after board " + boardCount);
+			}
+			limit += count;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,217 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.gmail.aparna14.sudokuh.data.Board;
+import com.gmail.aparna14.sudokuh.data.BoardGeometry;
+import com.gmail.aparna14.sudokuh.data.BoardStatus;
+
+/**
+ * This class writes boards of one dimension in compact binary form.
+ *
+ * File starts with 8 byte header:
+ * magic "SDKB", format version, board dimension, bits per cell, 0.
+ * It is followed by one fixed size record per board: 4 bit status code and then cells
+ * row by row, every cell in the fewest bits holding 0 (blank) to dimension, packed from
+ * the lowest bit of each byte. 9*9 board takes 4 + 81 * 4 bits, that is 41 bytes,
+ * where csv takes 163 bytes.
+ *
+ * Boards are taken as matrix or flat Board, cells of either are gathered into reused cell array.
+ * Records are packed into reused buffer and written in large blocks.
+ * Instance is not thread safe.
+ * @author aparna
+ *
+ */
+public class BinaryBoardWriter implements Closeable
+{
+	static final byte[] MAGIC = {'S', 'D', 'K', 'B'};
+
+	static final int VERSION = 1;
+
+	static final int HEADER_SIZE = 8;
+
+	static final int STATUS_BITS = 4;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final OutputStream out;
+
+	private final int dimension;
+
+	private final int bitsPerCell;
+
+	private final int recordSize;
+
+	private final byte[] buffer;
+
+	/* values of board being written, in row major order */
+	private final int[] values;
+
+	private int length;
+
+	/**
+	 * Writes header at once.
+	 * @param out - stream to write to, need not be buffered
+	 * @param dimension - dimension of all boards written
+	 */
+	public BinaryBoardWriter(OutputStream out, int dimension) throws IOException
+	{
+		BoardGeometry.forDimension(dimension);
+		this.out = out;
+		this.dimension = dimension;
+		this.bitsPerCell = bitsPerCell(dimension);
+		this.recordSize = recordSize(dimension);
+		this.buffer = new byte[Math.max(BUFFER_SIZE, recordSize)];
+		this.values = new int[dimension * dimension];
+
+		out.write(MAGIC);
+		out.write(new byte[] {VERSION, (byte)dimension, (byte)bitsPerCell, 0});
+	}
+
+	/**
+	 * Creates binary board file and writes its header.
+	 * Dimension is checked before file is created. If header can not be written,
+	 * file is closed and deleted again.
+	 * @throws IllegalArgumentException - if dimension is not supported
+	 */
+	public static BinaryBoardWriter create(String path, int dimension) throws IOException
+	{
+		BoardGeometry.forDimension(dimension);
+		FileOutputStream out = new FileOutputStream(path);
+		boolean created = false;
+		try
+		{
+			BinaryBoardWriter writer = new BinaryBoardWriter(out, dimension);
+			created = true;
+			return writer;
+		}
+		finally
+		{
+			if(!created)
+			{
+				out.close();
+				new File(path).delete();
+			}
+		}
+	}
+
+	/**
+	 * Appends board with its status.
+	 * @throws IllegalArgumentException - if board is not of writer's dimension or has value out of range
+	 */
+	public void write(int[][] board, BoardStatus status) throws IOException
+	{
+		if(board.length != dimension)
+		{
+			throw new IllegalArgumentException("Board dimension " + board.length + " does not match file dimension " + dimension);
+		}
+		int cell = 0;
+		for(int row = 0; row < dimension; row++)
+		{
+			int[] rowValues = board[row];
+			if(rowValues.length != dimension)
+			{
+				throw new IllegalArgumentException("Row " + (row + 1) + " has " + rowValues.length + " values, expected " + dimension);
+			}
+			for(int col = 0; col < dimension; col++)
+			{
+				int value = rowValues[col];
+				if(value < 0 || value > dimension)
+				{
+					throw new IllegalArgumentException("Value " + value + " out of range in row " + (row + 1));
+				}
+				values[cell++] = value;
+			}
+		}
+		writeRecord(status);
+	}
+
+	/**
+	 * Same as write(int[][], BoardStatus) for flat board, whose values are always in range.
+	 * @throws IllegalArgumentException - if board is not of writer's dimension
+	 */
+	public void write(Board board, BoardStatus status) throws IOException
+	{
+		if(board.getDimension() != dimension)
+		{
+			throw new IllegalArgumentException("Board dimension " + board.getDimension() + " does not match file dimension " + dimension);
+		}
+		for(int cell = 0; cell < values.length; cell++)
+		{
+			values[cell] = board.get(cell);
+		}
+		writeRecord(status);
+	}
+
+	/* packs status and values as one record */
+	private void writeRecord(BoardStatus status) throws IOException
+	{
+		if(length + recordSize > buffer.length)
+		{
+			flushBuffer();
+		}
+
+		long bits = status.getCode();
+		int bitCount = STATUS_BITS;
+		int pos = length;
+		for(int cell = 0; cell < values.length; cell++)
+		{
+			bits |= (long)values[cell] << bitCount;
+			bitCount += bitsPerCell;
+			while(bitCount >= 8)
+			{
+				buffer[pos++] = (byte)bits;
+				bits >>>= 8;
+				bitCount -= 8;
+			}
+		}
+		if(bitCount > 0)
+		{
+			buffer[pos] = (byte)bits;
+		}
+		length += recordSize;
+	}
+
+	public void flush() throws IOException
+	{
+		flushBuffer();
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			flush();
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	private void flushBuffer() throws IOException
+	{
+		if(length > 0)
+		{
+			out.write(buffer, 0, length);
+			length = 0;
+		}
+	}
+
+	/* fewest bits holding values 0 to dimension */
+	static int bitsPerCell(int dimension)
+	{
+		return 32 - Integer.numberOfLeadingZeros(dimension);
+	}
+
+	static int recordSize(int dimension)
+	{
+		return (STATUS_BITS + dimension * dimension * bitsPerCell(dimension) + 7) / 8;
+	}
+}
@@ -0,0 +1,60 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.List;
+
+import com.gmail.aparna14.sudokuh.data.BatchResult;
+import com.gmail.aparna14.sudokuh.data.Board;
+import com.gmail.aparna14.sudokuh.exceptions.InvalidDataException;
+
+/**
+ * This interface declares the file operations on binary board files, the compact
+ * counterpart of csv files used for large puzzle archives. Format is described in BinaryBoardWriter.
+ * All boards of one file have the same dimension.
+ * @author aparna
+ *
+ */
+public interface BinaryFileManager {
+
+	/**
+	 * Reads all boards of binary file.
+	 * @param path - path of binary board file
+	 * @return list of matrices in file order
+	 */
+	public List<int[][]> readBoards(String path) throws FileNotFoundException, IOException, InvalidDataException;
+
+	/**
+	 * Writes boards to binary file, completely filled boards get status SOLVED, others PUZZLE.
+	 * @param boards - sudoku matrices of one dimension
+	 * @param outputFilePath - path of output file, existing file is overwritten
+	 */
+	public void writeBoardsToFile(List<int[][]> boards, String outputFilePath) throws IOException;
+
+	/**
+	 * Writes solved boards of batch to binary file, boards batch failed to solve get status UNSOLVABLE.
+	 * @param boards - sudoku matrices of one dimension, after solving
+	 * @param result - result of solving the boards
+	 * @param outputFilePath - path of output file, existing file is overwritten
+	 */
+	public void writeBoardsToFile(List<int[][]> boards, BatchResult result, String outputFilePath) throws IOException;
+
+	/**
+	 * Same as readBoards, boards are returned as flat boards.
+	 */
+	public List<Board> readFlatBoards(String path) throws FileNotFoundException, IOException, InvalidDataException;
+
+	/**
+	 * Same as writeBoardsToFile(List, BatchResult, String) for flat boards.
+	 * @param result - result of solving the boards, null to judge status by blank cells only
+	 */
+	public void writeFlatBoardsToFile(List<Board> boards, BatchResult result, String outputFilePath) throws IOException;
+
+	/**
+	 * Converts csv file of boards separated by blank lines to binary file, board by board.
+	 * @param csvFilePath - csv file, as read by CSVFileManager.readBoards
+	 * @param outputFilePath - path of binary output file, existing file is overwritten
+	 * @return number of boards converted
+	 */
+	public int convertFromCSV(String csvFilePath, String outputFilePath) throws FileNotFoundException, IOException, InvalidDataException;
+}
@@ -0,0 +1,185 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.gmail.aparna14.sudokuh.data.BatchResult;
+import com.gmail.aparna14.sudokuh.data.Board;
+import com.gmail.aparna14.sudokuh.data.BoardStatus;
+import com.gmail.aparna14.sudokuh.exceptions.InvalidDataException;
+
+/**
+ * This class implements BinaryFileManager interface.
+ * Output file is created only once dimension is known to be valid, and is deleted
+ * if writing fails part way, so no truncated file is left behind.
+ * @author aparna
+ *
+ */
+public class BinaryFileManagerImpl implements BinaryFileManager {
+
+	/* dimension written in header of file without boards */
+	private static final int DEFAULT_DIMENSION = 9;
+
+	@Override
+	public List<int[][]> readBoards(String path) throws FileNotFoundException, IOException, InvalidDataException
+	{
+		List<int[][]> boards = new ArrayList<int[][]>();
+		BinaryBoardReader reader = BinaryBoardReader.open(path);
+		try
+		{
+			int[][] board;
+			while((board = reader.nextBoard((int[][]) null)) != null)
+			{
+				boards.add(board);
+			}
+		}
+		finally
+		{
+			reader.close();
+		}
+		return boards;
+	}
+
+	@Override
+	public void writeBoardsToFile(List<int[][]> boards, String outputFilePath) throws IOException
+	{
+		writeBoards(boards, null, outputFilePath);
+	}
+
+	@Override
+	public void writeBoardsToFile(List<int[][]> boards, BatchResult result, String outputFilePath) throws IOException
+	{
+		writeBoards(boards, result, outputFilePath);
+	}
+
+	@Override
+	public List<Board> readFlatBoards(String path) throws FileNotFoundException, IOException, InvalidDataException
+	{
+		List<Board> boards = new ArrayList<Board>();
+		BinaryBoardReader reader = BinaryBoardReader.open(path);
+		try
+		{
+			Board board;
+			while((board = reader.nextBoard((Board) null)) != null)
+			{
+				boards.add(board);
+			}
+		}
+		finally
+		{
+			reader.close();
+		}
+		return boards;
+	}
+
+	@Override
+	public void writeFlatBoardsToFile(List<Board> boards, BatchResult result, String outputFilePath) throws IOException
+	{
+		int dimension = boards.isEmpty() ? DEFAULT_DIMENSION : boards.get(0).getDimension();
+		BinaryBoardWriter writer = BinaryBoardWriter.create(outputFilePath, dimension);
+		boolean written = false;
+		try
+		{
+			for(int idx = 0; idx < boards.size(); idx++)
+			{
+				Board board = boards.get(idx);
+				BoardStatus status = (result != null && !result.isSolved(idx)) ? BoardStatus.UNSOLVABLE
+						: (board.getBlankCount() == 0) ? BoardStatus.SOLVED : BoardStatus.PUZZLE;
+				writer.write(board, status);
+			}
+			writer.close();
+			written = true;
+		}
+		finally
+		{
+			if(!written)
+				discard(writer, outputFilePath);
+		}
+	}
+
+	@Override
+	public int convertFromCSV(String csvFilePath, String outputFilePath) throws FileNotFoundException, IOException, InvalidDataException
+	{
+		StreamingCSVParser parser = new StreamingCSVParser(new FileInputStream(csvFilePath), true);
+		BinaryBoardWriter writer = null;
+		boolean written = false;
+		int count = 0;
+		try
+		{
+			/* dimension of the file is taken from first board, board is reused */
+			int[][] board = parser.nextBoard((int[][]) null);
+			writer = BinaryBoardWriter.create(outputFilePath, (board != null) ? board.length : DEFAULT_DIMENSION);
+			while(board != null)
+			{
+				writer.write(board, statusOf(board));
+				count++;
+				board = parser.nextBoard(board);
+			}
+			writer.close();
+			written = true;
+		}
+		catch(IllegalArgumentException e)
+		{
+			throw new InvalidDataException(e.getMessage() + " in board " + (count + 1), e);
+		}
+		finally
+		{
+			parser.close();
+			if(writer != null && !written)
+				discard(writer, outputFilePath);
+		}
+		return count;
+	}
+
+	private void writeBoards(List<int[][]> boards, BatchResult result, String outputFilePath) throws IOException
+	{
+		int dimension = boards.isEmpty() ? DEFAULT_DIMENSION : boards.get(0).length;
+		BinaryBoardWriter writer = BinaryBoardWriter.create(outputFilePath, dimension);
+		boolean written = false;
+		try
+		{
+			for(int idx = 0; idx < boards.size(); idx++)
+			{
+				BoardStatus status = (result != null && !result.isSolved(idx)) ? BoardStatus.UNSOLVABLE : statusOf(boards.get(idx));
+				writer.write(boards.get(idx), status);
+			}
+			writer.close();
+			written = true;
+		}
+		finally
+		{
+			if(!written)
+				discard(writer, outputFilePath);
+		}
+	}
+
+	/* closes writer of failed write and deletes its partial file, failure being handled is the one reported */
+	private static void discard(BinaryBoardWriter writer, String outputFilePath)
+	{
+		try
+		{
+			writer.close();
+		}
+		catch(IOException e)
+		{
+			/* file is deleted anyway */
+		}
+		new File(outputFilePath).delete();
+	}
+
+	/* SOLVED, if board has no blank cell */
+	private static BoardStatus statusOf(int[][] board)
+	{
+		for(int[] row : board)
+			for(int value : row)
+			{
+				if(value == 0)
+					return BoardStatus.PUZZLE;
+			}
+		return BoardStatus.SOLVED;
+	}
+}
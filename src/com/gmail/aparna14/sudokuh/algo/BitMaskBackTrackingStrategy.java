@@ -0,0 +1,457 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.gmail.aparna14.sudokuh.data.Board;
+import com.gmail.aparna14.sudokuh.data.BoardGeometry;
+
+/**
+ * This class outlines the backtracking algorithm using bitmaps for row, column
+ * and grid occupancy instead of building set of feasible values for every cell.
+ * ith bit set in row bitmap means, value i+1 is already used in the row.
+ * Feasible values for blank cell are then obtained by
+ * ~(rowBitmap | columnBitmap | gridBitmap), and tried lowest bit first.
+ *
+ * Blank cells are filled in row major order, or with
+ * CellOrdering.MINIMUM_REMAINING_VALUES the remaining blank cell with fewest
+ * feasible values (or a hidden single) is swapped in front before branching.
+ *
+ * All working arrays are allocated once per board dimension and reused,
+ * hence no heap allocation happens while searching. Flat Board is read and written
+ * directly, without going through a matrix.
+ * Instance is not thread safe, use one instance per thread.
+ * @author aparna
+ *
+ */
+public class BitMaskBackTrackingStrategy implements SolverStrategy
+{
+	/* cancel flag is a volatile read, hence checked once every 1024 nodes */
+	private static final int CANCEL_CHECK_MASK = 0x3FF;
+
+	private final CellOrdering cellOrdering;
+
+	private BoardGeometry geometry;
+
+	/* board cells in row major order */
+	private int[] cells;
+
+	private int[] rowMask;
+
+	private int[] colMask;
+
+	private int[] boxMask;
+
+	/* values fitting at least one / at least two blank cells of row, column and grid */
+	private int[] rowOnce;
+	private int[] rowTwice;
+	private int[] colOnce;
+	private int[] colTwice;
+	private int[] boxOnce;
+	private int[] boxTwice;
+
+	/* indices of blank cells, in the order they are to be filled */
+	private int[] blankCells;
+
+	private int blankCount;
+
+	private long nodeCount;
+
+	/* search gives up after these many nodes, or when cancel flag is raised by another thread */
+	private long nodeLimit = Long.MAX_VALUE;
+
+	private AtomicBoolean cancelFlag;
+
+	private boolean aborted;
+
+	/* search path when last solve gave up, per level: cell, value tried and values not yet tried */
+	private int[] frontierCells;
+	private int[] frontierValues;
+	private int[] frontierUntried;
+	private int frontierDepth;
+
+	public BitMaskBackTrackingStrategy()
+	{
+		this(CellOrdering.ROW_MAJOR);
+	}
+
+	public BitMaskBackTrackingStrategy(CellOrdering cellOrdering)
+	{
+		this.cellOrdering = cellOrdering;
+	}
+
+	/**
+	 * This function solves for the missing spaces in sudoku board
+	 */
+	@Override
+	public boolean solve(int[][] sudokuArr)
+	{
+		return solve(sudokuArr, Long.MAX_VALUE, null);
+	}
+
+	/*
+	 * Solves board, giving up once nodeLimit nodes are visited or cancelFlag is set.
+	 * wasAborted() tells whether false result means no solution or gave up.
+	 */
+	boolean solve(int[][] sudokuArr, long nodeLimit, AtomicBoolean cancelFlag)
+	{
+		this.nodeLimit = nodeLimit;
+		this.cancelFlag = cancelFlag;
+		aborted = false;
+		frontierDepth = 0;
+		nodeCount = 0;
+		if(!load(sudokuArr))
+		{
+			return false;
+		}
+
+		if(!search(0))
+		{
+			return false;
+		}
+
+		store(sudokuArr);
+		return true;
+	}
+
+	@Override
+	public boolean solve(Board board)
+	{
+		this.nodeLimit = Long.MAX_VALUE;
+		this.cancelFlag = null;
+		aborted = false;
+		frontierDepth = 0;
+		nodeCount = 0;
+		if(!load(board) || !search(0))
+		{
+			return false;
+		}
+
+		int cellCount = geometry.getCellCount();
+		for(int cell = 0; cell < cellCount; cell++)
+		{
+			board.set(cell, cells[cell]);
+		}
+		return true;
+	}
+
+	/**
+	 * Returns number of values tried (search nodes) during last solve.
+	 */
+	@Override
+	public long getNodeCount()
+	{
+		return nodeCount;
+	}
+
+	/*
+	 * Returns true, if last solve gave up before completing the search.
+	 */
+	boolean wasAborted()
+	{
+		return aborted;
+	}
+
+	/*
+	 * After aborted solve, levels of the search path. At every level, the subtrees of the
+	 * untried values were not searched, the rest of the tree was. Subtree of a level lies
+	 * below the values of all levels above it.
+	 */
+	int getFrontierDepth()
+	{
+		return frontierDepth;
+	}
+
+	/* cell filled at level, row major index */
+	int getFrontierCell(int level)
+	{
+		return frontierCells[level];
+	}
+
+	/* value on the search path at level, 0 at the deepest level */
+	int getFrontierValue(int level)
+	{
+		return frontierValues[level];
+	}
+
+	/* bitmap of values not tried at level */
+	int getFrontierUntried(int level)
+	{
+		return frontierUntried[level];
+	}
+
+	/*
+	 * Allocates working arrays, if board dimension is different from last solve.
+	 */
+	private void ensureCapacity(int dimension)
+	{
+		if(geometry != null && geometry.getDimension() == dimension)
+		{
+			return;
+		}
+		geometry = BoardGeometry.forDimension(dimension);
+		cells = new int[geometry.getCellCount()];
+		blankCells = new int[geometry.getCellCount()];
+		frontierCells = new int[geometry.getCellCount()];
+		frontierValues = new int[geometry.getCellCount()];
+		frontierUntried = new int[geometry.getCellCount()];
+		rowMask = new int[dimension];
+		colMask = new int[dimension];
+		boxMask = new int[dimension];
+		rowOnce = new int[dimension];
+		rowTwice = new int[dimension];
+		colOnce = new int[dimension];
+		colTwice = new int[dimension];
+		boxOnce = new int[dimension];
+		boxTwice = new int[dimension];
+	}
+
+	/*
+	 * Copies board into working arrays and forms row, column and grid bitmaps.
+	 * Returns false, if the given values already violate the constraints.
+	 */
+	private boolean load(int[][] sudokuArr)
+	{
+		int dimension = sudokuArr.length;
+		ensureCapacity(dimension);
+
+		int cell = 0;
+		for(int row = 0; row < dimension; row++)
+		{
+			if(sudokuArr[row].length != dimension)
+			{
+				return false;
+			}
+			for(int col = 0; col < dimension; col++, cell++)
+			{
+				cells[cell] = sudokuArr[row][col];
+			}
+		}
+		return formMasks();
+	}
+
+	private boolean load(Board board)
+	{
+		ensureCapacity(board.getDimension());
+		int cellCount = geometry.getCellCount();
+		for(int cell = 0; cell < cellCount; cell++)
+		{
+			cells[cell] = board.get(cell);
+		}
+		return formMasks();
+	}
+
+	/*
+	 * Forms bitmaps and list of blank cells from cells.
+	 */
+	private boolean formMasks()
+	{
+		int dimension = geometry.getDimension();
+		for(int i = 0; i < dimension; i++)
+		{
+			rowMask[i] = 0;
+			colMask[i] = 0;
+			boxMask[i] = 0;
+		}
+		blankCount = 0;
+
+		int cellCount = geometry.getCellCount();
+		for(int cell = 0; cell < cellCount; cell++)
+		{
+			int value = cells[cell];
+			if(value == 0)
+			{
+				blankCells[blankCount++] = cell;
+				continue;
+			}
+			if(value < 0 || value > dimension)
+			{
+				return false;
+			}
+
+			int bit = 1 << (value - 1);
+			int row = geometry.rowOf(cell);
+			int col = geometry.colOf(cell);
+			int box = geometry.boxOf(cell);
+			if(((rowMask[row] | colMask[col] | boxMask[box]) & bit) != 0)
+			{
+				return false;
+			}
+			rowMask[row] |= bit;
+			colMask[col] |= bit;
+			boxMask[box] |= bit;
+		}
+		return true;
+	}
+
+	private void store(int[][] sudokuArr)
+	{
+		int dimension = geometry.getDimension();
+		int cell = 0;
+		for(int row = 0; row < dimension; row++)
+			for(int col = 0; col < dimension; col++, cell++)
+			{
+				sudokuArr[row][col] = cells[cell];
+			}
+	}
+
+	/*
+	 * Fills blank cell at blankIdx position with each feasible value in turn
+	 * and recurses for the remaining blank cells. Backtracks if no value fits.
+	 */
+	private boolean search(int blankIdx)
+	{
+		if(blankIdx == blankCount)
+		{
+			return true;
+		}
+
+		int feasible;
+		if(cellOrdering == CellOrdering.MINIMUM_REMAINING_VALUES)
+		{
+			feasible = selectCell(blankIdx);
+		}
+		else
+		{
+			feasible = feasibleValues(blankCells[blankIdx]);
+		}
+
+		int cell = blankCells[blankIdx];
+		int row = geometry.rowOf(cell);
+		int col = geometry.colOf(cell);
+		int box = geometry.boxOf(cell);
+
+		while(feasible != 0 && !aborted)
+		{
+			int bit = feasible & -feasible;
+			feasible ^= bit;
+			nodeCount++;
+			if(nodeCount > nodeLimit || (cancelFlag != null && (nodeCount & CANCEL_CHECK_MASK) == 0 && cancelFlag.get()))
+			{
+				aborted = true;
+				frontierDepth = blankIdx + 1;
+				recordFrontier(blankIdx, cell, 0, feasible | bit);
+				cells[cell] = 0;
+				return false;
+			}
+
+			rowMask[row] |= bit;
+			colMask[col] |= bit;
+			boxMask[box] |= bit;
+			cells[cell] = Integer.numberOfTrailingZeros(bit) + 1;
+
+			if(search(blankIdx + 1))
+				return true;
+			if(aborted)
+				recordFrontier(blankIdx, cell, cells[cell], feasible);
+
+			rowMask[row] &= ~bit;
+			colMask[col] &= ~bit;
+			boxMask[box] &= ~bit;
+		}
+		cells[cell] = 0;
+		return false;
+	}
+
+	private void recordFrontier(int blankIdx, int cell, int value, int untried)
+	{
+		frontierCells[blankIdx] = cell;
+		frontierValues[blankIdx] = value;
+		frontierUntried[blankIdx] = untried;
+	}
+
+	private int feasibleValues(int cell)
+	{
+		return geometry.getAllValuesMask()
+				& ~(rowMask[geometry.rowOf(cell)] | colMask[geometry.colOf(cell)] | boxMask[geometry.boxOf(cell)]);
+	}
+
+	/*
+	 * Finds among the blank cells from blankIdx onwards, the one with fewest feasible values,
+	 * swaps it to blankIdx position and returns the values to try for it.
+	 * When every cell has two or more values, rows, columns and grids are checked for a value
+	 * which fits only one blank cell (hidden single). Then that cell and value are returned instead,
+	 * without this larger boards run into very deep searches.
+	 * Returns 0, if a cell or a missing value of row, column or grid has no place left.
+	 */
+	private int selectCell(int blankIdx)
+	{
+		int bestIdx = blankIdx;
+		int bestFeasible = 0;
+		int bestCount = Integer.MAX_VALUE;
+		for(int idx = blankIdx; idx < blankCount; idx++)
+		{
+			int feasible = feasibleValues(blankCells[idx]);
+			int count = Integer.bitCount(feasible);
+			if(count < bestCount)
+			{
+				bestCount = count;
+				bestFeasible = feasible;
+				bestIdx = idx;
+				if(count <= 1)
+					break;
+			}
+		}
+		swapBlankCells(blankIdx, bestIdx);
+		if(bestCount <= 1)
+		{
+			return bestFeasible;
+		}
+
+		/* for every row, column and grid, collect values fitting one or more blank cells */
+		int dimension = geometry.getDimension();
+		for(int i = 0; i < dimension; i++)
+		{
+			rowOnce[i] = rowTwice[i] = 0;
+			colOnce[i] = colTwice[i] = 0;
+			boxOnce[i] = boxTwice[i] = 0;
+		}
+		for(int idx = blankIdx; idx < blankCount; idx++)
+		{
+			int cell = blankCells[idx];
+			int feasible = feasibleValues(cell);
+			int row = geometry.rowOf(cell);
+			int col = geometry.colOf(cell);
+			int box = geometry.boxOf(cell);
+			rowTwice[row] |= rowOnce[row] & feasible;
+			rowOnce[row] |= feasible;
+			colTwice[col] |= colOnce[col] & feasible;
+			colOnce[col] |= feasible;
+			boxTwice[box] |= boxOnce[box] & feasible;
+			boxOnce[box] |= feasible;
+		}
+
+		int allValues = geometry.getAllValuesMask();
+		for(int i = 0; i < dimension; i++)
+		{
+			if((rowOnce[i] | rowMask[i]) != allValues || (colOnce[i] | colMask[i]) != allValues
+					|| (boxOnce[i] | boxMask[i]) != allValues)
+			{
+				return 0;
+			}
+		}
+
+		for(int idx = blankIdx; idx < blankCount; idx++)
+		{
+			int cell = blankCells[idx];
+			int row = geometry.rowOf(cell);
+			int col = geometry.colOf(cell);
+			int box = geometry.boxOf(cell);
+			int hidden = feasibleValues(cell) & ((rowOnce[row] & ~rowTwice[row])
+					| (colOnce[col] & ~colTwice[col]) | (boxOnce[box] & ~boxTwice[box]));
+			if(hidden != 0)
+			{
+				swapBlankCells(blankIdx, idx);
+				/* cell being the only place for two values is dead end */
+				return (Integer.bitCount(hidden) == 1) ? hidden : 0;
+			}
+		}
+		return bestFeasible;
+	}
+
+	private void swapBlankCells(int idx, int otherIdx)
+	{
+		int cell = blankCells[otherIdx];
+		blankCells[otherIdx] = blankCells[idx];
+		blankCells[idx] = cell;
+	}
+}
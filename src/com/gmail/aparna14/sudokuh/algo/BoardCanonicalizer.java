@@ -0,0 +1,340 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+import java.util.Arrays;
+
+import com.gmail.aparna14.sudokuh.data.BoardGeometry;
+
+/**
+ * Finds canonical form of a board under the sudoku symmetries: transposition, permutation of bands
+ * and stacks, of rows within a band and columns within a stack, and relabelling of values.
+ * Rotations and reflections are combinations of these.
+ *
+ * Each row and column gets a signature which does not change under the symmetries: its clue count,
+ * refined by signatures of the lines it crosses at its clues. Bands and stacks are ordered by the sum
+ * of their line signatures, lines within them by own signature, and the board is read in that order,
+ * as is and transposed. Values are relabelled in the order they are first read, and of the two
+ * readings the smaller one is the canonical form.
+ *
+ * Lines with equal signature keep their board order, hence equivalent boards with such ties may
+ * get different forms. That only costs a cache miss: every form is reached from its board by a
+ * symmetry, so a solution stored for it maps back to a valid solution of any board having that form.
+ * Instance is not thread safe, scratch arrays are reused from board to board.
+ * @author aparna
+ *
+ */
+final class BoardCanonicalizer
+{
+	/* refinement of line signatures by signatures of crossing lines */
+	private static final int REFINEMENT_ROUNDS = 2;
+
+	private BoardGeometry geometry;
+
+	private int dimension;
+
+	private int bitsPerValue;
+
+	/* board values in row major order */
+	private int[] values;
+
+	private long[] rowSignatures;
+	private long[] colSignatures;
+	private long[] nextRowSignatures;
+	private long[] nextColSignatures;
+
+	/* sum of line signatures of each band or stack */
+	private long[] groupSignatures;
+	private int[] groupOrder;
+
+	/* canonical row /column index to board row /column */
+	private int[] rowOrder;
+	private int[] colOrder;
+
+	/* canonical board of each reading, packed, and value to label of each reading */
+	private long[] words;
+	private long[] otherWords;
+	private int[] labels;
+	private int[] otherLabels;
+
+	/* label to board value */
+	private int[] valueOfLabel;
+
+	private boolean transposed;
+
+	/**
+	 * Computes canonical form of board, read by key, toCanonical and restore.
+	 * @return false if board is not n^2*n^2 board with values 0 - n, such board has no canonical form
+	 */
+	boolean canonicalize(int[][] board)
+	{
+		if(board.length == 0 || board.length > BoardGeometry.MAX_DIMENSION)
+			return false;
+		int gridDimension = (int) Math.sqrt(board.length);
+		if(gridDimension * gridDimension != board.length)
+			return false;
+		ensureCapacity(board.length);
+
+		for(int row = 0; row < dimension; row++)
+		{
+			if(board[row].length != dimension)
+				return false;
+			for(int col = 0; col < dimension; col++)
+			{
+				int value = board[row][col];
+				if(value < 0 || value > dimension)
+					return false;
+				values[row * dimension + col] = value;
+			}
+		}
+
+		computeSignatures();
+		orderLines(rowSignatures, rowOrder);
+		orderLines(colSignatures, colOrder);
+
+		read(false, words, labels);
+		read(true, otherWords, otherLabels);
+		transposed = compare(otherWords, words) < 0;
+		if(transposed)
+		{
+			long[] swapWords = words;
+			words = otherWords;
+			otherWords = swapWords;
+			int[] swapLabels = labels;
+			labels = otherLabels;
+			otherLabels = swapLabels;
+		}
+		completeLabels();
+		return true;
+	}
+
+	/**
+	 * Key of last canonicalized board.
+	 */
+	SolveCache.Key key()
+	{
+		return new SolveCache.Key(dimension, words.clone());
+	}
+
+	/**
+	 * Solution of last canonicalized board, in canonical cell order and labels.
+	 */
+	byte[] toCanonical(int[][] solvedBoard)
+	{
+		byte[] solution = new byte[geometry.getCellCount()];
+		for(int idx = 0; idx < solution.length; idx++)
+		{
+			int cell = boardCellOf(idx);
+			solution[idx] = (byte) labels[solvedBoard[geometry.rowOf(cell)][geometry.colOf(cell)]];
+		}
+		return solution;
+	}
+
+	/**
+	 * Writes canonical solution into last canonicalized board, mapped back to its cells and values.
+	 */
+	void restore(byte[] solution, int[][] board)
+	{
+		for(int idx = 0; idx < solution.length; idx++)
+		{
+			int cell = boardCellOf(idx);
+			board[geometry.rowOf(cell)][geometry.colOf(cell)] = valueOfLabel[solution[idx]];
+		}
+	}
+
+	private void ensureCapacity(int boardDimension)
+	{
+		if(geometry != null && dimension == boardDimension)
+			return;
+		geometry = BoardGeometry.forDimension(boardDimension);
+		dimension = boardDimension;
+		bitsPerValue = 32 - Integer.numberOfLeadingZeros(dimension);
+		int cellCount = geometry.getCellCount();
+		int wordCount = (cellCount * bitsPerValue + 63) >>> 6;
+		values = new int[cellCount];
+		rowSignatures = new long[dimension];
+		colSignatures = new long[dimension];
+		nextRowSignatures = new long[dimension];
+		nextColSignatures = new long[dimension];
+		groupSignatures = new long[geometry.getGridDimension()];
+		groupOrder = new int[geometry.getGridDimension()];
+		rowOrder = new int[dimension];
+		colOrder = new int[dimension];
+		words = new long[wordCount];
+		otherWords = new long[wordCount];
+		labels = new int[dimension + 1];
+		otherLabels = new int[dimension + 1];
+		valueOfLabel = new int[dimension + 1];
+	}
+
+	/*
+	 * Clue counts, then each round a line's signature is mixed with signatures of the lines crossing it
+	 * at its clues. Rows and columns are treated alike, so transposing the board swaps their signatures.
+	 */
+	private void computeSignatures()
+	{
+		Arrays.fill(rowSignatures, 0);
+		Arrays.fill(colSignatures, 0);
+		for(int row = 0; row < dimension; row++)
+		{
+			for(int col = 0; col < dimension; col++)
+			{
+				if(values[row * dimension + col] != 0)
+				{
+					rowSignatures[row]++;
+					colSignatures[col]++;
+				}
+			}
+		}
+
+		for(int round = 0; round < REFINEMENT_ROUNDS; round++)
+		{
+			for(int line = 0; line < dimension; line++)
+			{
+				nextRowSignatures[line] = 0;
+				nextColSignatures[line] = 0;
+			}
+			for(int row = 0; row < dimension; row++)
+			{
+				for(int col = 0; col < dimension; col++)
+				{
+					if(values[row * dimension + col] != 0)
+					{
+						nextRowSignatures[row] += mix(colSignatures[col]);
+						nextColSignatures[col] += mix(rowSignatures[row]);
+					}
+				}
+			}
+			for(int line = 0; line < dimension; line++)
+			{
+				long row = mix(rowSignatures[line] ^ nextRowSignatures[line] * 31);
+				long col = mix(colSignatures[line] ^ nextColSignatures[line] * 31);
+				rowSignatures[line] = row;
+				colSignatures[line] = col;
+			}
+		}
+	}
+
+	/*
+	 * Orders bands (or stacks) by sum of their line signatures, and lines within each by signature.
+	 * Sort is stable, lines of equal signature keep board order.
+	 */
+	private void orderLines(long[] signatures, int[] order)
+	{
+		int gridDimension = geometry.getGridDimension();
+		for(int group = 0; group < gridDimension; group++)
+		{
+			long sum = 0;
+			for(int idx = 0; idx < gridDimension; idx++)
+			{
+				sum += signatures[group * gridDimension + idx];
+			}
+			groupSignatures[group] = sum;
+			groupOrder[group] = group;
+		}
+		sortBySignature(groupOrder, 0, gridDimension, groupSignatures);
+
+		for(int group = 0; group < gridDimension; group++)
+		{
+			int first = groupOrder[group] * gridDimension;
+			for(int idx = 0; idx < gridDimension; idx++)
+			{
+				order[group * gridDimension + idx] = first + idx;
+			}
+			sortBySignature(order, group * gridDimension, (group + 1) * gridDimension, signatures);
+		}
+	}
+
+	/* insertion sort of items[from, to) by ascending signatures[item], few items only */
+	private static void sortBySignature(int[] items, int from, int to, long[] signatures)
+	{
+		for(int idx = from + 1; idx < to; idx++)
+		{
+			int item = items[idx];
+			int pos = idx - 1;
+			while(pos >= from && signatures[items[pos]] > signatures[item])
+			{
+				items[pos + 1] = items[pos];
+				pos--;
+			}
+			items[pos + 1] = item;
+		}
+	}
+
+	/*
+	 * Packs board in canonical cell order, values relabelled by first occurrence.
+	 */
+	private void read(boolean transpose, long[] packed, int[] valueLabels)
+	{
+		Arrays.fill(packed, 0);
+		Arrays.fill(valueLabels, 0);
+		transposed = transpose;
+		int nextLabel = 1;
+		int cellCount = geometry.getCellCount();
+		for(int idx = 0; idx < cellCount; idx++)
+		{
+			int value = values[boardCellOf(idx)];
+			if(value == 0)
+				continue;
+			if(valueLabels[value] == 0)
+				valueLabels[value] = nextLabel++;
+
+			long label = valueLabels[value];
+			int bit = idx * bitsPerValue;
+			int offset = bit & 63;
+			packed[bit >>> 6] |= label << offset;
+			if(offset + bitsPerValue > 64)
+				packed[(bit >>> 6) + 1] |= label >>> (64 - offset);
+		}
+	}
+
+	/*
+	 * Values which are not on the board get the remaining labels in increasing order. Such values
+	 * can be swapped in any solution, so any assignment maps a solution back to a solution.
+	 */
+	private void completeLabels()
+	{
+		int nextLabel = 1;
+		for(int value = 1; value <= dimension; value++)
+		{
+			if(labels[value] != 0)
+				nextLabel++;
+		}
+		for(int value = 1; value <= dimension; value++)
+		{
+			if(labels[value] == 0)
+				labels[value] = nextLabel++;
+		}
+		for(int value = 1; value <= dimension; value++)
+		{
+			valueOfLabel[labels[value]] = value;
+		}
+	}
+
+	/* board cell read at canonical position idx */
+	private int boardCellOf(int idx)
+	{
+		int canonicalRow = idx / dimension;
+		int canonicalCol = idx % dimension;
+		if(transposed)
+			return rowOrder[canonicalCol] * dimension + colOrder[canonicalRow];
+		return rowOrder[canonicalRow] * dimension + colOrder[canonicalCol];
+	}
+
+	private static int compare(long[] first, long[] second)
+	{
+		for(int idx = 0; idx < first.length; idx++)
+		{
+			if(first[idx] != second[idx])
+				return Long.compare(first[idx], second[idx]);
+		}
+		return 0;
+	}
+
+	/* SplitMix64 finalizer */
+	private static long mix(long value)
+	{
+		long z = value + 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
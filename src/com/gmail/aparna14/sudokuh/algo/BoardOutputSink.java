@@ -0,0 +1,362 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import com.gmail.aparna14.sudokuh.data.Board;
+
+/**
+ * This class writes many boards to one csv file, boards separated by blank line,
+ * in the format read by CSVFileManager.readBoards.
+ * Boards are formatted straight into bytes of one large reused buffer,
+ * which is written to the file only when full, or every flushInterval boards if set,
+ * so that one write call is shared by many boards.
+ *
+ * With maxFileBytes set, output rolls over to next file when the next board would not fit:
+ * out.csv, out_1.csv, out_2.csv and so on. A board is never split between files.
+ * When appending, writing resumes in the last existing file of that sequence and rolled files
+ * are appended to as well, so boards of earlier runs are kept and stay ahead of new ones.
+ * Without append, every file written to is overwritten.
+ * Writes are synchronized, so solver threads may share one sink.
+ * @author aparna
+ *
+ */
+public class BoardOutputSink implements Closeable, Flushable
+{
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+	private static final byte COMMA = ',';
+	private static final byte NEWLINE = '\n';
+
+	private final File baseFile;
+
+	private final long maxFileBytes;
+
+	private final int flushInterval;
+
+	private final boolean useChannel;
+
+	private final boolean append;
+
+	private final byte[] buffer;
+
+	private int length;
+
+	/* one formatted board, before it is placed in buffer */
+	private byte[] record = new byte[1 << 10];
+
+	private OutputStream stream;
+
+	private FileChannel channel;
+
+	/* bytes in current file, including buffered ones */
+	private long fileBytes;
+
+	/* number in name of current file, 0 for the path itself */
+	private int fileIndex;
+
+	private int fileCount;
+
+	private long boardCount;
+
+	private long bytesWritten;
+
+	private int boardsSinceFlush;
+
+	/**
+	 * Appends boards to one file, writing when buffer is full.
+	 */
+	public BoardOutputSink(String path) throws IOException
+	{
+		this(path, true, 0, 0, false, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * @param path - output file, first of rolled files
+	 * @param append - true to append to existing files, false to overwrite them
+	 * @param maxFileBytes - size after which output rolls over to next file, 0 for no rolling
+	 * @param flushInterval - buffered boards are written every so many boards, 0 to write only when buffer is full
+	 * @param useChannel - true to write through FileChannel, false through FileOutputStream
+	 * @param bufferSize - size of reused buffer
+	 */
+	public BoardOutputSink(String path, boolean append, long maxFileBytes, int flushInterval,
+			boolean useChannel, int bufferSize) throws IOException
+	{
+		if(maxFileBytes < 0 || flushInterval < 0 || bufferSize <= 0)
+		{
+			throw new IllegalArgumentException("maxFileBytes and flushInterval must not be negative, bufferSize must be positive");
+		}
+		this.baseFile = new File(path);
+		this.maxFileBytes = maxFileBytes;
+		this.flushInterval = flushInterval;
+		this.useChannel = useChannel;
+		this.append = append;
+		this.buffer = new byte[bufferSize];
+		if(append && maxFileBytes > 0)
+		{
+			while(rolledFile(fileIndex + 1).exists())
+				fileIndex++;
+		}
+		open(rolledFile(fileIndex));
+	}
+
+	/**
+	 * Appends board to the output.
+	 */
+	public synchronized void write(int[][] board) throws IOException
+	{
+		append(format(board));
+	}
+
+	/**
+	 * Appends flat board to the output.
+	 */
+	public synchronized void write(Board board) throws IOException
+	{
+		append(format(board));
+	}
+
+	/*
+	 * Appends record formatted by format, rolling and flushing as configured.
+	 */
+	private void append(int recordLength) throws IOException
+	{
+		if(maxFileBytes > 0 && fileBytes > 0 && fileBytes + 1 + recordLength > maxFileBytes)
+		{
+			roll();
+		}
+
+		int needed = (fileBytes > 0 ? 1 : 0) + recordLength;
+		if(length + needed > buffer.length)
+		{
+			writeBuffer();
+		}
+		if(fileBytes > 0)
+		{
+			buffer[length++] = NEWLINE;
+			fileBytes++;
+		}
+		if(recordLength > buffer.length - length)
+		{
+			/* board larger than the whole buffer, separator goes first */
+			writeBuffer();
+			writeBytes(record, 0, recordLength);
+		}
+		else
+		{
+			System.arraycopy(record, 0, buffer, length, recordLength);
+			length += recordLength;
+		}
+		fileBytes += recordLength;
+		boardCount++;
+
+		if(flushInterval > 0 && ++boardsSinceFlush >= flushInterval)
+		{
+			writeBuffer();
+		}
+	}
+
+	/**
+	 * Writes buffered boards to the file.
+	 */
+	@Override
+	public synchronized void flush() throws IOException
+	{
+		writeBuffer();
+		if(stream != null)
+			stream.flush();
+	}
+
+	@Override
+	public synchronized void close() throws IOException
+	{
+		try
+		{
+			writeBuffer();
+		}
+		finally
+		{
+			closeFile();
+		}
+	}
+
+	public synchronized long getBoardCount()
+	{
+		return boardCount;
+	}
+
+	/**
+	 * Returns number of files written to, more than 1 if output rolled over.
+	 */
+	public synchronized int getFileCount()
+	{
+		return fileCount;
+	}
+
+	/**
+	 * Returns bytes handed to the operating system so far.
+	 */
+	public synchronized long getBytesWritten()
+	{
+		return bytesWritten;
+	}
+
+	/*
+	 * Formats board as csv rows into record, returns its length.
+	 */
+	private int format(int[][] board)
+	{
+		int pos = 0;
+		for(int[] row : board)
+		{
+			/* at most 11 characters per value, with comma, and new line */
+			int maxRowLength = row.length * 12 + 1;
+			if(pos + maxRowLength > record.length)
+			{
+				byte[] grown = new byte[Math.max(record.length * 2, pos + maxRowLength)];
+				System.arraycopy(record, 0, grown, 0, pos);
+				record = grown;
+			}
+			for(int col = 0; col < row.length; col++)
+			{
+				if(col != 0)
+					record[pos++] = COMMA;
+				pos = appendInt(row[col], pos);
+			}
+			record[pos++] = NEWLINE;
+		}
+		return pos;
+	}
+
+	private int format(Board board)
+	{
+		int dimension = board.getDimension();
+		/* values are at most 2 digits, with comma, and new line */
+		int maxLength = dimension * (dimension * 3 + 1);
+		if(maxLength > record.length)
+		{
+			record = new byte[maxLength];
+		}
+		int pos = 0;
+		int cell = 0;
+		for(int row = 0; row < dimension; row++)
+		{
+			for(int col = 0; col < dimension; col++, cell++)
+			{
+				if(col != 0)
+					record[pos++] = COMMA;
+				pos = appendInt(board.get(cell), pos);
+			}
+			record[pos++] = NEWLINE;
+		}
+		return pos;
+	}
+
+	private int appendInt(int value, int pos)
+	{
+		if(value >= 0 && value < 10)
+		{
+			record[pos++] = (byte)('0' + value);
+			return pos;
+		}
+		long rest = value;
+		if(rest < 0)
+		{
+			record[pos++] = '-';
+			rest = -rest;
+		}
+		int digits = 1;
+		for(long limit = 10; limit <= rest; limit *= 10)
+			digits++;
+		for(int idx = pos + digits - 1; idx >= pos; idx--)
+		{
+			record[idx] = (byte)('0' + rest % 10);
+			rest /= 10;
+		}
+		return pos + digits;
+	}
+
+	/* closes current file and opens next one */
+	private void roll() throws IOException
+	{
+		writeBuffer();
+		closeFile();
+		fileIndex++;
+		open(rolledFile(fileIndex));
+	}
+
+	/* file of given number in rolled sequence, named with the number before extension */
+	private File rolledFile(int index)
+	{
+		if(index == 0)
+			return baseFile;
+		String name = baseFile.getName();
+		int dot = name.lastIndexOf('.');
+		String rolledName = (dot > 0)
+				? name.substring(0, dot) + "_" + index + name.substring(dot)
+				: name + "_" + index;
+		return new File(baseFile.getParentFile(), rolledName);
+	}
+
+	/* existing file is appended to, if sink appends, rolling skips it once it is full */
+	private void open(File file) throws IOException
+	{
+		if(useChannel)
+		{
+			channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING);
+		}
+		else
+		{
+			stream = new FileOutputStream(file, append);
+		}
+		fileBytes = append ? file.length() : 0;
+		fileCount++;
+	}
+
+	private void closeFile() throws IOException
+	{
+		if(channel != null)
+		{
+			channel.close();
+			channel = null;
+		}
+		if(stream != null)
+		{
+			stream.close();
+			stream = null;
+		}
+	}
+
+	private void writeBuffer() throws IOException
+	{
+		boardsSinceFlush = 0;
+		if(length > 0)
+		{
+			writeBytes(buffer, 0, length);
+			length = 0;
+		}
+	}
+
+	private void writeBytes(byte[] bytes, int offset, int count) throws IOException
+	{
+		if(channel != null)
+		{
+			ByteBuffer view = ByteBuffer.wrap(bytes, offset, count);
+			while(view.hasRemaining())
+				channel.write(view);
+		}
+		else
+		{
+			stream.write(bytes, offset, count);
+		}
+		bytesWritten += count;
+	}
+}
@@ -2,7 +2,9 @@ package com.gmail.aparna14.sudokuh.algo;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.List;
 
+import com.gmail.aparna14.sudokuh.data.Board;
 import com.gmail.aparna14.sudokuh.exceptions.InvalidDataException;
 
 /**
@@ -24,11 +26,39 @@ public interface CSVFileManager {
 	/**
 	 * Takes sudoku matrix and inputfileName and writes to file in current working directory
 	 * Output file is stored in current working directory and output file name
-	 * is input file name with date added to it.
+	 * is input file name with date added to it, numbered if file of that name already exists.
 	 * @param boardArray - sudoku matrix
 	 * @param inputFilePath - input file path name
 	 * @throws IOException - throws IOException ,if there is exception writing to output file.
 	 */
 	public void writeToFile(int[][] boardArray, String inputFilePath) throws IOException;
 	
+	/**
+	 * Reads many sudoku matrices at once, used in batch mode.
+	 * If path is a file, boards in it are separated by one or more blank lines.
+	 * If path is a directory, every .csv file in it holds one board, files are read in name order.
+	 * @param path - path of multi board file or of directory
+	 * @return list of matrices in input order
+	 */
+	public List<int[][]> readBoards(String path) throws FileNotFoundException, IOException, InvalidDataException;
+	
+	/**
+	 * Writes sudoku matrices to one file, boards separated by blank line.
+	 * @param boards - sudoku matrices
+	 * @param outputFilePath - path of output file, existing file is overwritten
+	 * @throws IOException - throws IOException ,if there is exception writing to output file.
+	 */
+	public void writeBoardsToFile(List<int[][]> boards, String outputFilePath) throws IOException;
+	
+	/**
+	 * Same as readBoards, boards are returned as flat boards, which take far less memory in large batches.
+	 * @throws InvalidDataException - also if board is not n^2*n^2 or has value out of range
+	 */
+	public List<Board> readFlatBoards(String path) throws FileNotFoundException, IOException, InvalidDataException;
+	
+	/**
+	 * Same as writeBoardsToFile for flat boards.
+	 */
+	public void writeFlatBoardsToFile(List<Board> boards, String outputFilePath) throws IOException;
+	
 }
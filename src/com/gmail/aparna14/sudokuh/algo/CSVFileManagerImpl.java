@@ -3,16 +3,16 @@ package com.gmail.aparna14.sudokuh.algo;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FilenameFilter;
 import java.io.IOException;
 
+import com.gmail.aparna14.sudokuh.data.Board;
 import com.gmail.aparna14.sudokuh.exceptions.InvalidDataException;
 
 /**
@@ -23,9 +23,15 @@ import com.gmail.aparna14.sudokuh.exceptions.InvalidDataException;
 public class CSVFileManagerImpl implements CSVFileManager {
 
 	
-	private static final String COMMA = ",";
-	private static final String INEQUALCOLUMNLENGTH = "Column length does not match row length";
-	private static final String NEWLINE = "\n";
+	private static final String CSV_EXTENSION = ".csv";
+	private static final int WRITE_BUFFER_SIZE = 1 << 16;
+	private static final int SINGLE_BOARD_BUFFER_SIZE = 1 << 12;
+	private static final String OUTPUT_SUFFIX = "_output.csv";
+	
+	/* name and number of output file last created by writeToFile */
+	private String lastOutputName;
+	private int lastOutputNumber;
+	
 	@Override
 	/**
 	 * Reads csv file to a matrix.
@@ -36,128 +42,206 @@ public class CSVFileManagerImpl implements CSVFileManager {
 	
 	public int[][] readFile(String fileName) throws FileNotFoundException , IOException, InvalidDataException
 	{
-		BufferedReader fileReader = null;
-		String line = "";
-		List<List<Integer>> matrix = null;
-		int[][] boardArray = null;
+		StreamingCSVParser parser = null;
 		
 		try 
 		{
-			 
-			fileReader = new BufferedReader(new FileReader(fileName));
-			matrix = new ArrayList<List<Integer>>(); 
- 			
-			while ((line = fileReader.readLine()) != null) 
+			File file = new File(fileName);
+			parser = new StreamingCSVParser(new FileInputStream(file), false, readBufferSize(file));
+			return parser.nextBoard((int[][]) null);
+		}
+		finally 
+		{
+			close(parser);
+		}
+	}
+
+	@Override
+	public List<int[][]> readBoards(String path) throws FileNotFoundException, IOException, InvalidDataException
+	{
+		List<int[][]> boards = new ArrayList<int[][]>();
+		File input = new File(path);
+		
+		if(input.isDirectory())
+		{
+			File[] csvFiles = input.listFiles(new FilenameFilter() {
+				@Override
+				public boolean accept(File dir, String name) {
+					return name.toLowerCase().endsWith(CSV_EXTENSION);
+				}
+			});
+			Arrays.sort(csvFiles);
+			for(File csvFile : csvFiles)
 			{
-				String[] fields = line.split(COMMA);
-	 			
-	 			try
-	 			{
-	 				List<Integer> colArr = new ArrayList<Integer>();
-	 				for(String field: fields)
-		 			{
-		 				int fieldVal = Integer.parseInt(field);
-		 				colArr.add(fieldVal);
-		 			}
-		 			matrix.add(colArr);
-	 			}
-	 			catch(NumberFormatException e)
-	 			{
-	 				throw new InvalidDataException(e.getMessage());
-	 			}
+				boards.add(readFile(csvFile.getPath()));
 			}
-	 
+			return boards;
 		}
-		finally 
+		
+		StreamingCSVParser parser = null;
+		try
 		{
-			if (fileReader != null) 
+			/* blank lines separate the boards */
+			parser = new StreamingCSVParser(new FileInputStream(input), true, readBufferSize(input));
+			int[][] board;
+			while((board = parser.nextBoard((int[][]) null)) != null)
 			{
-				try 
-				{
-					fileReader.close();
-				}
-				catch (IOException e) 
-				{
-					throw new IOException("Error while closing file reader :" + e.getCause());
-				}
+				boards.add(board);
 			}
 		}
-	 
-		if(matrix != null)
+		finally
+		{
+			close(parser);
+		}
+		return boards;
+	}
+	
+	@Override
+	public List<Board> readFlatBoards(String path) throws FileNotFoundException, IOException, InvalidDataException
+	{
+		List<Board> boards = new ArrayList<Board>();
+		File input = new File(path);
+		
+		if(input.isDirectory())
 		{
-			boardArray = new int[matrix.size()][matrix.size()];
-			
-			int numberOfRows = matrix.size();
-			
-			for(int i=0; i< numberOfRows; i++)
+			for(int[][] board : readBoards(path))
 			{
-				if(matrix.get(i).size() != numberOfRows)
+				try
 				{
-					throw new InvalidDataException(INEQUALCOLUMNLENGTH + "in column " + (i+1) + ":" + matrix.get(i).size());
+					boards.add(Board.fromArray(board));
 				}
-				
-				for(int j=0; j< numberOfRows; j++)
+				catch(IllegalArgumentException e)
 				{
-					boardArray[i][j] = matrix.get(i).get(j);
+					throw new InvalidDataException(e.getMessage() + " of board " + (boards.size() + 1), e);
 				}
 			}
+			return boards;
+		}
+		
+		StreamingCSVParser parser = null;
+		try
+		{
+			parser = new StreamingCSVParser(new FileInputStream(input), true, readBufferSize(input));
+			Board board;
+			while((board = parser.nextBoard((Board) null)) != null)
+			{
+				boards.add(board);
+			}
+		}
+		finally
+		{
+			close(parser);
+		}
+		return boards;
+	}
+	
+	/* whole file fits into buffer, upto the default size */
+	private int readBufferSize(File file)
+	{
+		return (int)Math.min(StreamingCSVParser.DEFAULT_BUFFER_SIZE, file.length() + 1);
+	}
+	
+	private void close(StreamingCSVParser parser) throws IOException
+	{
+		if (parser != null) 
+		{
+			try 
+			{
+				parser.close();
+			}
+			catch (IOException e) 
+			{
+				throw new IOException("Error while closing file reader :" + e.getCause());
+			}
+		}
+	}
+
+	@Override
+	public void writeBoardsToFile(List<int[][]> boards, String outputFilePath) throws IOException
+	{
+		BoardOutputSink sink = new BoardOutputSink(outputFilePath, false, 0, 0, false, WRITE_BUFFER_SIZE);
+		try
+		{
+			for(int[][] boardArray : boards)
+			{
+				sink.write(boardArray);
+			}
+		}
+		finally
+		{
+			closeSink(sink);
+		}
+	}
+
+	@Override
+	public void writeFlatBoardsToFile(List<Board> boards, String outputFilePath) throws IOException
+	{
+		BoardOutputSink sink = new BoardOutputSink(outputFilePath, false, 0, 0, false, WRITE_BUFFER_SIZE);
+		try
+		{
+			for(Board board : boards)
+			{
+				sink.write(board);
+			}
+		}
+		finally
+		{
+			closeSink(sink);
 		}
-		return boardArray;
 	}
 
 	@Override
 	public void writeToFile(int[][] boardArray, String inputFilePath) throws IOException 
 	{
-		
-		BufferedWriter writer = null;
-		String curWorkingDir = System.getProperty("user.dir");
-		String inputFileName = inputFilePath.substring(inputFilePath.lastIndexOf("\\") + 1);
-		inputFileName = inputFileName.substring(0,inputFileName.lastIndexOf("."));
+		File curWorkingDir = new File(System.getProperty("user.dir"));
+		String inputFileName = new File(inputFilePath).getName();
+		if(inputFileName.lastIndexOf('.') > 0)
+			inputFileName = inputFileName.substring(0, inputFileName.lastIndexOf('.'));
 		
 		DateFormat df = new SimpleDateFormat("yyyy-MM-dd_HH_mm_ss"); 
-		String outputFileName = curWorkingDir + "\\" + inputFileName + "_" + df.format(new Date()) + "_output.csv";
+		String outputName = inputFileName + "_" + df.format(new Date());
 		
-		int rows = boardArray.length;
-		
-		File file = new File(outputFileName);	
-		if(!file.exists())
-			file.createNewFile();
+		File file = createOutputFile(curWorkingDir, outputName);
 		
+		BoardOutputSink sink = new BoardOutputSink(file.getPath(), false, 0, 0, false, SINGLE_BOARD_BUFFER_SIZE);
 		try
 		{
-			writer = new BufferedWriter(new FileWriter(file));
-		
-			for(int i=0; i< rows; i++)
-			{
-				StringBuilder sb = new StringBuilder();
-				for(int j=0; j< rows; j++)
-				{
-					if(sb.length() != 0)
-						sb.append(COMMA + boardArray[i][j]);
-					else
-						sb.append(boardArray[i][j]);
-				}
-				writer.write(sb.toString() + NEWLINE);
-			}
-			writer.flush();
+			sink.write(boardArray);
 		}
-		catch(IOException e)
+		finally
 		{
-			throw e;
+			closeSink(sink);
 		}
-		finally
+	}
+	
+	/*
+	 * Timestamp has second resolution, hence file is numbered if name is already taken.
+	 * Numbering continues from the number last used for the same name,
+	 * so that many writes within one second do not try all taken names again.
+	 */
+	private synchronized File createOutputFile(File dir, String outputName) throws IOException
+	{
+		int number = outputName.equals(lastOutputName) ? lastOutputNumber + 1 : 1;
+		File file = new File(dir, outputName + ((number > 1) ? "_" + number : "") + OUTPUT_SUFFIX);
+		while(!file.createNewFile())
 		{
-			if(writer != null)
-			{
-				try
-				{
-					writer.close();
-				}
-				catch(IOException e)
-				{
-					throw new IOException("Error while closing csv file writer:" + e.getCause());
-				}
-			}
+			number++;
+			file = new File(dir, outputName + "_" + number + OUTPUT_SUFFIX);
+		}
+		lastOutputName = outputName;
+		lastOutputNumber = number;
+		return file;
+	}
+	
+	private void closeSink(BoardOutputSink sink) throws IOException
+	{
+		try
+		{
+			sink.close();
+		}
+		catch(IOException e)
+		{
+			throw new IOException("Error while closing csv file writer:" + e.getCause());
 		}
 	}
 }
@@ -0,0 +1,92 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+/**
+ * This class answers boards from a SolveCache, solving with HeursiticAlgo (or given solver)
+ * only boards whose canonical form is not cached yet.
+ * A board which is a rotation, reflection, band /stack or line permutation or relabelling of a board
+ * solved before gets that board's solution, mapped back through the same symmetry.
+ * Boards which are not n^2*n^2 or hold out of range values are passed to the solver uncached.
+ *
+ * A cached board without solution is left unchanged, the solver might leave values it filled.
+ * Instance is not thread safe, use one instance per thread. The cache may be shared among them.
+ * @author aparna
+ *
+ */
+public class CachingSolver implements SolverStrategy
+{
+	private final SolverStrategy solver;
+
+	private final SolveCache cache;
+
+	private final BoardCanonicalizer canonicalizer = new BoardCanonicalizer();
+
+	private long nodeCount;
+
+	private boolean lastHit;
+
+	public CachingSolver(SolveCache cache)
+	{
+		this(new HeursiticAlgo(), cache);
+	}
+
+	/**
+	 * @param solver - solves boards missing from cache
+	 * @param cache - may be shared with other CachingSolver instances
+	 */
+	public CachingSolver(SolverStrategy solver, SolveCache cache)
+	{
+		this.solver = solver;
+		this.cache = cache;
+	}
+
+	@Override
+	public boolean solve(int[][] sudokuArr)
+	{
+		nodeCount = 0;
+		lastHit = false;
+		if(!canonicalizer.canonicalize(sudokuArr))
+		{
+			boolean solved = solver.solve(sudokuArr);
+			nodeCount = solver.getNodeCount();
+			return solved;
+		}
+
+		SolveCache.Key key = canonicalizer.key();
+		byte[] solution = cache.get(key);
+		if(solution != null)
+		{
+			lastHit = true;
+			if(solution == SolveCache.NO_SOLUTION)
+				return false;
+			canonicalizer.restore(solution, sudokuArr);
+			return true;
+		}
+
+		boolean solved = solver.solve(sudokuArr);
+		nodeCount = solver.getNodeCount();
+		cache.put(key, solved ? canonicalizer.toCanonical(sudokuArr) : SolveCache.NO_SOLUTION);
+		return solved;
+	}
+
+	/**
+	 * Returns nodes visited by solver for last board, 0 if it was answered from cache.
+	 */
+	@Override
+	public long getNodeCount()
+	{
+		return nodeCount;
+	}
+
+	/**
+	 * Returns true if last board was answered from cache.
+	 */
+	public boolean wasCacheHit()
+	{
+		return lastHit;
+	}
+
+	public SolveCache getCache()
+	{
+		return cache;
+	}
+}
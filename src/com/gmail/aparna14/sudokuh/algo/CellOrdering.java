@@ -0,0 +1,15 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+/**
+ * Order in which backtracking strategies pick the next blank cell to fill.
+ * @author aparna
+ *
+ */
+public enum CellOrdering
+{
+	/* blank cells are filled row by row, left to right */
+	ROW_MAJOR,
+
+	/* blank cell with fewest feasible values is filled first */
+	MINIMUM_REMAINING_VALUES
+}
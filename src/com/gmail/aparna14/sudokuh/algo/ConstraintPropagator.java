@@ -0,0 +1,908 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import com.gmail.aparna14.sudokuh.data.Board;
+import com.gmail.aparna14.sudokuh.data.BoardGeometry;
+
+/**
+ * This class applies human solving techniques on rows, columns and grids alike,
+ * until none of them changes the board any more.
+ * Candidates of blank cells are kept as bitmaps, ith bit set means value i+1 is still possible.
+ *
+ * Work is driven by a worklist of units (rows, columns and grids). Every unit starts on the worklist,
+ * and a unit is added again only when one of its cells is filled or loses a candidate,
+ * hence units nothing happened to are not examined again. Each examined unit is checked for,
+ * in order: naked singles, hidden singles, naked groups, and pointing pairs/triples (grids)
+ * or box line reduction (rows and columns).
+ *
+ * As SolverStrategy, blank cells left after propagation are searched for: cell with fewest
+ * candidates is filled with each of its candidates in turn, and every guess is followed by
+ * the same propagation. Every change to a cell is recorded on an undo trail (cell and its
+ * previous candidates), so a failed guess is taken back by replaying the trail instead of
+ * recomputing candidates. Every entry removes at least one candidate, hence the trail never
+ * holds more than cellCount * dimension entries and is allocated once.
+ *
+ * Techniques can be switched off, e.g. to tell which of them a puzzle needs.
+ * Number of cells filled and candidates removed by each Technique are counted per propagation.
+ * Working arrays are allocated once per board dimension and reused.
+ * Boards are taken as matrix or as flat Board, the latter is copied cell for cell into the working arrays.
+ * Instance is not thread safe, use one instance per thread.
+ * @author aparna
+ *
+ */
+public class ConstraintPropagator implements SolverStrategy
+{
+	/* naked groups larger than 4 are rare, as in HeursiticAlgo they are not searched for */
+	private static final int MAX_GROUP_SIZE = 4;
+
+	private static final int TECHNIQUE_COUNT = Technique.values().length;
+
+	private BoardGeometry geometry;
+
+	private int dimension;
+
+	/* value of each cell in row major order, 0 for blank cell */
+	private int[] values;
+
+	/* candidate bitmap of each blank cell, 0 for filled cell */
+	private int[] candidates;
+
+	/* candidate bitmap given by caller for each cell, copied from matrix while loading */
+	private int[] allowedCells;
+
+	/* values already placed in each unit, used while loading */
+	private int[] unitUsed;
+
+	/* units waiting to be examined, ring buffer holding every unit at most once */
+	private int[] worklist;
+
+	private boolean[] queued;
+
+	/* candidates of cells of the unit being searched for naked groups */
+	private int[] groupMasks;
+
+	/* candidates of each row / column part of a grid, or grid part of a line */
+	private int[] rowSegments;
+
+	private int[] colSegments;
+
+	private int head;
+
+	private int queuedCount;
+
+	private int blankCount;
+
+	private boolean contradiction;
+
+	/* cells changed, with candidates before the change, latest last */
+	private int[] trailCells;
+
+	private int[] trailCandidates;
+
+	private int trailSize;
+
+	private long nodeCount;
+
+	/* guessed cells for which no candidate worked */
+	private long deadEndCount;
+
+	/* most guesses in force at once */
+	private int maxDepth;
+
+	/* techniques applied, indexed by ordinal */
+	private final boolean[] enabled = new boolean[TECHNIQUE_COUNT];
+
+	private final long[] fillCounts = new long[TECHNIQUE_COUNT];
+
+	private final long[] eliminationCounts = new long[TECHNIQUE_COUNT];
+
+	private long unitVisits;
+
+	public ConstraintPropagator()
+	{
+		Arrays.fill(enabled, true);
+	}
+
+	/**
+	 * Limits propagation to given techniques, all are applied by default.
+	 * Search stays complete without any technique, as filled values are always removed from peers.
+	 */
+	public void setTechniques(Set<Technique> techniques)
+	{
+		for(Technique technique : Technique.values())
+		{
+			enabled[technique.ordinal()] = techniques.contains(technique);
+		}
+	}
+
+	/**
+	 * Fills cells of board which follow from the techniques, in place.
+	 * @param board - sudoku matrix, blank cells hold 0
+	 * @return false if givens conflict or propagation shows the board has no solution,
+	 * board is then left unchanged
+	 */
+	public boolean propagate(int[][] board)
+	{
+		if(!load(board) || !propagate())
+		{
+			return false;
+		}
+		store(board);
+		return true;
+	}
+
+	/**
+	 * Same as propagate(int[][]) for flat board.
+	 */
+	public boolean propagate(Board board)
+	{
+		if(!load(board) || !propagate())
+		{
+			return false;
+		}
+		store(board);
+		return true;
+	}
+
+	/**
+	 * Solves board by propagation, searching when propagation alone does not fill every cell.
+	 */
+	@Override
+	public boolean solve(int[][] sudokuArr)
+	{
+		return solve(sudokuArr, null);
+	}
+
+	/**
+	 * Same as solve, with candidates already narrowed down by caller.
+	 * @param allowedBitmap - candidate bitmap per cell, e.g. from HeursiticAlgo, may be null
+	 */
+	public boolean solve(int[][] sudokuArr, int[][] allowedBitmap)
+	{
+		if(!load(sudokuArr, allowedBitmap) || !propagate() || !search(1))
+		{
+			return false;
+		}
+		store(sudokuArr);
+		return true;
+	}
+
+	@Override
+	public boolean solve(Board board)
+	{
+		if(!load(board) || !propagate() || !search(1))
+		{
+			return false;
+		}
+		store(board);
+		return true;
+	}
+
+	/**
+	 * Returns number of guesses made during last solve, 0 if propagation alone solved the board.
+	 */
+	@Override
+	public long getNodeCount()
+	{
+		return nodeCount;
+	}
+
+	/**
+	 * Returns number of guessed cells for which every candidate failed during last solve.
+	 */
+	public long getDeadEndCount()
+	{
+		return deadEndCount;
+	}
+
+	/**
+	 * Returns most guesses in force at once during last solve.
+	 */
+	public int getMaxDepth()
+	{
+		return maxDepth;
+	}
+
+	/**
+	 * Reads board and computes candidates of blank cells, all units are put on the worklist.
+	 * @return false if a value is out of range, a value repeats in row, column or grid,
+	 * or a blank cell has no candidate
+	 */
+	public boolean load(int[][] board)
+	{
+		return load(board, null);
+	}
+
+	/**
+	 * Same as load, candidates of blank cell (row, col) are further limited to allowedBitmap[row][col].
+	 * Candidates not in the bitmap are dropped without being counted for any technique.
+	 * @param allowedBitmap - candidate bitmap per cell, ith bit set means value i+1 is possible, may be null
+	 */
+	public boolean load(int[][] board, int[][] allowedBitmap)
+	{
+		ensureCapacity(board.length);
+		int cellCount = geometry.getCellCount();
+		for(int cell = 0; cell < cellCount; cell++)
+		{
+			values[cell] = board[geometry.rowOf(cell)][geometry.colOf(cell)];
+		}
+		if(allowedBitmap == null)
+		{
+			return initialize(null);
+		}
+		for(int cell = 0; cell < cellCount; cell++)
+		{
+			allowedCells[cell] = allowedBitmap[geometry.rowOf(cell)][geometry.colOf(cell)];
+		}
+		return initialize(allowedCells);
+	}
+
+	/**
+	 * Same as load(int[][]) for flat board.
+	 */
+	public boolean load(Board board)
+	{
+		ensureCapacity(board.getDimension());
+		int cellCount = geometry.getCellCount();
+		for(int cell = 0; cell < cellCount; cell++)
+		{
+			values[cell] = board.get(cell);
+		}
+		return initialize(null);
+	}
+
+	/*
+	 * Same as solve(int[][], int[][]) for board kept in flat arrays, as by HeursiticAlgo.
+	 * Cell values are written back only if board is solved.
+	 * @param cellValues - values in row major order
+	 * @param allowed - candidate bitmap per cell in row major order, may be null
+	 */
+	boolean solve(int boardDimension, int[] cellValues, int[] allowed)
+	{
+		ensureCapacity(boardDimension);
+		System.arraycopy(cellValues, 0, values, 0, geometry.getCellCount());
+		if(!initialize(allowed) || !propagate() || !search(1))
+		{
+			return false;
+		}
+		System.arraycopy(values, 0, cellValues, 0, geometry.getCellCount());
+		return true;
+	}
+
+	/*
+	 * Resets counters and trail, computes candidates from values and puts all units on the worklist.
+	 * Candidates of blank cell are limited to allowed[cell], if allowed is not null.
+	 */
+	private boolean initialize(int[] allowed)
+	{
+		Arrays.fill(fillCounts, 0);
+		Arrays.fill(eliminationCounts, 0);
+		unitVisits = 0;
+		nodeCount = 0;
+		deadEndCount = 0;
+		maxDepth = 0;
+		trailSize = 0;
+		contradiction = false;
+		head = 0;
+		queuedCount = 0;
+		blankCount = 0;
+
+		int cellCount = geometry.getCellCount();
+		for(int cell = 0; cell < cellCount; cell++)
+		{
+			if(values[cell] < 0 || values[cell] > dimension)
+			{
+				return false;
+			}
+		}
+
+		int unitCount = geometry.getUnitCount();
+		for(int unit = 0; unit < unitCount; unit++)
+		{
+			int used = 0;
+			for(int cell : geometry.cellsOf(unit))
+			{
+				if(values[cell] != 0)
+				{
+					int bit = 1 << (values[cell] - 1);
+					if((used & bit) != 0)
+					{
+						return false;
+					}
+					used |= bit;
+				}
+			}
+			unitUsed[unit] = used;
+			queued[unit] = false;
+		}
+
+		int allValues = geometry.getAllValuesMask();
+		for(int cell = 0; cell < cellCount; cell++)
+		{
+			candidates[cell] = 0;
+			if(values[cell] == 0)
+			{
+				int feasible = allValues & ~(unitUsed[geometry.rowUnitOf(cell)]
+						| unitUsed[geometry.colUnitOf(cell)] | unitUsed[geometry.boxUnitOf(cell)]);
+				if(allowed != null)
+				{
+					feasible &= allowed[cell];
+				}
+				if(feasible == 0)
+				{
+					return false;
+				}
+				candidates[cell] = feasible;
+				blankCount++;
+			}
+		}
+
+		for(int unit = 0; unit < unitCount; unit++)
+		{
+			markDirty(unit);
+		}
+		return true;
+	}
+
+	/**
+	 * Examines units on the worklist till it is empty.
+	 * @return false if a blank cell lost its last candidate, or a value has no cell left in some unit
+	 */
+	public boolean propagate()
+	{
+		int unitCount = geometry.getUnitCount();
+		while(queuedCount > 0 && !contradiction)
+		{
+			int unit = worklist[head];
+			head = (head + 1 == unitCount) ? 0 : head + 1;
+			queuedCount--;
+			queued[unit] = false;
+			unitVisits++;
+			examineUnit(unit);
+		}
+		return !contradiction;
+	}
+
+	/**
+	 * Writes cell values to board.
+	 */
+	public void store(int[][] board)
+	{
+		int cellCount = geometry.getCellCount();
+		for(int cell = 0; cell < cellCount; cell++)
+		{
+			board[geometry.rowOf(cell)][geometry.colOf(cell)] = values[cell];
+		}
+	}
+
+	/**
+	 * Writes cell values to flat board.
+	 */
+	public void store(Board board)
+	{
+		int cellCount = geometry.getCellCount();
+		for(int cell = 0; cell < cellCount; cell++)
+		{
+			board.set(cell, values[cell]);
+		}
+	}
+
+	public boolean isSolved()
+	{
+		return blankCount == 0 && !contradiction;
+	}
+
+	public int getBlankCount()
+	{
+		return blankCount;
+	}
+
+	/**
+	 * Returns candidate bitmap of cell, 0 if cell is filled.
+	 */
+	public int getCandidates(int cell)
+	{
+		return candidates[cell];
+	}
+
+	/**
+	 * Returns number of cells filled by technique during last propagation or solve,
+	 * including cells filled after guesses which were taken back.
+	 */
+	public long getFillCount(Technique technique)
+	{
+		return fillCounts[technique.ordinal()];
+	}
+
+	/**
+	 * Returns number of candidates removed by technique during last propagation,
+	 * candidates removed as peers of filled cells are not counted.
+	 */
+	public long getEliminationCount(Technique technique)
+	{
+		return eliminationCounts[technique.ordinal()];
+	}
+
+	/**
+	 * Returns number of units taken off the worklist during last propagation.
+	 */
+	public long getUnitVisits()
+	{
+		return unitVisits;
+	}
+
+	private void ensureCapacity(int boardDimension)
+	{
+		if(geometry != null && geometry.getDimension() == boardDimension)
+		{
+			return;
+		}
+		geometry = BoardGeometry.forDimension(boardDimension);
+		dimension = boardDimension;
+		values = new int[geometry.getCellCount()];
+		candidates = new int[geometry.getCellCount()];
+		allowedCells = new int[geometry.getCellCount()];
+		unitUsed = new int[geometry.getUnitCount()];
+		worklist = new int[geometry.getUnitCount()];
+		queued = new boolean[geometry.getUnitCount()];
+		groupMasks = new int[boardDimension];
+		rowSegments = new int[geometry.getGridDimension()];
+		trailCells = new int[geometry.getCellCount() * boardDimension];
+		trailCandidates = new int[geometry.getCellCount() * boardDimension];
+		colSegments = new int[geometry.getGridDimension()];
+	}
+
+	private void markDirty(int unit)
+	{
+		if(!queued[unit])
+		{
+			int tail = head + queuedCount;
+			worklist[tail < worklist.length ? tail : tail - worklist.length] = unit;
+			queued[unit] = true;
+			queuedCount++;
+		}
+	}
+
+	private void markUnitsDirty(int cell)
+	{
+		markDirty(geometry.rowUnitOf(cell));
+		markDirty(geometry.colUnitOf(cell));
+		markDirty(geometry.boxUnitOf(cell));
+	}
+
+	private void examineUnit(int unit)
+	{
+		int[] cells = geometry.cellsOf(unit);
+		/* filling a cell puts the unit back on the worklist, cheaper techniques get the first go */
+		if(findSingles(cells) || contradiction)
+		{
+			return;
+		}
+		if(enabled[Technique.NAKED_GROUP.ordinal()])
+		{
+			findNakedGroups(cells);
+			if(contradiction)
+			{
+				return;
+			}
+		}
+		if(unit >= 2 * dimension)
+		{
+			if(enabled[Technique.POINTING.ordinal()])
+				findPointing(cells, unit);
+		}
+		else if(enabled[Technique.BOX_LINE_REDUCTION.ordinal()])
+		{
+			findBoxLineReduction(cells, unit);
+		}
+	}
+
+	/*
+	 * Fills naked singles of unit, or if there are none, hidden singles.
+	 * Returns true if a cell was filled.
+	 */
+	private boolean findSingles(int[] cells)
+	{
+		boolean filled = false;
+		boolean nakedSingles = enabled[Technique.NAKED_SINGLE.ordinal()];
+		for(int cell : cells)
+		{
+			int cellCandidates = candidates[cell];
+			if(nakedSingles && cellCandidates != 0 && (cellCandidates & (cellCandidates - 1)) == 0)
+			{
+				assign(cell, cellCandidates, Technique.NAKED_SINGLE);
+				if(contradiction)
+				{
+					return true;
+				}
+				filled = true;
+			}
+		}
+		if(filled)
+		{
+			return true;
+		}
+
+		/* values fitting at least one / at least two blank cells, and values already placed */
+		int once = 0;
+		int twice = 0;
+		int placed = 0;
+		for(int cell : cells)
+		{
+			int cellCandidates = candidates[cell];
+			if(cellCandidates == 0)
+			{
+				placed |= 1 << (values[cell] - 1);
+			}
+			else
+			{
+				twice |= once & cellCandidates;
+				once |= cellCandidates;
+			}
+		}
+		if((geometry.getAllValuesMask() & ~(placed | once)) != 0)
+		{
+			/* some value fits nowhere in the unit */
+			contradiction = true;
+			return true;
+		}
+
+		int hidden = enabled[Technique.HIDDEN_SINGLE.ordinal()] ? once & ~twice : 0;
+		while(hidden != 0)
+		{
+			int bit = hidden & -hidden;
+			hidden &= hidden - 1;
+			int target = -1;
+			for(int cell : cells)
+			{
+				if((candidates[cell] & bit) != 0)
+				{
+					target = cell;
+					break;
+				}
+			}
+			if(target < 0)
+			{
+				/* only cell of the value was just filled with another hidden single */
+				contradiction = true;
+				return true;
+			}
+			assign(target, bit, Technique.HIDDEN_SINGLE);
+			if(contradiction)
+			{
+				return true;
+			}
+			filled = true;
+		}
+		return filled;
+	}
+
+	/*
+	 * Finds k cells of unit whose candidates together hold k values, k = 2 to MAX_GROUP_SIZE,
+	 * and removes these values from the other cells of unit.
+	 */
+	private void findNakedGroups(int[] cells)
+	{
+		for(int idx = 0; idx < cells.length; idx++)
+		{
+			groupMasks[idx] = candidates[cells[idx]];
+		}
+		long subset;
+		while((subset = NakedSubsets.find(groupMasks, cells.length, MAX_GROUP_SIZE)) != 0)
+		{
+			if(subset == NakedSubsets.CONTRADICTION)
+			{
+				contradiction = true;
+				return;
+			}
+			int groupCells = NakedSubsets.cellsOf(subset);
+			int group = NakedSubsets.valuesOf(subset);
+			for(int idx = 0; idx < cells.length; idx++)
+			{
+				if((groupCells & (1 << idx)) == 0)
+				{
+					eliminate(cells[idx], group, Technique.NAKED_GROUP);
+					if(contradiction)
+					{
+						return;
+					}
+					groupMasks[idx] = candidates[cells[idx]];
+				}
+			}
+		}
+	}
+
+	/*
+	 * For each value whose candidates in grid lie in one row or one column,
+	 * removes the value from rest of that row or column.
+	 * Grid cells are in row major order, cell k lies in row k / gridDimension and
+	 * column k % gridDimension of the grid.
+	 */
+	private void findPointing(int[] cells, int boxUnit)
+	{
+		int gridDimension = geometry.getGridDimension();
+		for(int segment = 0; segment < gridDimension; segment++)
+		{
+			rowSegments[segment] = 0;
+			colSegments[segment] = 0;
+		}
+		for(int idx = 0; idx < cells.length; idx++)
+		{
+			rowSegments[idx / gridDimension] |= candidates[cells[idx]];
+			colSegments[idx % gridDimension] |= candidates[cells[idx]];
+		}
+
+		for(int segment = 0; segment < gridDimension; segment++)
+		{
+			int onlyHere = onlyInSegment(rowSegments, segment);
+			if(onlyHere != 0)
+			{
+				eliminateOutsideBox(geometry.cellsOf(geometry.rowUnitOf(cells[segment * gridDimension])), boxUnit, onlyHere);
+			}
+			if(contradiction)
+			{
+				return;
+			}
+			onlyHere = onlyInSegment(colSegments, segment);
+			if(onlyHere != 0)
+			{
+				eliminateOutsideBox(geometry.cellsOf(geometry.colUnitOf(cells[segment])), boxUnit, onlyHere);
+			}
+			if(contradiction)
+			{
+				return;
+			}
+		}
+	}
+
+	private void eliminateOutsideBox(int[] lineCells, int boxUnit, int mask)
+	{
+		for(int cell : lineCells)
+		{
+			if(geometry.boxUnitOf(cell) != boxUnit)
+			{
+				eliminate(cell, mask, Technique.POINTING);
+				if(contradiction)
+				{
+					return;
+				}
+			}
+		}
+	}
+
+	/*
+	 * For each value whose candidates in row or column lie in one grid,
+	 * removes the value from rest of that grid.
+	 * Line cells k lie in grid k / gridDimension along the line, for rows and columns alike.
+	 */
+	private void findBoxLineReduction(int[] cells, int lineUnit)
+	{
+		int gridDimension = geometry.getGridDimension();
+		for(int segment = 0; segment < gridDimension; segment++)
+		{
+			rowSegments[segment] = 0;
+		}
+		for(int idx = 0; idx < cells.length; idx++)
+		{
+			rowSegments[idx / gridDimension] |= candidates[cells[idx]];
+		}
+
+		boolean isRow = lineUnit < dimension;
+		for(int segment = 0; segment < gridDimension; segment++)
+		{
+			int onlyHere = onlyInSegment(rowSegments, segment);
+			if(onlyHere == 0)
+			{
+				continue;
+			}
+			for(int cell : geometry.cellsOf(geometry.boxUnitOf(cells[segment * gridDimension])))
+			{
+				int cellLine = isRow ? geometry.rowUnitOf(cell) : geometry.colUnitOf(cell);
+				if(cellLine != lineUnit)
+				{
+					eliminate(cell, onlyHere, Technique.BOX_LINE_REDUCTION);
+					if(contradiction)
+					{
+						return;
+					}
+				}
+			}
+		}
+	}
+
+	/* candidates of segment which are candidates of no other segment */
+	private int onlyInSegment(int[] segments, int segment)
+	{
+		int others = 0;
+		for(int other = 0; other < segments.length; other++)
+		{
+			if(other != segment)
+				others |= segments[other];
+		}
+		return segments[segment] & ~others;
+	}
+
+	/*
+	 * Guesses blank cell with fewest candidates, tries each candidate followed by propagation.
+	 * Returns true once every cell is filled, false with state restored if no guess works.
+	 * Depth is the number of guesses in force once this cell is guessed.
+	 */
+	private boolean search(int depth)
+	{
+		if(blankCount == 0)
+		{
+			return true;
+		}
+		if(depth > maxDepth)
+		{
+			maxDepth = depth;
+		}
+
+		int cell = fewestCandidatesCell();
+		int remaining = candidates[cell];
+		while(remaining != 0)
+		{
+			int bit = remaining & -remaining;
+			remaining &= remaining - 1;
+			nodeCount++;
+			int mark = trailSize;
+			assign(cell, bit, null);
+			if(!contradiction && propagate() && search(depth + 1))
+			{
+				return true;
+			}
+			undo(mark);
+		}
+		deadEndCount++;
+		return false;
+	}
+
+	/*
+	 * Counts solutions reachable from current state, up to limit, guessing the way search does.
+	 * Each solution is added to solutions as new board, if solutions is not null.
+	 * State is restored before returning.
+	 */
+	int countSolutions(int limit, List<int[][]> solutions)
+	{
+		if(blankCount == 0)
+		{
+			if(solutions != null)
+			{
+				int[][] solution = new int[dimension][dimension];
+				store(solution);
+				solutions.add(solution);
+			}
+			return 1;
+		}
+
+		int found = 0;
+		int cell = fewestCandidatesCell();
+		int remaining = candidates[cell];
+		while(remaining != 0 && found < limit)
+		{
+			int bit = remaining & -remaining;
+			remaining &= remaining - 1;
+			nodeCount++;
+			int mark = trailSize;
+			assign(cell, bit, null);
+			if(!contradiction && propagate())
+			{
+				found += countSolutions(limit - found, solutions);
+			}
+			undo(mark);
+		}
+		return found;
+	}
+
+	private int fewestCandidatesCell()
+	{
+		int best = -1;
+		int bestCount = Integer.MAX_VALUE;
+		int cellCount = geometry.getCellCount();
+		for(int cell = 0; cell < cellCount; cell++)
+		{
+			int cellCandidates = candidates[cell];
+			if(cellCandidates != 0)
+			{
+				int count = Integer.bitCount(cellCandidates);
+				if(count < bestCount)
+				{
+					best = cell;
+					bestCount = count;
+					if(count == 2)
+						break;
+				}
+			}
+		}
+		return best;
+	}
+
+	/*
+	 * Takes back changes recorded after mark, and empties the worklist.
+	 * Only assign empties candidates of a cell, so a cell restored from 0 candidates was filled by it.
+	 */
+	private void undo(int mark)
+	{
+		while(trailSize > mark)
+		{
+			trailSize--;
+			int cell = trailCells[trailSize];
+			if(candidates[cell] == 0)
+			{
+				values[cell] = 0;
+				blankCount++;
+			}
+			candidates[cell] = trailCandidates[trailSize];
+		}
+		contradiction = false;
+		while(queuedCount > 0)
+		{
+			queued[worklist[head]] = false;
+			head = (head + 1 == worklist.length) ? 0 : head + 1;
+			queuedCount--;
+		}
+	}
+
+	private void record(int cell)
+	{
+		trailCells[trailSize] = cell;
+		trailCandidates[trailSize] = candidates[cell];
+		trailSize++;
+	}
+
+	/*
+	 * Fills cell with value of bit and removes the value from candidates of its peers.
+	 * Technique is null for guesses, which are counted as nodes instead.
+	 * A peer about to lose its last candidate is left as is, the contradiction is flagged.
+	 */
+	private void assign(int cell, int bit, Technique technique)
+	{
+		record(cell);
+		values[cell] = Integer.numberOfTrailingZeros(bit) + 1;
+		candidates[cell] = 0;
+		blankCount--;
+		if(technique != null)
+		{
+			fillCounts[technique.ordinal()]++;
+		}
+		markUnitsDirty(cell);
+
+		for(int peer : geometry.peersOf(cell))
+		{
+			int peerCandidates = candidates[peer];
+			if((peerCandidates & bit) != 0)
+			{
+				if(peerCandidates == bit)
+				{
+					contradiction = true;
+					return;
+				}
+				record(peer);
+				candidates[peer] = peerCandidates & ~bit;
+				markUnitsDirty(peer);
+			}
+		}
+	}
+
+	private void eliminate(int cell, int mask, Technique technique)
+	{
+		int cellCandidates = candidates[cell];
+		int removed = cellCandidates & mask;
+		if(removed == 0)
+		{
+			return;
+		}
+		if(removed == cellCandidates)
+		{
+			contradiction = true;
+			return;
+		}
+		record(cell);
+		candidates[cell] = cellCandidates & ~mask;
+		eliminationCounts[technique.ordinal()] += Integer.bitCount(removed);
+		markUnitsDirty(cell);
+	}
+}
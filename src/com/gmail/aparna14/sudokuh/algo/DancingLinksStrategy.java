@@ -0,0 +1,327 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+import com.gmail.aparna14.sudokuh.data.BoardGeometry;
+
+/**
+ * This class solves sudoku board as exact cover problem using Knuth's Algorithm X
+ * with Dancing Links.
+ * Exact cover matrix has one row for every (cell, value) pair and one column for every constraint
+ * 1. cell constraint - every cell holds exactly one value
+ * 2. row constraint - every value occurs once in each row
+ * 3. column constraint - every value occurs once in each column
+ * 4. grid constraint - every value occurs once in each grid
+ * Hence every matrix row has exactly 4 nodes.
+ *
+ * The links are kept in int arrays instead of node objects. They are built once per
+ * board dimension and reused: given values are covered before search and uncovered afterwards,
+ * which restores the matrix to its initial state for the next puzzle.
+ * Instance is not thread safe, use one instance per thread.
+ * @author aparna
+ *
+ */
+public class DancingLinksStrategy implements SolverStrategy
+{
+	private static final int ROOT = 0;
+
+	private static final int NODES_PER_ROW = 4;
+
+	private BoardGeometry geometry;
+
+	/* links of header and row nodes, index 0 is root, followed by column headers */
+	private int[] left;
+	private int[] right;
+	private int[] up;
+	private int[] down;
+
+	/* column header for every node */
+	private int[] column;
+
+	/* matrix row for every node, matrix row is cell * dimension + (value - 1) */
+	private int[] matrixRow;
+
+	/* number of nodes in the column, kept for column headers */
+	private int[] size;
+
+	/* first node of every matrix row */
+	private int[] rowStart;
+
+	/* first node of chosen matrix rows, given values first and then search choices */
+	private int[] chosen;
+
+	private int[] rowMask;
+	private int[] colMask;
+	private int[] boxMask;
+
+	private long nodeCount;
+
+	/**
+	 * This function solves for the missing spaces in sudoku board
+	 */
+	@Override
+	public boolean solve(int[][] sudokuArr)
+	{
+		nodeCount = 0;
+		int dimension = sudokuArr.length;
+		ensureMatrix(dimension);
+
+		if(!hasValidGivenValues(sudokuArr))
+		{
+			return false;
+		}
+
+		/* select the rows of given values, as if search had chosen them */
+		int givenCount = 0;
+		for(int row = 0; row < dimension; row++)
+			for(int col = 0; col < dimension; col++)
+			{
+				if(sudokuArr[row][col] != 0)
+				{
+					int node = rowStart[(row * dimension + col) * dimension + sudokuArr[row][col] - 1];
+					selectRow(node);
+					chosen[givenCount++] = node;
+				}
+			}
+
+		boolean solved = search(givenCount);
+
+		if(solved)
+		{
+			for(int idx = givenCount; idx < geometry.getCellCount(); idx++)
+			{
+				int cell = matrixRow[chosen[idx]] / dimension;
+				sudokuArr[geometry.rowOf(cell)][geometry.colOf(cell)] = matrixRow[chosen[idx]] % dimension + 1;
+			}
+		}
+
+		/* restore matrix for the next puzzle */
+		for(int idx = givenCount - 1; idx >= 0; idx--)
+		{
+			deselectRow(chosen[idx]);
+		}
+		return solved;
+	}
+
+	/**
+	 * Returns number of matrix rows tried during last solve.
+	 */
+	@Override
+	public long getNodeCount()
+	{
+		return nodeCount;
+	}
+
+	/*
+	 * Algorithm X: choose column with fewest rows, try each of its rows in turn
+	 * and recurse on the reduced matrix. Matrix is restored before returning,
+	 * also when solution is found.
+	 */
+	private boolean search(int depth)
+	{
+		if(right[ROOT] == ROOT)
+		{
+			return true;
+		}
+
+		int bestColumn = right[ROOT];
+		for(int col = right[bestColumn]; col != ROOT; col = right[col])
+		{
+			if(size[col] < size[bestColumn])
+			{
+				bestColumn = col;
+				if(size[col] <= 1)
+					break;
+			}
+		}
+		if(size[bestColumn] == 0)
+		{
+			return false;
+		}
+
+		boolean solved = false;
+		cover(bestColumn);
+		for(int node = down[bestColumn]; node != bestColumn && !solved; node = down[node])
+		{
+			nodeCount++;
+			chosen[depth] = node;
+			for(int other = right[node]; other != node; other = right[other])
+			{
+				cover(column[other]);
+			}
+
+			solved = search(depth + 1);
+
+			for(int other = left[node]; other != node; other = left[other])
+			{
+				uncover(column[other]);
+			}
+		}
+		uncover(bestColumn);
+		return solved;
+	}
+
+	private void selectRow(int node)
+	{
+		cover(column[node]);
+		for(int other = right[node]; other != node; other = right[other])
+		{
+			cover(column[other]);
+		}
+	}
+
+	private void deselectRow(int node)
+	{
+		for(int other = left[node]; other != node; other = left[other])
+		{
+			uncover(column[other]);
+		}
+		uncover(column[node]);
+	}
+
+	/* removes column from header list and all rows having node in column from other columns */
+	private void cover(int col)
+	{
+		right[left[col]] = right[col];
+		left[right[col]] = left[col];
+		for(int rowNode = down[col]; rowNode != col; rowNode = down[rowNode])
+		{
+			for(int node = right[rowNode]; node != rowNode; node = right[node])
+			{
+				down[up[node]] = down[node];
+				up[down[node]] = up[node];
+				size[column[node]]--;
+			}
+		}
+	}
+
+	/* exact reverse of cover */
+	private void uncover(int col)
+	{
+		for(int rowNode = up[col]; rowNode != col; rowNode = up[rowNode])
+		{
+			for(int node = left[rowNode]; node != rowNode; node = left[node])
+			{
+				size[column[node]]++;
+				down[up[node]] = node;
+				up[down[node]] = node;
+			}
+		}
+		right[left[col]] = col;
+		left[right[col]] = col;
+	}
+
+	/*
+	 * Given values are covered without search, hence conflicting given values
+	 * have to be rejected before, they would corrupt the links.
+	 */
+	private boolean hasValidGivenValues(int[][] sudokuArr)
+	{
+		int dimension = geometry.getDimension();
+		for(int i = 0; i < dimension; i++)
+		{
+			rowMask[i] = 0;
+			colMask[i] = 0;
+			boxMask[i] = 0;
+		}
+
+		for(int row = 0; row < dimension; row++)
+		{
+			if(sudokuArr[row].length != dimension)
+				return false;
+
+			for(int col = 0; col < dimension; col++)
+			{
+				int value = sudokuArr[row][col];
+				if(value == 0)
+					continue;
+				if(value < 0 || value > dimension)
+					return false;
+
+				int bit = 1 << (value - 1);
+				int box = geometry.boxOf(row * dimension + col);
+				if(((rowMask[row] | colMask[col] | boxMask[box]) & bit) != 0)
+					return false;
+				rowMask[row] |= bit;
+				colMask[col] |= bit;
+				boxMask[box] |= bit;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * Builds exact cover matrix for board dimension, if not already built.
+	 */
+	private void ensureMatrix(int dimension)
+	{
+		if(geometry != null && geometry.getDimension() == dimension)
+		{
+			return;
+		}
+		geometry = BoardGeometry.forDimension(dimension);
+
+		int cellCount = geometry.getCellCount();
+		int columnCount = NODES_PER_ROW * cellCount;
+		int rowCount = cellCount * dimension;
+		int totalNodes = 1 + columnCount + rowCount * NODES_PER_ROW;
+
+		left = new int[totalNodes];
+		right = new int[totalNodes];
+		up = new int[totalNodes];
+		down = new int[totalNodes];
+		column = new int[totalNodes];
+		matrixRow = new int[totalNodes];
+		size = new int[1 + columnCount];
+		rowStart = new int[rowCount];
+		chosen = new int[cellCount];
+		rowMask = new int[dimension];
+		colMask = new int[dimension];
+		boxMask = new int[dimension];
+
+		/* root and column headers form circular list */
+		for(int node = 0; node <= columnCount; node++)
+		{
+			left[node] = (node == 0) ? columnCount : node - 1;
+			right[node] = (node == columnCount) ? 0 : node + 1;
+			up[node] = node;
+			down[node] = node;
+			column[node] = node;
+		}
+
+		int node = columnCount + 1;
+		for(int cell = 0; cell < cellCount; cell++)
+		{
+			int row = geometry.rowOf(cell);
+			int col = geometry.colOf(cell);
+			int box = geometry.boxOf(cell);
+			for(int value = 0; value < dimension; value++)
+			{
+				int first = node;
+				rowStart[cell * dimension + value] = first;
+
+				/* column headers are numbered from 1 */
+				appendNode(node++, first, cell * dimension + value, 1 + cell);
+				appendNode(node++, first, cell * dimension + value, 1 + cellCount + row * dimension + value);
+				appendNode(node++, first, cell * dimension + value, 1 + 2 * cellCount + col * dimension + value);
+				appendNode(node++, first, cell * dimension + value, 1 + 3 * cellCount + box * dimension + value);
+			}
+		}
+	}
+
+	/* links node at the bottom of its column and at the end of its matrix row */
+	private void appendNode(int node, int first, int row, int col)
+	{
+		column[node] = col;
+		matrixRow[node] = row;
+
+		up[node] = up[col];
+		down[node] = col;
+		down[up[col]] = node;
+		up[col] = node;
+		size[col]++;
+
+		left[node] = (node == first) ? node : node - 1;
+		right[node] = first;
+		right[left[node]] = node;
+		left[first] = node;
+	}
+}
@@ -1,12 +1,9 @@
 package com.gmail.aparna14.sudokuh.algo;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Map;
-import java.util.Set;
-import java.util.TreeSet;
+import java.util.Arrays;
 
-import com.gmail.aparna14.sudokuh.data.Entry;
+import com.gmail.aparna14.sudokuh.data.Board;
+import com.gmail.aparna14.sudokuh.data.BoardGeometry;
 
 
 /**
@@ -15,335 +12,392 @@ import com.gmail.aparna14.sudokuh.data.Entry;
  * The following rules are generally checked.
  * 1. If only one value is possible for row /column or grid cell, the cell should hold that value
  * 2. If a value can only be in a row or column, then cell should hold that value.
- * 3. check for cells containing Naked pairs, Naked triples or 
+ * 3. check for cells containing Naked pairs, Naked triples or
  * Naked quadruples (A Naked pair is two cells in row or column, containing only 2 possible values.
  * In such scenario, remove in other grid/row/column cells these 2 possible values)
  * 4. For a value discovered in Step 1 or Step2, rearrange row and columns of that particular cell
  * to not contain the value and find cells in row or column, which satisfy 1 or 2.
- * 5. After above 4 steps, if there are missing blank spaces, then apply backtracking algorithm.
+ * 5. Steps 1 - 4 only look at rows and columns. The board is then passed to ConstraintPropagator,
+ * which applies them on grids too, along with pointing pairs/triples and box line reduction,
+ * till nothing changes. It also finds boards whose givens conflict.
+ * 6. After above 5 steps, if there are missing blank spaces, then apply backtracking algorithm.
+ * By default the propagator searches too, starting from the candidate bitmap built in steps 1 - 4
+ * and propagating again after every guess.
+ * With a SolveListener attached, cells filled per technique, search statistics and time taken
+ * are reported after every solve. Without one, nothing is timed or reported.
+ * Trace is written to an AsyncTraceSink as set by setTrace, by default nothing is traced
+ * and no trace text is built.
+ *
+ * Board values and candidate bitmaps are kept in flat arrays, cells in row major order as numbered
+ * by BoardGeometry. Cells determined in steps 1 - 4 wait in a queue of two int arrays, every cell
+ * enters it at most once per solve (tracked in a bitset), so the queue never needs more than one
+ * slot per cell. Working arrays are allocated once per board dimension and reset by every solve,
+ * hence with the default propagator search an instance solves board after board without allocating.
+ * Instance is not thread safe, use one instance per thread.
  * @author aparna
  *
  */
-public class HeursiticAlgo 
+public class HeursiticAlgo implements SolverStrategy
 {
-	
-	private LinkedList<Entry> determinedCellsQueue = new LinkedList<Entry>();
-	private int[][] determinedCellVisited = new int[9][9];
+	/* naked tuples larger than this are not searched for, see checkForNakedGroups */
+	private static final int MAX_NAKED_GROUP_SIZE = 4;
+
+	private static final Technique[] TECHNIQUES = Technique.values();
+
+	private BoardGeometry geometry;
+
+	/* no of rows /columns of the board being solved, e.g 9, 16 or 25 */
+	private int dimension;
+
+	/* board values in row major order, 0 for blank cell */
+	private int[] cells;
+
+	/* candidate bitmap of each blank cell, ith bit set means value i+1 is allowed */
+	private int[] allowed;
+
+	/* determined cells and their values, waiting between queueHead and queueTail */
+	private int[] queueCells;
+	private int[] queueValues;
+	private int queueHead;
+	private int queueTail;
+
+	/* bit per cell, set once cell has been queued */
+	private long[] queuedCells;
+
+	/* bitmaps of one row or column, reused by checkForNakedGroups */
+	private int[] unitBitmaps;
+
+	/* strategy applied for the blank spaces left after applying the rules,
+	 * null to search with propagator */
+	private final SolverStrategy backTrackingStrategy;
+
+	private long nodeCount;
+
+	/* dead ends and deepest guess of last search, see SolveListener.searchFinished */
+	private long deadEndCount;
+	private int maxDepth;
+
+	/* null if nobody listens */
+	private SolveListener listener;
+
+	private TraceLevel traceLevel = TraceLevel.OFF;
+
+	/* null when trace level is OFF */
+	private AsyncTraceSink traceSink;
+
+	/* applies the rules on rows, columns and grids once queue of determined cells is empty */
+	private final ConstraintPropagator propagator = new ConstraintPropagator();
+
+	/* cells filled by each technique in rules above, before propagator runs */
+	private final long[] fillCounts = new long[TECHNIQUES.length];
+
+	public HeursiticAlgo()
+	{
+		this(null);
+	}
+
+	/**
+	 * @param backTrackingStrategy - solves board left after propagation, null to let
+	 * ConstraintPropagator search, propagating after every guess
+	 */
+	public HeursiticAlgo(SolverStrategy backTrackingStrategy)
+	{
+		this.backTrackingStrategy = backTrackingStrategy;
+	}
+
 	/**
 	 * For each blank cell, the possible values for cell are calculated
 	 * and stored in the form of bitmap. ith bit set means, i value is permitted for the cell.
 	 * e.g if for cell 1, only 2 and 3 are permitted then bitmap stored is 110
+	 * Solving does not use this method, it keeps the bitmaps in a reused flat array.
 	 * @param sudokuArr
-	 * @return
+	 * @return new matrix of bitmaps
 	 */
-	 public int[][] formBitMapofAllowedValues(int[][] sudokuArr)
-	 {
-		 int[][] valuesAllowedBitmap = new int[9][9];
-		 for(int i=0; i<9; i++)
-		 {
-			 for(int j=0; j<9; j++)
-			 {
-				 valuesAllowedBitmap[i][j] = 0;
-				 if(sudokuArr[i][j] == 0)
-				 {
-					Set<Integer>  allowedIntSet	= getFeasibleValues(i,j,sudokuArr,9);
-					/* add the element into queue , if it is determined that cell
-					 * can hold only one value
-					 */
-					if(allowedIntSet.size() == 1)
-					{
-						addToQueue(i,j, allowedIntSet.iterator().next());
-					}
-					
-					for(Integer allowedInt : allowedIntSet)
-					{
-						setBitInBitmap(i,j,valuesAllowedBitmap, allowedInt);
-					}
-				 }
-			 }
-		 }
-		 return valuesAllowedBitmap;
-	 }
-	 
-	 private void addToQueue(int row, int col, int value)
-	 {
-		 /* already visited, hence don't add to queue */
-		 if(determinedCellVisited[row][col] !=1)
-		 {
-			 determinedCellsQueue.addLast(new Entry(row,col,value));
-			 determinedCellVisited[row][col] = 1;
-		 }
-	 }
-	 
-	 /* sets in the bitMap array, bitToBeSet position to 1 */
-	 private void setBitInBitmap(int rowIdx, int colIdx, int[][] bitMapForBlankSpaces, int bitToBeSet)
-	 {
-		 bitMapForBlankSpaces[rowIdx][colIdx] = bitMapForBlankSpaces[rowIdx][colIdx] | ( 1<< (bitToBeSet - 1));
-	 }
-	 
-	 /* check whether bit is set */
-	 private boolean isSetBit(int value, int bitToCheck)
-	 {
-		 return (value & (1 << (bitToCheck - 1))) != 0;
-	 }
-	 
-	 /* count the number of bits set */
-	 private int countBitsSet(int value)
-	 {
-		 int bitSet = 0;
-		 while(value != 0)
-		 {
-			 bitSet++;
-			 value &= (value - 1);
-		 }
-		 return bitSet;
-	 }
-	 
-	 /* Mask from the  row or column nakedTuple from remaining cells*/
-	 
-	 private void maskBits(int rowOrcolNo, boolean isRow,int[][] valuesAllowedBitmap, int nakedTupleBitmap)
-	 {
-		 if(isRow)
-		 {
-			 for(int j=0; j<9; j++)
-			 {
-				 if(valuesAllowedBitmap[rowOrcolNo][j] != nakedTupleBitmap)
-				 {
-					 valuesAllowedBitmap[rowOrcolNo][j] &= (~nakedTupleBitmap);
-				 }
-			 }
-		 }
-		 else // It is a column
-		 {
-			 for(int j=0; j<9; j++)
-			 {
-				 if(valuesAllowedBitmap[j][rowOrcolNo] != nakedTupleBitmap)
-				 {
-					 valuesAllowedBitmap[j][rowOrcolNo] &= (~nakedTupleBitmap);
-				 }
-			 }
-		 }
-	 }
-	 
-	 /**
-	  * Helper function used to get the possible values not violating row/column or grid constraints 
-	  * for blank cell
-	  * @param row
-	  * @param col
-	  * @param sudokuCells - sudoku two dimensional array
-	  * @param dimension - no of rows /columns in n*n board. This program takes this value as 9.
-	  * @return
-	  */
-	 private Set<Integer> getFeasibleValues(int row, int col, int[][] sudokuCells, int dimension)
-	 {
-		 	Set<Integer> feasibleValues = new TreeSet<Integer>();
-		 	for(int i=1; i <= dimension; i++)
+	public int[][] formBitMapofAllowedValues(int[][] sudokuArr)
+	{
+		int[][] valuesAllowedBitmap = new int[sudokuArr.length][sudokuArr.length];
+		if(load(sudokuArr))
+		{
+			formAllowedValues();
+			for(int cell = 0; cell < allowed.length; cell++)
 			{
-				feasibleValues.add(i);
+				valuesAllowedBitmap[geometry.rowOf(cell)][geometry.colOf(cell)] = allowed[cell];
 			}
-				
-			/* check row */
-			for(int colIndex=0; colIndex< dimension; colIndex++)
+		}
+		return valuesAllowedBitmap;
+	}
+
+	/**
+	 * Discards state of last solve: board, candidates, queued cells and counts.
+	 * Every solve starts with a reset, calling it in between only lets go of the last board early.
+	 */
+	public void reset()
+	{
+		if(geometry == null)
+		{
+			return;
+		}
+		Arrays.fill(cells, 0);
+		Arrays.fill(allowed, 0);
+		Arrays.fill(queuedCells, 0);
+		queueHead = 0;
+		queueTail = 0;
+		nodeCount = 0;
+		deadEndCount = 0;
+		maxDepth = 0;
+		Arrays.fill(fillCounts, 0);
+	}
+
+	/*
+	 * Sets board dimension for the solve, n^2*n^2 boards upto BoardGeometry.MAX_DIMENSION are supported.
+	 * Arrays are allocated only when dimension differs from previous board, and reset otherwise.
+	 */
+	private void setDimension(int boardDimension)
+	{
+		if(geometry == null || dimension != boardDimension)
+		{
+			geometry = BoardGeometry.forDimension(boardDimension);
+			dimension = boardDimension;
+			int cellCount = geometry.getCellCount();
+			cells = new int[cellCount];
+			allowed = new int[cellCount];
+			queueCells = new int[cellCount];
+			queueValues = new int[cellCount];
+			queuedCells = new long[(cellCount + 63) >>> 6];
+			unitBitmaps = new int[boardDimension];
+		}
+		reset();
+	}
+
+	/*
+	 * Copies matrix into cells, returns false if it is not square or has value out of range.
+	 * Throws IllegalArgumentException if dimension is not supported.
+	 */
+	private boolean load(int[][] sudokuArr)
+	{
+		setDimension(sudokuArr.length);
+		int cell = 0;
+		for(int row = 0; row < dimension; row++)
+		{
+			if(sudokuArr[row].length != dimension)
 			{
-				if(sudokuCells[row][colIndex] != 0)
-					feasibleValues.remove(sudokuCells[row][colIndex]);
+				return false;
 			}
-			
-			/* check col */
-			for(int rowIndex=0; rowIndex< dimension; rowIndex++)
+			for(int col = 0; col < dimension; col++, cell++)
 			{
-				if(sudokuCells[rowIndex][col] != 0)
-					feasibleValues.remove(sudokuCells[rowIndex][col]);
-			}
-			
-			/* check grid */
-			int gridDimension = (int)Math.sqrt(dimension);
-			int rowGridStart = ((int)(row/gridDimension))*gridDimension;
-			int colGridStart = col - (col % gridDimension);
-			
-			for(int rowIndex = rowGridStart; rowIndex < rowGridStart + gridDimension; rowIndex++)
-				for(int colIndex = colGridStart; colIndex < colGridStart + gridDimension; colIndex++)
-				{
-					if(sudokuCells[rowIndex][colIndex] != 0)
-						feasibleValues.remove(sudokuCells[rowIndex][colIndex]);
-				}
-			return feasibleValues;
-	 }
-	 
-	 /**
-	  * This function is used to check if there are any cells in row or column
-	  * which take number from 1-9 uniquely.
-	  */
-	 private void findOnlyOneValueAllowedinRowOrColumn(int rowNo, int colNo,  int[][] valuesAllowedBitmap, int[][] sudokuArr)
-	 {
-		 /* check if in row, any number from 1-9 occurs only once for blank cells */ 
-		 for(int num = 1; num<= 9; num++)
-		 {
-			 int numCount = 0;
-			 int pos = 0;
-			 for(int i=0; i<9; i++)
-			 {
-				if(valuesAllowedBitmap[rowNo][i] !=0)
-				{
-					if(isSetBit(valuesAllowedBitmap[rowNo][i], num))
-					{
-						numCount++;
-						pos = i;
-					}
-				}
-			 }
-			 
-			 /* Means this number only occurs once in row and hence it should be in that cell */
-			 if(numCount == 1)
-			 {
-				 addToQueue(rowNo, pos, num);
-			 }
-		 }
-		 
-		 /* check in column, any number from 1-9 occurs only once for blank cells */
-		 for(int num = 1; num<= 9; num++)
-		 {
-			 int numCount = 0;
-			 int pos = 0;
-			 for(int i=0; i<9; i++)
-			 {
-				if(valuesAllowedBitmap[i][colNo] !=0)
+				int value = sudokuArr[row][col];
+				if(value < 0 || value > dimension)
 				{
-					if(isSetBit(valuesAllowedBitmap[i][colNo], num))
-					{
-						numCount++;
-						pos = i;
-					}
+					return false;
 				}
-			 }
-			 
-			 /* Means this number only occurs once in column and hence it should be in that cell */
-			 if(numCount == 1)
-			 {
-				 addToQueue(pos, colNo, num);
-			 }
-		 }
-	 }
-	 
-	 /**
-	  * Assumptions made: Though naked tuples can be of any size <9 , in 9*9 board, there is rare chance
-	  * of seeing naked tuple of size 5. Hence limiting calculating naked tuples to of size 4.
-	  * This function checks for naked tuples (pairs, triples or quadruples).
-	  * A naked pair is one in which two cells in row/column should contain two values only.
-	  * Hence rest of the cells in row/column will not contain these values and hence these values
-	  * can be removed from the possibility in the remaining cells.
-	  */
-	private void checkForNakedGroups(int rowNo, int colNo,  int[][] valuesAllowedBitmap, int[][] sudokuArr) 
+				cells[cell] = value;
+			}
+		}
+		return true;
+	}
+
+	private void load(Board board)
+	{
+		setDimension(board.getDimension());
+		for(int cell = 0; cell < cells.length; cell++)
+		{
+			cells[cell] = board.get(cell);
+		}
+	}
+
+	/*
+	 * Candidates of each blank cell are values not used in its row, column or grid.
+	 * Cell left with one candidate is queued.
+	 */
+	private void formAllowedValues()
 	{
-		 /* This is used to store map of groupSize to map holding bitmaps of length groupSize 
-		  * and number of occurrences of that bitmap
-		  * in the row.
-		  */
-		Map<Integer, Map<Integer,Integer>> groupwiseBitMap = new HashMap<Integer,Map<Integer, Integer>>(); 
-	 	for(int j=0; j<9; j++)
+		int allValues = geometry.getAllValuesMask();
+		for(int cell = 0; cell < cells.length; cell++)
 		{
-			if(valuesAllowedBitmap[rowNo][j] != 0)
+			allowed[cell] = 0;
+			if(cells[cell] == 0)
 			{
-				int bitsSet = countBitsSet(valuesAllowedBitmap[rowNo][j]);
-				
-				Map<Integer, Integer>  groupMap = groupwiseBitMap.get(bitsSet);
-				
-				if(groupMap != null)
-				{
-					Integer count = groupMap.get(valuesAllowedBitmap[rowNo][j]);
-					
-					count = (count != null)? count + 1 : 1;
-					groupMap.put(valuesAllowedBitmap[rowNo][j], count);
-				}
-				else
+				int used = 0;
+				for(int peer : geometry.peersOf(cell))
 				{
-					/* first time, tuple of this group length is encountered */
-					Map<Integer, Integer> groupTupleMap = new HashMap<Integer, Integer>();
-					groupTupleMap.put(valuesAllowedBitmap[rowNo][j], 1);
-					groupwiseBitMap.put(bitsSet, groupTupleMap);
+					if(cells[peer] != 0)
+						used |= 1 << (cells[peer] - 1);
 				}
+				allowed[cell] = allValues & ~used;
+				queueIfSingle(cell, allowed[cell]);
 			}
 		}
-	 	
-	 	for(int groupSize=2; groupSize<=4; groupSize++)
-	 	{
-	 		/* check in tuples of length groupsize , for any tuple occuring same number of times as groupsize */
-	 		Map<Integer,Integer> groupTupleMap = groupwiseBitMap.get(groupSize);
-	 		
-	 		if(groupTupleMap != null)
-	 		{
-		 		for(Map.Entry<Integer, Integer> groupTupleEntry : groupTupleMap.entrySet())
-		 		{
-		 			if(groupTupleEntry.getValue() == groupSize)
-		 			{
-		 				/* mask these tuples values from other row elements */
-		 				for(int j=0; j<9; j++)
-		 				{
-		 					if(valuesAllowedBitmap[rowNo][j] != groupTupleEntry.getKey())
-		 					{
-		 						maskBits(rowNo, true, valuesAllowedBitmap, groupTupleEntry.getKey());
-		 					}
-		 				}
-		 			}
-		 		}
-	 		}
-	 	}
-	 	
-	 	 /* This is used to store map of groupSize to map holding bitmaps of length groupSize 
-		  * and number of occurrences of that bitmap
-		  * in the row.
-		  */
-		Map<Integer, Map<Integer,Integer>> groupWiseBitColMap = new HashMap<Integer,Map<Integer, Integer>>(); 
-	 	for(int j=0; j<9; j++)
+	}
+
+	private void addToQueue(int cell, int value, Technique technique)
+	{
+		/* already visited, hence don't add to queue */
+		long bit = 1L << cell;
+		if((queuedCells[cell >>> 6] & bit) == 0)
+		{
+			queuedCells[cell >>> 6] |= bit;
+			queueCells[queueTail] = cell;
+			queueValues[queueTail] = value;
+			queueTail++;
+			fillCounts[technique.ordinal()]++;
+		}
+	}
+
+	private void queueIfSingle(int cell, int bitmap)
+	{
+		if(bitmap != 0 && (bitmap & (bitmap - 1)) == 0)
+		{
+			addToQueue(cell, Integer.numberOfTrailingZeros(bitmap) + 1, Technique.NAKED_SINGLE);
+		}
+	}
+
+	/**
+	 * This function is used to check if there are any cells in row or column
+	 * which take number from 1-dimension uniquely.
+	 */
+	private void findOnlyOneValueAllowedinRowOrColumn(int rowNo, int colNo)
+	{
+		findHiddenSingles(geometry.cellsOf(rowNo));
+		findHiddenSingles(geometry.cellsOf(dimension + colNo));
+	}
+
+	/*
+	 * Queues values allowed in exactly one cell of unit, lowest value first.
+	 */
+	private void findHiddenSingles(int[] unitCells)
+	{
+		/* values allowed in at least one / at least two cells */
+		int once = 0;
+		int twice = 0;
+		for(int cell : unitCells)
+		{
+			twice |= once & allowed[cell];
+			once |= allowed[cell];
+		}
+		int hidden = once & ~twice;
+		while(hidden != 0)
 		{
-			if(valuesAllowedBitmap[j][colNo] != 0)
+			int bit = hidden & -hidden;
+			hidden &= hidden - 1;
+			for(int cell : unitCells)
 			{
-				int bitsSet = countBitsSet(valuesAllowedBitmap[j][colNo]);
-				
-				Map<Integer, Integer>  groupMap = groupWiseBitColMap.get(bitsSet);
-				
-				if(groupMap != null)
+				if((allowed[cell] & bit) != 0)
 				{
-					Integer count = groupMap.get(valuesAllowedBitmap[j][colNo]);
-					
-					count = (count != null)? count + 1 : 1;
-					groupMap.put(valuesAllowedBitmap[j][colNo], count);
+					addToQueue(cell, Integer.numberOfTrailingZeros(bit) + 1, Technique.HIDDEN_SINGLE);
+					break;
 				}
-				else
+			}
+		}
+	}
+
+	/**
+	 * Assumptions made: Though naked tuples can be of any size <9 , in 9*9 board, there is rare chance
+	 * of seeing naked tuple of size 5. Hence limiting calculating naked tuples to of size 4.
+	 * This function checks for naked tuples (pairs, triples or quadruples) in row rowNo and column colNo.
+	 * A naked pair is one in which two cells in row/column should contain two values only.
+	 * Hence rest of the cells in row/column will not contain these values and hence these values
+	 * can be removed from the possibility in the remaining cells.
+	 * Cells of a tuple need not have identical bitmaps, e.g {1,2}, {2,3}, {1,3} is naked triple.
+	 * Cell left with one value after removal is added to the queue.
+	 */
+	private void checkForNakedGroups(int rowNo, int colNo)
+	{
+		removeNakedGroups(geometry.cellsOf(rowNo));
+		removeNakedGroups(geometry.cellsOf(dimension + colNo));
+	}
+
+	private void removeNakedGroups(int[] unitCells)
+	{
+		for(int j=0; j<dimension; j++)
+		{
+			unitBitmaps[j] = allowed[unitCells[j]];
+		}
+		long subset;
+		while((subset = NakedSubsets.find(unitBitmaps, dimension, MAX_NAKED_GROUP_SIZE)) > 0)
+		{
+			int tupleCells = NakedSubsets.cellsOf(subset);
+			int tupleBitmap = NakedSubsets.valuesOf(subset);
+			for(int j=0; j<dimension; j++)
+			{
+				if((tupleCells & (1 << j)) == 0 && (unitBitmaps[j] & tupleBitmap) != 0)
 				{
-					/* first time, tuple of this group length is encountered */
-					Map<Integer, Integer> groupTupleMap = new HashMap<Integer, Integer>();
-					groupTupleMap.put(valuesAllowedBitmap[j][colNo], 1);
-					groupWiseBitColMap.put(bitsSet, groupTupleMap);
+					unitBitmaps[j] &= ~tupleBitmap;
+					allowed[unitCells[j]] = unitBitmaps[j];
+					queueIfSingle(unitCells[j], unitBitmaps[j]);
 				}
 			}
 		}
-	 	
-	 	for(int groupSize=2; groupSize<=4; groupSize++)
-	 	{
-	 		/* check in tuples of length groupsize , for any tuple occuring same number of times as groupsize */
-	 		Map<Integer,Integer> groupTupleMap = groupWiseBitColMap.get(groupSize);
-	 		
-	 		if(groupTupleMap != null)
-	 		{
-		 		for(Map.Entry<Integer, Integer> groupTupleEntry : groupTupleMap.entrySet())
-		 		{
-		 			if(groupTupleEntry.getValue() == groupSize)
-		 			{
-		 				/* mask these tuples values from other row elements */
-		 				for(int j=0; j<9; j++)
-		 				{
-		 					if(valuesAllowedBitmap[j][colNo] != groupTupleEntry.getKey())
-		 					{
-		 						maskBits(colNo, false, valuesAllowedBitmap, groupTupleEntry.getKey());
-		 					}
-		 				}
-		 			}
-		 		}
-	 		}
-	 	}
 	}
-	
+
+	/**
+	 * Same as solveBoard, lets this class be used wherever a SolverStrategy is expected.
+	 */
+	@Override
+	public boolean solve(int[][] sudokuArr)
+	{
+		return solveBoard(sudokuArr);
+	}
+
+	/**
+	 * Same as solveBoard for flat board, which is read and written without going through a matrix.
+	 */
+	@Override
+	public boolean solve(Board board)
+	{
+		return run(null, board);
+	}
+
+	/**
+	 * Returns number of search nodes visited by backtracking (or guesses made by propagator)
+	 * during last solve, 0 if the rules alone solved the board.
+	 */
+	@Override
+	public long getNodeCount()
+	{
+		return nodeCount;
+	}
+
+	/**
+	 * Returns number of cells filled by technique during last solve, before backtracking.
+	 */
+	public long getFillCount(Technique technique)
+	{
+		return fillCounts[technique.ordinal()] + propagator.getFillCount(technique);
+	}
+
+	/**
+	 * Returns number of candidates removed by technique in ConstraintPropagator during last solve.
+	 */
+	public long getEliminationCount(Technique technique)
+	{
+		return propagator.getEliminationCount(technique);
+	}
+
+	/**
+	 * Sets listener told about every following solve, null to stop reporting.
+	 * Listener should not also be set on the backtracking strategy, whose statistics are
+	 * reported from here.
+	 */
+	public void setListener(SolveListener listener)
+	{
+		this.listener = listener;
+	}
+
+	/**
+	 * Sets how much of following solves is traced, and where to.
+	 * @param sink - receives trace, may be null for TraceLevel.OFF
+	 * @throws IllegalArgumentException - if level is not OFF and sink is null
+	 */
+	public void setTrace(TraceLevel level, AsyncTraceSink sink)
+	{
+		if(level != TraceLevel.OFF && sink == null)
+		{
+			throw new IllegalArgumentException("Trace sink is needed for trace level " + level);
+		}
+		this.traceLevel = level;
+		this.traceSink = (level == TraceLevel.OFF) ? null : sink;
+	}
+
 	/**
 	 * Solves the sudoku array for blank spaces
 	 * The steps followed are detailed in the class definition above.
@@ -352,129 +406,195 @@ public class HeursiticAlgo
 	 */
 	public boolean solveBoard(int[][] sudokuArr)
 	{
-		int[][] valuesAllowedBitMap = formBitMapofAllowedValues(sudokuArr);
-		
-		for(int idx=0; idx <9; idx++)
+		return run(sudokuArr, null);
+	}
+
+	/*
+	 * Solves matrix or flat board, whichever is not null, reporting to listener and trace.
+	 */
+	private boolean run(int[][] sudokuArr, Board board)
+	{
+		if(listener == null && traceSink == null)
+		{
+			return applyRules(sudokuArr, board);
+		}
+		long start = System.nanoTime();
+		boolean solved = applyRules(sudokuArr, board);
+		long elapsedNanos = System.nanoTime() - start;
+		int boardDimension = (board != null) ? board.getDimension() : sudokuArr.length;
+
+		if(listener != null)
+		{
+			for(Technique technique : TECHNIQUES)
+			{
+				long filled = getFillCount(technique);
+				if(filled != 0)
+					listener.cellsFilled(technique, filled);
+			}
+			listener.searchFinished(nodeCount, deadEndCount, maxDepth);
+			listener.boardFinished(boardDimension, solved, elapsedNanos);
+		}
+		if(traceSink != null)
+		{
+			traceSink.line(summaryOf(boardDimension, solved, elapsedNanos));
+		}
+		return solved;
+	}
+
+	private String summaryOf(int boardDimension, boolean solved, long elapsedNanos)
+	{
+		StringBuilder sb = new StringBuilder(96);
+		sb.append("board ").append(boardDimension).append('x').append(boardDimension)
+			.append(solved ? " solved" : " has no solution")
+			.append(", cells filled ").append(getFillCount(Technique.NAKED_SINGLE) + getFillCount(Technique.HIDDEN_SINGLE))
+			.append(", nodes ").append(nodeCount)
+			.append(", dead ends ").append(deadEndCount)
+			.append(", max depth ").append(maxDepth)
+			.append(", ").append(elapsedNanos / 1000).append(" us");
+		return sb.toString();
+	}
+
+	private boolean applyRules(int[][] sudokuArr, Board board)
+	{
+		if(board != null)
 		{
-			findOnlyOneValueAllowedinRowOrColumn(idx,idx, valuesAllowedBitMap, sudokuArr);
+			load(board);
 		}
-		
-		for(int idx=0; idx<9; idx++)
+		else if(!load(sudokuArr))
+		{
+			return false;
+		}
+		formAllowedValues();
+
+		for(int idx=0; idx <dimension; idx++)
+		{
+			findOnlyOneValueAllowedinRowOrColumn(idx,idx);
+		}
+
+		for(int idx=0; idx<dimension; idx++)
 		{
-			checkForNakedGroups(idx,idx, valuesAllowedBitMap, sudokuArr);
+			checkForNakedGroups(idx,idx);
 		}
-		
+
 		/* now remove elements in determined cells queue , one by one
 		 * and assign the value in sudoku board
 		 * Remove this element from its row , column and grid.
 		 * and apply Step2 and step3 on the corresponding row, column.
 		 */
-		while(!determinedCellsQueue.isEmpty())
+		while(queueHead < queueTail)
 		{
-			Entry determinedCell = determinedCellsQueue.remove();
-			
-			int rowId = determinedCell.getRowId();
-			int colId = determinedCell.getColId();
-			int ele = determinedCell.getElement();
-			
-			System.out.println(" Element determined is :" + ele + "at (x,y) position :" + "(" + rowId + "," + colId + ")");
-			
-			sudokuArr[rowId][determinedCell.getColId()] = determinedCell.getElement();
-			
-			removeElementFromRowColumnGrid(rowId, colId, valuesAllowedBitMap, ele);
-			
+			int cell = queueCells[queueHead];
+			int ele = queueValues[queueHead];
+			queueHead++;
+			int rowId = geometry.rowOf(cell);
+			int colId = geometry.colOf(cell);
+
+			if(traceLevel == TraceLevel.STEP)
+			{
+				traceSink.step(rowId, colId, ele);
+			}
+
+			cells[cell] = ele;
+
+			removeElementFromRowColumnGrid(cell, ele);
+
 			/* TODO: Is this really needed here ...
 			 * Can removing this element cause something to be unique in cell with other elements.
 			 * If this is case, it would have been found in the first try itself.
 			 */
-			// findOnlyOneValueAllowedinRowOrColumn(rowId, colId, valuesAllowedBitMap, sudokuArr);
-			
-			checkForNakedGroups(rowId, colId, valuesAllowedBitMap, sudokuArr);
+			// findOnlyOneValueAllowedinRowOrColumn(rowId, colId);
+
+			checkForNakedGroups(rowId, colId);
+		}
+
+		if(backTrackingStrategy == null)
+		{
+			/* candidates narrowed down by rules above are kept, guesses are propagated as well */
+			boolean solved = propagator.solve(dimension, cells, allowed);
+			nodeCount = propagator.getNodeCount();
+			deadEndCount = propagator.getDeadEndCount();
+			maxDepth = propagator.getMaxDepth();
+			if(solved)
+			{
+				store(sudokuArr, board);
+			}
+			return solved;
 		}
-		
+
+		/* rules above miss values determined by grids, propagate over all units */
+		store(sudokuArr, board);
+		if(!((board != null) ? propagator.propagate(board) : propagator.propagate(sudokuArr)))
+		{
+			return false;
+		}
+
 		/* If queue is empty and there are still blank spaces,
-		 * apply backtracking algorithm 
+		 * apply backtracking algorithm
 		 */
-		if(hasBlankSpaces(sudokuArr))
+		if(propagator.getBlankCount() > 0)
 		{
-			return new BackTrackingStrategy().solve(sudokuArr);
+			boolean solved = (board != null) ? backTrackingStrategy.solve(board) : backTrackingStrategy.solve(sudokuArr);
+			nodeCount = backTrackingStrategy.getNodeCount();
+			if(backTrackingStrategy instanceof BackTrackingStrategy)
+			{
+				deadEndCount = ((BackTrackingStrategy) backTrackingStrategy).getDeadEndCount();
+				maxDepth = ((BackTrackingStrategy) backTrackingStrategy).getMaxDepth();
+			}
+			return solved;
 		}
-		
+
 		return true;
 	}
-	
-	private boolean hasBlankSpaces(int[][] sudokuArr)
+
+	/* writes cells to matrix or flat board, whichever is not null */
+	private void store(int[][] sudokuArr, Board board)
 	{
-		for(int i=0; i < 9; i++)
-			for(int j=0; j<9; j++)
-			{
-				if(sudokuArr[i][j] == 0)
-				{
-					return true;
-				}
-			}
-		return false;
+		for(int cell = 0; cell < cells.length; cell++)
+		{
+			if(board != null)
+				board.set(cell, cells[cell]);
+			else
+				sudokuArr[geometry.rowOf(cell)][geometry.colOf(cell)] = cells[cell];
+		}
 	}
-	
+
 	/*
 	 * Helper function to remove the determined element from possibility values for other blank cells
 	 * in row ,column and grid.
 	 */
-	private void removeElementFromRowColumnGrid(int rowId, int colId, int[][] valuesAllowedBitMap, int ele)
+	private void removeElementFromRowColumnGrid(int cell, int ele)
 	{
 		int maskForEle = ~( 1 << (ele -1));
 		/* Remove element from other row elements bitmap*/
-		for(int j=0; j<9; j++)
+		for(int other : geometry.cellsOf(geometry.rowUnitOf(cell)))
 		{
-			if(valuesAllowedBitMap[rowId][j] != 0 && valuesAllowedBitMap[rowId][j] != ele)
+			if(allowed[other] != 0 && allowed[other] != ele)
 			{
-				valuesAllowedBitMap[rowId][j] &= maskForEle;
-				
-				if(countBitsSet(valuesAllowedBitMap[rowId][j]) == 1)
-				{
-					int element = (int)(Math.log(valuesAllowedBitMap[rowId][j])/Math.log(2)) + 1;
-					addToQueue(rowId,j, element);
-				}
+				allowed[other] &= maskForEle;
+				queueIfSingle(other, allowed[other]);
 			}
 		}
-		
+
 		/* Remove element from other column elements bitmap */
-		for(int j=0; j<9; j++)
+		for(int other : geometry.cellsOf(geometry.colUnitOf(cell)))
 		{
-			if(valuesAllowedBitMap[j][colId] != 0 && valuesAllowedBitMap[j][colId] != ele)
+			if(allowed[other] != 0 && allowed[other] != ele)
 			{
-				valuesAllowedBitMap[j][colId] &= maskForEle;
-				
-				if(countBitsSet(valuesAllowedBitMap[j][colId]) == 1)
-				{
-					int element = (int)(Math.log(valuesAllowedBitMap[j][colId])/Math.log(2)) + 1;
-					addToQueue(j,colId, element);
-				}
+				allowed[other] &= maskForEle;
+				queueIfSingle(other, allowed[other]);
 			}
 		}
-		
+
 		/* Remove element from other elements in the grid */
-		int gridDimension = 3;
-		int rowGridStart = ((int)(rowId/gridDimension))*gridDimension;
-		int colGridStart = colId - (colId % gridDimension);
-		
-		for(int rowIdx = rowGridStart; rowIdx < rowGridStart + gridDimension; rowIdx++)
+		for(int other : geometry.cellsOf(geometry.boxUnitOf(cell)))
 		{
-			for(int colIdx = colGridStart; colIdx < colGridStart + gridDimension; colIdx++)
+			if(allowed[other] != 0 && allowed[other] != ele)
 			{
-				if(valuesAllowedBitMap[rowIdx][colIdx] != 0 && valuesAllowedBitMap[rowIdx][colIdx] != ele)
-				{
-					valuesAllowedBitMap[rowIdx][colIdx] &= maskForEle;
-				}
-				
-				if(countBitsSet(valuesAllowedBitMap[rowIdx][colIdx]) == 1)
-				{
-					int element = (int)(Math.log(valuesAllowedBitMap[rowIdx][colIdx])/Math.log(2)) + 1;
-					addToQueue(rowIdx,colIdx, element);
-				}
+				allowed[other] &= maskForEle;
 			}
+			queueIfSingle(other, allowed[other]);
 		}
-		
-		valuesAllowedBitMap[rowId][colId] = 0;
+
+		allowed[cell] = 0;
 	}
 }
@@ -0,0 +1,476 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.gmail.aparna14.sudokuh.data.BatchResult;
+import com.gmail.aparna14.sudokuh.data.Board;
+import com.gmail.aparna14.sudokuh.data.BoardGeometry;
+
+/**
+ * This class propagates many boards of one dimension at once, one board per lane, in lockstep.
+ * Working arrays are laid out lane innermost (index cell * laneCount + lane), and every pass is a
+ * loop over cells or units around a branch free loop over lanes, so all lanes take the same
+ * control flow.
+ *
+ * Passes run on VectorLaneKernel, which works on IntVector blocks of lanes with jdk.incubator.vector,
+ * when the JVM has that module resolved (java --add-modules jdk.incubator.vector), the kernel class
+ * is on the class path and lane count is a multiple of the vector length. The kernel lives in its own
+ * source root, vector/src, compiled with the same option, so this class needs neither to build.
+ * Otherwise the plain Java loops of this class run, whether they become SIMD instructions
+ * is then left to the JIT.
+ *
+ * Placed values are kept as bits. Each pass:
+ * 1. ORs placed bits of every row, column and grid, a value placed twice marks the lane dead.
+ * 2. computes candidates of blank cells, a blank cell without candidate marks the lane dead,
+ *    and places every naked single.
+ * 3. places every hidden single of every unit, a cell getting two of them marks the lane dead.
+ * All deductions of a pass are made from the same candidates. They hold in every solution,
+ * so a dead lane proves its board has no solution. Passes repeat until no lane changes.
+ *
+ * Boards propagation alone solves are written back. Boards left with blank cells get the values
+ * propagation placed and are solved from there by a BatchSolver with the fallback solver
+ * (HeursiticAlgo by default), so the fallback does not repeat the work. Boards of other dimension
+ * than the boards around them go to the fallback directly. Like BatchSolver, board which
+ * can not be solved is left holding its original values.
+ *
+ * Propagation pays only when it finishes boards. When it finishes less than half the boards
+ * of a group, as on hard puzzles, the next groups go to the fallback directly before lanes are
+ * tried again: BYPASS_GROUPS groups at first, twice as many after every further such group, up to
+ * MAX_BYPASS_GROUPS. So batches of hard boards cost about what BatchSolver costs.
+ * Working arrays are allocated once per dimension and lane count. Instance is not thread safe.
+ * @author aparna
+ *
+ */
+public class LaneBatchSolver
+{
+	public static final int DEFAULT_LANE_COUNT = 16;
+
+	/* groups solved by fallback alone after propagation finished too few boards */
+	static final int BYPASS_GROUPS = 8;
+
+	static final int MAX_BYPASS_GROUPS = 128;
+
+	private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+	private static final String VECTOR_KERNEL_CLASS = "com.gmail.aparna14.sudokuh.algo.VectorLaneKernel";
+
+	/* working arrays are read by LaneKernel too */
+	final int laneCount;
+
+	private final BatchSolver fallback;
+
+	/* null, if passes run on scalar loops */
+	private final LaneKernel vectorKernel;
+
+	BoardGeometry geometry;
+
+	/* per cell and lane: bit of placed value, 0 for blank */
+	int[] placed;
+
+	/* per cell and lane: candidates of blank cell in current pass */
+	int[] candidates;
+
+	/* per unit and lane: values placed */
+	int[] unitUsed;
+
+	/* per lane: values of current unit seen once / at least twice */
+	private int[] once;
+	private int[] twice;
+
+	/* per lane: non zero once lane is dead / changed in current pass / has blank cells */
+	int[] dead;
+	int[] changed;
+	int[] blank;
+
+	/* boards in the lanes, used lanes are 0 to boardCount - 1 */
+	private final Board[] lanes;
+
+	/* values of each lane's board as loaded, restored if the fallback finds no solution */
+	private Board[] originals;
+
+	private int boardCount;
+
+	/* groups still to go to the fallback directly, and how many go after next unpaid propagation */
+	private int bypassedGroups;
+	private int bypassLength = BYPASS_GROUPS;
+
+	public LaneBatchSolver()
+	{
+		this(DEFAULT_LANE_COUNT, new HeursiticAlgo());
+	}
+
+	/**
+	 * @param laneCount - boards propagated together
+	 * @param fallback - solves boards propagation leaves unsolved
+	 * @throws IllegalArgumentException - if laneCount is less than 1
+	 */
+	public LaneBatchSolver(int laneCount, SolverStrategy fallback)
+	{
+		if(laneCount < 1)
+		{
+			throw new IllegalArgumentException("Lane count must be at least 1 :" + laneCount);
+		}
+		this.laneCount = laneCount;
+		this.fallback = new BatchSolver(fallback);
+		this.lanes = new Board[laneCount];
+		this.vectorKernel = loadVectorKernel(laneCount);
+	}
+
+	public int getLaneCount()
+	{
+		return laneCount;
+	}
+
+	/**
+	 * Returns true, if passes run on VectorLaneKernel.
+	 */
+	public boolean isVectorized()
+	{
+		return vectorKernel != null;
+	}
+
+	/*
+	 * Returns VectorLaneKernel, if it can run with this JVM and lane count, else null.
+	 * Kernel class is loaded by name only once the module is known to be there,
+	 * it would fail to link otherwise.
+	 */
+	private static LaneKernel loadVectorKernel(int laneCount)
+	{
+		if(!ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent())
+		{
+			return null;
+		}
+		try
+		{
+			LaneKernel kernel = (LaneKernel) Class.forName(VECTOR_KERNEL_CLASS).getDeclaredConstructor().newInstance();
+			return kernel.supports(laneCount) ? kernel : null;
+		}
+		catch(ReflectiveOperationException | LinkageError e)
+		{
+			/* kernel not built, scalar loops run */
+			return null;
+		}
+	}
+
+	/**
+	 * Solves every board of the list, laneCount consecutive boards of one dimension at a time.
+	 * @param boards - flat boards, solved in place
+	 * @return result holding which boards were solved and time taken
+	 */
+	public BatchResult solveBoards(List<Board> boards)
+	{
+		boolean[] solved = new boolean[boards.size()];
+		int solvedCount = 0;
+		long start = System.nanoTime();
+
+		int from = 0;
+		while(from < boards.size())
+		{
+			int dimension = boards.get(from).getDimension();
+			int to = from;
+			while(to < boards.size() && to - from < laneCount && boards.get(to).getDimension() == dimension)
+			{
+				to++;
+			}
+			if(to - from == 1 || bypassedGroups > 0)
+			{
+				/* nothing to share the pass with, or propagation did not pay lately */
+				for(int idx = from; idx < to; idx++)
+				{
+					solved[idx] = fallback.solve(boards.get(idx));
+				}
+				if(to - from > 1)
+					bypassedGroups--;
+			}
+			else if(solveGroup(boards, from, to, solved) * 2 < to - from)
+			{
+				bypassedGroups = bypassLength;
+				bypassLength = Math.min(bypassLength * 2, MAX_BYPASS_GROUPS);
+			}
+			else
+			{
+				bypassLength = BYPASS_GROUPS;
+			}
+			for(int idx = from; idx < to; idx++)
+			{
+				if(solved[idx])
+					solvedCount++;
+			}
+			from = to;
+		}
+		return new BatchResult(solved, solvedCount, System.nanoTime() - start);
+	}
+
+	/*
+	 * Propagates boards [from, to) in lanes, then solves those left with blank cells one by one.
+	 * Returns number of boards propagation alone solved or proved unsolvable.
+	 */
+	private int solveGroup(List<Board> boards, int from, int to, boolean[] solved)
+	{
+		int finished = 0;
+		boardCount = to - from;
+		for(int lane = 0; lane < boardCount; lane++)
+		{
+			lanes[lane] = boards.get(from + lane);
+		}
+		load();
+		propagate();
+
+		for(int lane = 0; lane < boardCount; lane++)
+		{
+			if(dead[lane] != 0)
+			{
+				solved[from + lane] = false;
+				finished++;
+			}
+			else if(blank[lane] == 0)
+			{
+				store(lane);
+				solved[from + lane] = true;
+				finished++;
+			}
+			else
+			{
+				/* fallback starts from the propagated values, BatchSolver restores those on failure */
+				store(lane);
+				solved[from + lane] = fallback.solve(lanes[lane]);
+				if(!solved[from + lane])
+					lanes[lane].copyFrom(originals[lane]);
+			}
+			lanes[lane] = null;
+		}
+		return finished;
+	}
+
+	private void ensureCapacity(int dimension)
+	{
+		if(geometry != null && geometry.getDimension() == dimension)
+		{
+			return;
+		}
+		geometry = BoardGeometry.forDimension(dimension);
+		placed = new int[geometry.getCellCount() * laneCount];
+		candidates = new int[geometry.getCellCount() * laneCount];
+		unitUsed = new int[geometry.getUnitCount() * laneCount];
+		once = new int[laneCount];
+		twice = new int[laneCount];
+		dead = new int[laneCount];
+		changed = new int[laneCount];
+		blank = new int[laneCount];
+		originals = new Board[laneCount];
+		for(int lane = 0; lane < laneCount; lane++)
+		{
+			originals[lane] = new Board(dimension);
+		}
+	}
+
+	/*
+	 * Copies boards into placed. Unused lanes are blank boards marked dead, so they never count as changed.
+	 */
+	private void load()
+	{
+		ensureCapacity(lanes[0].getDimension());
+		int cellCount = geometry.getCellCount();
+		for(int cell = 0; cell < cellCount; cell++)
+		{
+			int base = cell * laneCount;
+			for(int lane = 0; lane < boardCount; lane++)
+			{
+				int value = lanes[lane].get(cell);
+				placed[base + lane] = (value == 0) ? 0 : 1 << (value - 1);
+			}
+			for(int lane = boardCount; lane < laneCount; lane++)
+			{
+				placed[base + lane] = 0;
+			}
+		}
+		for(int lane = 0; lane < boardCount; lane++)
+		{
+			originals[lane].copyFrom(lanes[lane]);
+		}
+		Arrays.fill(dead, 0);
+		for(int lane = boardCount; lane < laneCount; lane++)
+		{
+			dead[lane] = 1;
+		}
+	}
+
+	/*
+	 * Writes placed values of lane to its board, blank cells stay 0.
+	 */
+	private void store(int lane)
+	{
+		Board board = lanes[lane];
+		int cellCount = geometry.getCellCount();
+		for(int cell = 0; cell < cellCount; cell++)
+		{
+			int bit = placed[cell * laneCount + lane];
+			board.set(cell, (bit == 0) ? 0 : Integer.numberOfTrailingZeros(bit) + 1);
+		}
+	}
+
+	/*
+	 * Runs passes until no live lane changes.
+	 */
+	private void propagate()
+	{
+		while(true)
+		{
+			Arrays.fill(changed, 0);
+			Arrays.fill(blank, 0);
+			int units = geometry.getUnitCount();
+			if(vectorKernel != null)
+			{
+				vectorKernel.formUnitMasks(this);
+				vectorKernel.placeNakedSingles(this);
+				for(int unit = 0; unit < units; unit++)
+				{
+					vectorKernel.placeHiddenSingles(this, geometry.cellsOf(unit));
+				}
+			}
+			else
+			{
+				formUnitMasks();
+				placeNakedSingles();
+				for(int unit = 0; unit < units; unit++)
+				{
+					placeHiddenSingles(geometry.cellsOf(unit));
+				}
+			}
+
+			boolean progress = false;
+			for(int lane = 0; lane < laneCount; lane++)
+			{
+				if(dead[lane] == 0 && changed[lane] != 0)
+					progress = true;
+			}
+			if(!progress)
+			{
+				/* blank counts of the last pass are still current */
+				return;
+			}
+		}
+	}
+
+	/*
+	 * ORs placed bits of each unit, a bit placed twice in a unit kills the lane.
+	 * Kernels copy fields to locals, so the JIT can drop bounds checks of the lane loops.
+	 */
+	private void formUnitMasks()
+	{
+		int lanes = laneCount;
+		int[] placed = this.placed;
+		int[] unitUsed = this.unitUsed;
+		int[] once = this.once;
+		int[] twice = this.twice;
+		int[] dead = this.dead;
+		int units = geometry.getUnitCount();
+		for(int unit = 0; unit < units; unit++)
+		{
+			Arrays.fill(once, 0);
+			Arrays.fill(twice, 0);
+			for(int cell : geometry.cellsOf(unit))
+			{
+				int base = cell * lanes;
+				for(int lane = 0; lane < lanes; lane++)
+				{
+					int bit = placed[base + lane];
+					twice[lane] |= once[lane] & bit;
+					once[lane] |= bit;
+				}
+			}
+			int unitBase = unit * lanes;
+			for(int lane = 0; lane < lanes; lane++)
+			{
+				unitUsed[unitBase + lane] = once[lane];
+				dead[lane] |= twice[lane];
+			}
+		}
+	}
+
+	/*
+	 * Candidates of blank cells are values not used by their units, single candidate is placed
+	 * and added to its units at once, so cells after it in the same pass see it.
+	 * A value placed twice in a unit thus leaves the second cell without candidate, killing the lane.
+	 * Placed cells keep their bit as candidate, so hidden singles of the pass still see them.
+	 */
+	private void placeNakedSingles()
+	{
+		int lanes = laneCount;
+		int[] placed = this.placed;
+		int[] candidates = this.candidates;
+		int[] unitUsed = this.unitUsed;
+		int[] dead = this.dead;
+		int[] changed = this.changed;
+		int[] blank = this.blank;
+		int allValues = geometry.getAllValuesMask();
+		int cellCount = geometry.getCellCount();
+		for(int cell = 0; cell < cellCount; cell++)
+		{
+			int base = cell * lanes;
+			int rowBase = geometry.rowUnitOf(cell) * lanes;
+			int colBase = geometry.colUnitOf(cell) * lanes;
+			int boxBase = geometry.boxUnitOf(cell) * lanes;
+			for(int lane = 0; lane < lanes; lane++)
+			{
+				int bit = placed[base + lane];
+				/* -1 for blank cell, 0 for placed one */
+				int blankMask = (bit - 1) >> 31;
+				int cellCandidates = allValues & ~(unitUsed[rowBase + lane] | unitUsed[colBase + lane] | unitUsed[boxBase + lane]);
+				cellCandidates = (cellCandidates & blankMask) | bit;
+				/* -1 if cell has no value and no candidate */
+				dead[lane] |= (cellCandidates - 1) >> 31;
+				/* -1 if blank cell has exactly one candidate */
+				int single = ((cellCandidates & (cellCandidates - 1)) - 1) >> 31 & blankMask;
+				int newBit = cellCandidates & single;
+				placed[base + lane] = bit | newBit;
+				unitUsed[rowBase + lane] |= newBit;
+				unitUsed[colBase + lane] |= newBit;
+				unitUsed[boxBase + lane] |= newBit;
+				changed[lane] |= newBit;
+				blank[lane] |= blankMask & ~single;
+				candidates[base + lane] = cellCandidates;
+			}
+		}
+	}
+
+	/*
+	 * Places values which are candidates of exactly one cell of the unit.
+	 */
+	private void placeHiddenSingles(int[] unitCells)
+	{
+		int lanes = laneCount;
+		int[] placed = this.placed;
+		int[] candidates = this.candidates;
+		int[] once = this.once;
+		int[] twice = this.twice;
+		int[] dead = this.dead;
+		int[] changed = this.changed;
+		Arrays.fill(once, 0);
+		Arrays.fill(twice, 0);
+		for(int cell : unitCells)
+		{
+			int base = cell * lanes;
+			for(int lane = 0; lane < lanes; lane++)
+			{
+				int cellCandidates = candidates[base + lane];
+				twice[lane] |= once[lane] & cellCandidates;
+				once[lane] |= cellCandidates;
+			}
+		}
+		for(int cell : unitCells)
+		{
+			int base = cell * lanes;
+			for(int lane = 0; lane < lanes; lane++)
+			{
+				int bit = placed[base + lane];
+				int hidden = candidates[base + lane] & once[lane] & ~twice[lane] & ((bit - 1) >> 31);
+				/* two hidden singles in one cell */
+				dead[lane] |= hidden & (hidden - 1);
+				placed[base + lane] = bit | hidden;
+				changed[lane] |= hidden;
+			}
+		}
+	}
+}
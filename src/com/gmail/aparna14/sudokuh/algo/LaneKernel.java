@@ -0,0 +1,32 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+/**
+ * Passes of LaneBatchSolver over its lane innermost working arrays, done by other code than
+ * the solver's own scalar loops. Every pass must make the same deductions as the scalar one,
+ * lane by lane, so results do not depend on which kernel ran.
+ * Kernel keeps no state between calls, one instance may serve one solver.
+ * @author aparna
+ *
+ */
+interface LaneKernel
+{
+	/**
+	 * Returns true, if passes can run on arrays of given lane count.
+	 */
+	boolean supports(int laneCount);
+
+	/**
+	 * ORs placed bits of every unit into unitUsed, a bit placed twice in a unit kills the lane.
+	 */
+	void formUnitMasks(LaneBatchSolver solver);
+
+	/**
+	 * Computes candidates of every cell and places naked singles, adding them to their units at once.
+	 */
+	void placeNakedSingles(LaneBatchSolver solver);
+
+	/**
+	 * Places values which are candidates of exactly one cell of the unit.
+	 */
+	void placeHiddenSingles(LaneBatchSolver solver, int[] unitCells);
+}
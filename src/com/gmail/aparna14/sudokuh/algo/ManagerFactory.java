@@ -13,6 +13,8 @@ public class ManagerFactory
 {
 	private static CSVFileManager csvFileManager = null;
 	
+	private static BinaryFileManager binaryFileManager = null;
+	
 	public static synchronized CSVFileManager getCSVFileManager()
 	{
 		if(csvFileManager == null)
@@ -20,5 +22,14 @@ public class ManagerFactory
 			csvFileManager = new CSVFileManagerImpl();
 		}
 		return csvFileManager;
-	}	
+	}
+
+	public static synchronized BinaryFileManager getBinaryFileManager()
+	{
+		if(binaryFileManager == null)
+		{
+			binaryFileManager = new BinaryFileManagerImpl();
+		}
+		return binaryFileManager;
+	}
 }
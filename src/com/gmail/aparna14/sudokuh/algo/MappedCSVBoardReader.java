@@ -0,0 +1,252 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class reads large csv file of boards separated by blank lines, as written by
+ * CSVFileManager.writeBoardsToFile, through memory mapping.
+ * The file is not mapped as a whole: every chunk maps a window of the file at a time
+ * and moves it forward while boards are read, so memory used stays bounded by
+ * the window size, whatever the file size. StreamingCSVParser reads the mapped window itself,
+ * bytes are neither copied to heap nor turned into String.
+ *
+ * For parallel reading, file is split into chunks starting at board boundaries.
+ * Boundary is looked up in one window mapped at the split offset, and that same window
+ * is kept as the first window of the chunk starting there, so splitting maps nothing extra
+ * unless a board is longer than the window.
+ * Every chunk opens its own parser, which may be used by one worker thread.
+ * Note that board number in error message counts from the start of the chunk.
+ * @author aparna
+ *
+ */
+public class MappedCSVBoardReader implements Closeable
+{
+	/* size of file region mapped at a time by one chunk */
+	public static final int DEFAULT_WINDOW_SIZE = 1 << 24;
+
+	/* mapping is released only when collected, tiny windows would pile up mappings */
+	public static final int MIN_WINDOW_SIZE = 1 << 16;
+
+	private final RandomAccessFile file;
+
+	private final FileChannel channel;
+
+	private final long size;
+
+	private final int windowSize;
+
+	public MappedCSVBoardReader(String path) throws IOException
+	{
+		this(path, DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * @param path - csv file of boards
+	 * @param windowSize - size of file region mapped at a time by one chunk, at least MIN_WINDOW_SIZE
+	 */
+	public MappedCSVBoardReader(String path, int windowSize) throws IOException
+	{
+		if(windowSize < MIN_WINDOW_SIZE)
+		{
+			throw new IllegalArgumentException("Window size must be at least " + MIN_WINDOW_SIZE + ": " + windowSize);
+		}
+		this.file = new RandomAccessFile(new File(path), "r");
+		this.channel = file.getChannel();
+		this.size = channel.size();
+		this.windowSize = windowSize;
+	}
+
+	public long size()
+	{
+		return size;
+	}
+
+	/**
+	 * Returns chunk covering the whole file.
+	 */
+	public Chunk wholeFile()
+	{
+		return new Chunk(0, size, null);
+	}
+
+	/**
+	 * Splits file into at most chunkCount chunks of about equal size.
+	 * Chunk boundaries are placed after blank line, so no board is split.
+	 * Fewer chunks are returned if file has fewer boundaries.
+	 */
+	public List<Chunk> split(int chunkCount) throws IOException
+	{
+		List<Chunk> chunks = new ArrayList<Chunk>(chunkCount);
+		long start = 0;
+		ByteBuffer head = null;
+		for(int idx = 1; idx < chunkCount && start < size; idx++)
+		{
+			Boundary boundary = nextBoundary(Math.max(start, size * idx / chunkCount));
+			if(boundary.offset >= size)
+				break;
+			if(boundary.offset > start)
+			{
+				chunks.add(new Chunk(start, boundary.offset, head));
+				start = boundary.offset;
+				head = boundary.window;
+			}
+		}
+		chunks.add(new Chunk(start, size, head));
+		return chunks;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		file.close();
+	}
+
+	/*
+	 * Finds offset just after first blank line starting after offset, or file size if there is none.
+	 * Blank line contains only white space, like in StreamingCSVParser.
+	 * Windows of windowSize are mapped from offset on, normally the first already holds the boundary.
+	 */
+	private Boundary nextBoundary(long offset) throws IOException
+	{
+		/* line containing offset is not known to start there, hence it never counts as blank */
+		boolean lineStarted = false;
+		boolean lineBlank = false;
+		int previous = -1;
+		for(long windowStart = offset; windowStart < size; windowStart += windowSize)
+		{
+			MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart,
+					Math.min(windowSize, size - windowStart));
+			for(int idx = 0; idx < window.limit(); idx++)
+			{
+				int b = window.get(idx) & 0xFF;
+				if(b == '\n' || b == '\r')
+				{
+					/* "\r\n" is one line end */
+					if(!(b == '\n' && previous == '\r'))
+					{
+						if(lineStarted && lineBlank)
+						{
+							window.position(idx + 1);
+							return new Boundary(windowStart + idx + 1, window.slice());
+						}
+						lineStarted = true;
+						lineBlank = true;
+					}
+				}
+				else if(b > ' ')
+				{
+					lineBlank = false;
+				}
+				previous = b;
+			}
+		}
+		return new Boundary(size, null);
+	}
+
+	/*
+	 * Board boundary, with rest of the window it was found in.
+	 */
+	private static class Boundary
+	{
+		final long offset;
+
+		/* mapped bytes from offset on, null at end of file */
+		final ByteBuffer window;
+
+		Boundary(long offset, ByteBuffer window)
+		{
+			this.offset = offset;
+			this.window = window;
+		}
+	}
+
+	/**
+	 * Region of the file holding whole boards.
+	 */
+	public class Chunk
+	{
+		private final long start;
+
+		private final long end;
+
+		/* already mapped bytes from start on, read before mapping more, may be null */
+		private final ByteBuffer head;
+
+		Chunk(long start, long end, ByteBuffer head)
+		{
+			this.start = start;
+			this.end = end;
+			if(head != null && head.limit() > end - start)
+			{
+				head.limit((int)(end - start));
+			}
+			this.head = head;
+		}
+
+		public long getStart()
+		{
+			return start;
+		}
+
+		public long getEnd()
+		{
+			return end;
+		}
+
+		/**
+		 * Returns parser reading boards of this chunk, call nextBoard until it returns null.
+		 * Parser is not thread safe, chunk may be opened many times.
+		 */
+		public StreamingCSVParser open()
+		{
+			MappedChunkParser parser = new MappedChunkParser(start, end);
+			if(head != null)
+			{
+				/* own position per parser, mapping is shared */
+				parser.buffer = head.duplicate();
+				parser.next = start + head.limit();
+			}
+			return parser;
+		}
+	}
+
+	/*
+	 * Supplies mapped windows of chunk to the parser, one after another.
+	 * Mapped window becomes the parser buffer, so boards are parsed from mapped bytes.
+	 * Previous window is dropped when next is mapped, and is unmapped once collected.
+	 */
+	private class MappedChunkParser extends StreamingCSVParser
+	{
+		private long next;
+
+		private final long end;
+
+		MappedChunkParser(long start, long end)
+		{
+			super(true);
+			this.next = start;
+			this.end = end;
+		}
+
+		@Override
+		protected boolean fill() throws IOException
+		{
+			if(next >= end)
+			{
+				return false;
+			}
+			long length = Math.min(windowSize, end - next);
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, next, length);
+			next += length;
+			return true;
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+/**
+ * This class finds naked subsets among candidate bitmaps of the blank cells of one unit.
+ * A naked subset is k cells whose candidates together hold only k values (e.g. {1,2}, {2,3}, {1,3}),
+ * the cells need not hold identical candidates. These k values then go into these k cells,
+ * so they can be removed from every other cell of the unit.
+ *
+ * Cell sets are enumerated as submasks of the unit's cells, adding one cell at a time in index order,
+ * and a branch is dropped as soon as its union of candidates has more than maxSize values.
+ * Only ints are used, nothing is allocated.
+ * @author aparna
+ *
+ */
+final class NakedSubsets
+{
+	/* returned when more cells than values are found, unit has no solution */
+	static final long CONTRADICTION = -1L;
+
+	private NakedSubsets()
+	{
+	}
+
+	/**
+	 * Finds a naked subset of 2 to maxSize cells, whose values are still candidates of some other cell.
+	 * @param masks - candidate bitmap of each cell of unit, 0 for filled cell
+	 * @param count - number of cells in masks, at most 31
+	 * @param maxSize - largest subset searched for
+	 * @return 0 if no such subset exists, CONTRADICTION if some cells share fewer values than their number,
+	 * else bitmap of subset's cells (bit i for masks[i]) in upper 32 bits and bitmap of its values in lower 32 bits
+	 */
+	static long find(int[] masks, int count, int maxSize)
+	{
+		/* cells which can belong to a subset, cells with one candidate are left to naked singles */
+		int eligible = 0;
+		for(int idx = 0; idx < count; idx++)
+		{
+			int size = Integer.bitCount(masks[idx]);
+			if(size >= 2 && size <= maxSize)
+			{
+				eligible |= 1 << idx;
+			}
+		}
+		if(Integer.bitCount(eligible) < 2)
+		{
+			return 0;
+		}
+		return extend(masks, count, maxSize, eligible, 0, 0);
+	}
+
+	/*
+	 * Tries subsets formed by adding one eligible cell after the last chosen one.
+	 */
+	private static long extend(int[] masks, int count, int maxSize, int eligible, int chosen, int union)
+	{
+		/* cells after the highest chosen one */
+		int remaining = (chosen == 0) ? eligible : eligible & ~((Integer.highestOneBit(chosen) << 1) - 1);
+		while(remaining != 0)
+		{
+			int cellBit = remaining & -remaining;
+			remaining &= remaining - 1;
+			int cells = chosen | cellBit;
+			int values = union | masks[Integer.numberOfTrailingZeros(cellBit)];
+			int valueCount = Integer.bitCount(values);
+			if(valueCount > maxSize)
+			{
+				continue;
+			}
+
+			int cellCount = Integer.bitCount(cells);
+			if(cellCount > valueCount)
+			{
+				return CONTRADICTION;
+			}
+			if(cellCount == valueCount)
+			{
+				if(removesCandidates(masks, count, cells, values))
+				{
+					return ((long)cells << 32) | (values & 0xFFFFFFFFL);
+				}
+				/* adding cells to a complete subset only finds the same values again */
+				continue;
+			}
+			/* subset needs valueCount - cellCount more cells, taken from cells after this one */
+			if(Integer.bitCount(remaining) >= valueCount - cellCount)
+			{
+				long found = extend(masks, count, maxSize, eligible, cells, values);
+				if(found != 0)
+				{
+					return found;
+				}
+			}
+		}
+		return 0;
+	}
+
+	private static boolean removesCandidates(int[] masks, int count, int cells, int values)
+	{
+		for(int idx = 0; idx < count; idx++)
+		{
+			if((cells & (1 << idx)) == 0 && (masks[idx] & values) != 0)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	static int cellsOf(long subset)
+	{
+		return (int)(subset >>> 32);
+	}
+
+	static int valuesOf(long subset)
+	{
+		return (int)subset;
+	}
+}
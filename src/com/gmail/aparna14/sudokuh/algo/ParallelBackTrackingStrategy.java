@@ -0,0 +1,292 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.gmail.aparna14.sudokuh.data.BoardGeometry;
+
+/**
+ * This class searches single hard board on many threads.
+ * Board is first searched sequentially upto a node threshold, so easy boards
+ * never pay for task creation. If not solved by then, the part of the search tree the
+ * sequential search did not reach is forked: every value not yet tried on its search path
+ * becomes independent subtask on ForkJoinPool, with its own copy of the board, so nodes
+ * already searched are not searched again. Subtasks near the root, being the largest, are
+ * further split at the next few branching cells (fewest feasible values first).
+ * Subtasks below split depth are searched by BitMaskBackTrackingStrategy instances kept by
+ * this strategy and lent to one subtask at a time, so no scratch outlives the strategy
+ * on the pool's threads.
+ * First subtask finding solution publishes it and raises cancel flag, which stops the others.
+ * @author aparna
+ *
+ */
+public class ParallelBackTrackingStrategy implements SolverStrategy
+{
+	/* nodes searched sequentially before splitting the search tree */
+	public static final long DEFAULT_SEQUENTIAL_NODE_THRESHOLD = 20000;
+
+	/* number of branching cells, whose values become separate subtasks */
+	public static final int DEFAULT_SPLIT_DEPTH = 3;
+
+	private final ForkJoinPool pool;
+
+	private final long sequentialNodeThreshold;
+
+	private final int splitDepth;
+
+	private final BitMaskBackTrackingStrategy sequentialSolver = new BitMaskBackTrackingStrategy(CellOrdering.MINIMUM_REMAINING_VALUES);
+
+	/* solvers not in use by a subtask, at most one per pool thread is ever created */
+	private final Queue<BitMaskBackTrackingStrategy> idleSolvers = new ConcurrentLinkedQueue<BitMaskBackTrackingStrategy>();
+
+	private long nodeCount;
+
+	public ParallelBackTrackingStrategy()
+	{
+		this(ForkJoinPool.commonPool(), DEFAULT_SEQUENTIAL_NODE_THRESHOLD, DEFAULT_SPLIT_DEPTH);
+	}
+
+	/**
+	 * @param pool - pool running the subtasks
+	 * @param sequentialNodeThreshold - boards needing fewer nodes are solved on calling thread only
+	 * @param splitDepth - number of branching cells split into subtasks
+	 */
+	public ParallelBackTrackingStrategy(ForkJoinPool pool, long sequentialNodeThreshold, int splitDepth)
+	{
+		this.pool = pool;
+		this.sequentialNodeThreshold = sequentialNodeThreshold;
+		this.splitDepth = splitDepth;
+	}
+
+	/**
+	 * This function solves for the missing spaces in sudoku board.
+	 * Instance may be used by one calling thread at a time.
+	 */
+	@Override
+	public boolean solve(int[][] sudokuArr)
+	{
+		boolean solved = sequentialSolver.solve(sudokuArr, sequentialNodeThreshold, null);
+		nodeCount = sequentialSolver.getNodeCount();
+		if(solved || !sequentialSolver.wasAborted())
+		{
+			return solved;
+		}
+
+		AtomicReference<int[][]> solution = new AtomicReference<int[][]>();
+		AtomicBoolean cancelFlag = new AtomicBoolean();
+		AtomicLong subtaskNodes = new AtomicLong();
+		pool.invoke(new FrontierTask(forkFrontier(sudokuArr, solution, cancelFlag, subtaskNodes)));
+		nodeCount += subtaskNodes.get();
+
+		if(solution.get() == null)
+		{
+			return false;
+		}
+		for(int row = 0; row < sudokuArr.length; row++)
+		{
+			System.arraycopy(solution.get()[row], 0, sudokuArr[row], 0, sudokuArr.length);
+		}
+		return true;
+	}
+
+	/**
+	 * Returns number of values tried during last solve, summed over all subtasks.
+	 */
+	@Override
+	public long getNodeCount()
+	{
+		return nodeCount;
+	}
+
+	/*
+	 * One subtask per untried value of each level of the aborted sequential search.
+	 * Subtask at level L splits splitDepth - L more levels, deeper ones are searched whole.
+	 */
+	private List<SubtreeTask> forkFrontier(int[][] sudokuArr, AtomicReference<int[][]> solution,
+			AtomicBoolean cancelFlag, AtomicLong subtaskNodes)
+	{
+		int dimension = sudokuArr.length;
+		int[][] path = copyOf(sudokuArr);
+		List<SubtreeTask> subtasks = new ArrayList<SubtreeTask>();
+		for(int level = 0; level < sequentialSolver.getFrontierDepth(); level++)
+		{
+			int cell = sequentialSolver.getFrontierCell(level);
+			int untried = sequentialSolver.getFrontierUntried(level);
+			while(untried != 0)
+			{
+				int bit = untried & -untried;
+				untried ^= bit;
+				int[][] childBoard = copyOf(path);
+				childBoard[cell / dimension][cell % dimension] = Integer.numberOfTrailingZeros(bit) + 1;
+				subtasks.add(new SubtreeTask(childBoard, Math.min(level, splitDepth), solution, cancelFlag, subtaskNodes));
+			}
+			path[cell / dimension][cell % dimension] = sequentialSolver.getFrontierValue(level);
+		}
+		return subtasks;
+	}
+
+	private static int[][] copyOf(int[][] board)
+	{
+		int[][] copy = new int[board.length][];
+		for(int row = 0; row < board.length; row++)
+		{
+			copy[row] = board[row].clone();
+		}
+		return copy;
+	}
+
+	/*
+	 * Runs the frontier subtasks.
+	 */
+	private static class FrontierTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final List<SubtreeTask> subtasks;
+
+		FrontierTask(List<SubtreeTask> subtasks)
+		{
+			this.subtasks = subtasks;
+		}
+
+		@Override
+		protected void compute()
+		{
+			invokeAll(subtasks);
+		}
+	}
+
+	/*
+	 * Searches the subtree below board. Board is owned by the task.
+	 */
+	private class SubtreeTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int[][] board;
+		private final int depth;
+		private final AtomicReference<int[][]> solution;
+		private final AtomicBoolean cancelFlag;
+		private final AtomicLong subtaskNodes;
+
+		SubtreeTask(int[][] board, int depth, AtomicReference<int[][]> solution,
+				AtomicBoolean cancelFlag, AtomicLong subtaskNodes)
+		{
+			this.board = board;
+			this.depth = depth;
+			this.solution = solution;
+			this.cancelFlag = cancelFlag;
+			this.subtaskNodes = subtaskNodes;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if(cancelFlag.get())
+			{
+				return;
+			}
+
+			if(depth == splitDepth)
+			{
+				BitMaskBackTrackingStrategy solver = idleSolvers.poll();
+				if(solver == null)
+				{
+					solver = new BitMaskBackTrackingStrategy(CellOrdering.MINIMUM_REMAINING_VALUES);
+				}
+				boolean solved;
+				try
+				{
+					solved = solver.solve(board, Long.MAX_VALUE, cancelFlag);
+					subtaskNodes.addAndGet(solver.getNodeCount());
+				}
+				finally
+				{
+					idleSolvers.offer(solver);
+				}
+				if(solved && solution.compareAndSet(null, board))
+				{
+					cancelFlag.set(true);
+				}
+				return;
+			}
+
+			int[] branch = findBranchingCell();
+			if(branch == null)
+			{
+				return;
+			}
+			int cell = branch[0];
+			int feasible = branch[1];
+			int dimension = board.length;
+
+			List<SubtreeTask> subtasks = new ArrayList<SubtreeTask>();
+			while(feasible != 0)
+			{
+				int bit = feasible & -feasible;
+				feasible ^= bit;
+				int[][] childBoard = copyOf(board);
+				childBoard[cell / dimension][cell % dimension] = Integer.numberOfTrailingZeros(bit) + 1;
+				subtasks.add(new SubtreeTask(childBoard, depth + 1, solution, cancelFlag, subtaskNodes));
+			}
+			invokeAll(subtasks);
+		}
+
+		/*
+		 * Returns {cell, feasible values bitmap} of blank cell with fewest feasible values,
+		 * or null if some blank cell has no feasible value.
+		 * Board without blank cell is published as solution.
+		 */
+		private int[] findBranchingCell()
+		{
+			BoardGeometry geometry = BoardGeometry.forDimension(board.length);
+			int dimension = geometry.getDimension();
+			int[] rowMask = new int[dimension];
+			int[] colMask = new int[dimension];
+			int[] boxMask = new int[dimension];
+			for(int cell = 0; cell < geometry.getCellCount(); cell++)
+			{
+				int value = board[geometry.rowOf(cell)][geometry.colOf(cell)];
+				if(value != 0)
+				{
+					rowMask[geometry.rowOf(cell)] |= 1 << (value - 1);
+					colMask[geometry.colOf(cell)] |= 1 << (value - 1);
+					boxMask[geometry.boxOf(cell)] |= 1 << (value - 1);
+				}
+			}
+
+			int bestCell = -1;
+			int bestFeasible = 0;
+			for(int cell = 0; cell < geometry.getCellCount(); cell++)
+			{
+				if(board[geometry.rowOf(cell)][geometry.colOf(cell)] != 0)
+					continue;
+
+				int feasible = geometry.getAllValuesMask()
+						& ~(rowMask[geometry.rowOf(cell)] | colMask[geometry.colOf(cell)] | boxMask[geometry.boxOf(cell)]);
+				if(feasible == 0)
+					return null;
+				if(bestCell == -1 || Integer.bitCount(feasible) < Integer.bitCount(bestFeasible))
+				{
+					bestCell = cell;
+					bestFeasible = feasible;
+				}
+			}
+
+			if(bestCell == -1)
+			{
+				if(solution.compareAndSet(null, board))
+					cancelFlag.set(true);
+				return null;
+			}
+			return new int[] {bestCell, bestFeasible};
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+import com.gmail.aparna14.sudokuh.data.BatchResult;
+import com.gmail.aparna14.sudokuh.data.Board;
+
+/**
+ * This class solves many sudoku boards in parallel on a work stealing ForkJoinPool.
+ * The list of boards is split recursively into ranges, idle worker threads steal
+ * the ranges not yet started. Solver state is thread confined: every worker thread
+ * gets its own BatchSolver (and solver instance), created on first use and reused afterwards.
+ * Boards are solved in place, hence results stay in input order.
+ * @author aparna
+ *
+ */
+public class ParallelBatchSolver
+{
+	/* ranges of at most these many boards are solved without splitting further */
+	private static final int SPLIT_THRESHOLD = 16;
+	
+	private final ForkJoinPool pool;
+	
+	private final ThreadLocal<BatchSolver> workerSolver;
+	
+	public ParallelBatchSolver(int parallelism)
+	{
+		this(parallelism, new Supplier<SolverStrategy>() {
+			@Override
+			public SolverStrategy get() {
+				return new HeursiticAlgo();
+			}
+		});
+	}
+	
+	/**
+	 * @param parallelism - number of worker threads
+	 * @param solverFactory - creates solver instance for each worker thread
+	 */
+	public ParallelBatchSolver(int parallelism, final Supplier<SolverStrategy> solverFactory)
+	{
+		this.pool = new ForkJoinPool(parallelism);
+		this.workerSolver = new ThreadLocal<BatchSolver>() {
+			@Override
+			protected BatchSolver initialValue() {
+				return new BatchSolver(solverFactory.get());
+			}
+		};
+	}
+	
+	public int getParallelism()
+	{
+		return pool.getParallelism();
+	}
+	
+	/**
+	 * Solves every board of the list using the pool threads.
+	 * @param boards - sudoku matrices, solved in place
+	 * @return result holding which boards were solved and time taken
+	 */
+	public BatchResult solveAll(List<int[][]> boards)
+	{
+		boolean[] solved = new boolean[boards.size()];
+		long start = System.nanoTime();
+		int solvedCount = pool.invoke(new SolveRangeTask(boards, null, solved, 0, boards.size()));
+		return new BatchResult(solved, solvedCount, System.nanoTime() - start);
+	}
+	
+	/**
+	 * Same as solveAll for flat boards.
+	 */
+	public BatchResult solveBoards(List<Board> boards)
+	{
+		boolean[] solved = new boolean[boards.size()];
+		long start = System.nanoTime();
+		int solvedCount = pool.invoke(new SolveRangeTask(null, boards, solved, 0, boards.size()));
+		return new BatchResult(solved, solvedCount, System.nanoTime() - start);
+	}
+	
+	/**
+	 * Stops the worker threads, instance can not be used afterwards.
+	 */
+	public void shutdown()
+	{
+		pool.shutdown();
+	}
+	
+	/*
+	 * Solves boards in range [from, to), returns number of boards solved.
+	 * Boards are matrices or flat boards, the other list is null.
+	 */
+	private class SolveRangeTask extends RecursiveTask<Integer>
+	{
+		private static final long serialVersionUID = 1L;
+		
+		private final List<int[][]> boards;
+		private final List<Board> flatBoards;
+		private final boolean[] solved;
+		private final int from;
+		private final int to;
+		
+		SolveRangeTask(List<int[][]> boards, List<Board> flatBoards, boolean[] solved, int from, int to)
+		{
+			this.boards = boards;
+			this.flatBoards = flatBoards;
+			this.solved = solved;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected Integer compute()
+		{
+			if(to - from <= SPLIT_THRESHOLD)
+			{
+				BatchSolver solver = workerSolver.get();
+				int solvedCount = 0;
+				for(int idx = from; idx < to; idx++)
+				{
+					solved[idx] = (flatBoards != null) ? solver.solve(flatBoards.get(idx)) : solver.solve(boards.get(idx));
+					if(solved[idx])
+						solvedCount++;
+				}
+				return solvedCount;
+			}
+			
+			int mid = (from + to) >>> 1;
+			SolveRangeTask left = new SolveRangeTask(boards, flatBoards, solved, from, mid);
+			left.fork();
+			int rightCount = new SolveRangeTask(boards, flatBoards, solved, mid, to).compute();
+			return left.join() + rightCount;
+		}
+	}
+}
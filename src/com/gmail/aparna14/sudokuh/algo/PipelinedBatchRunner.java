@@ -0,0 +1,616 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import com.gmail.aparna14.sudokuh.data.BatchResult;
+import com.gmail.aparna14.sudokuh.data.Board;
+import com.gmail.aparna14.sudokuh.data.BoardStatus;
+import com.gmail.aparna14.sudokuh.exceptions.InvalidDataException;
+
+/**
+ * This class solves file of boards as pipeline of three stages, each on its own thread(s):
+ * 1. reader - reads boards one by one, from csv file of boards separated by blank lines,
+ *    binary board file (.sdkb) or directory of csv files (read at once by CSVFileManager)
+ * 2. solvers - pool of threads, each solving boards with its own BatchSolver
+ * 3. writer - writes solved boards in input order to csv (BoardOutputSink) or binary file
+ *
+ * Stages are connected by bounded queues: a stage faster than the next one blocks
+ * once the queue is full, so overall throughput approaches the rate of the slowest stage.
+ * Solvers finish boards out of order, the writer keeps early boards in a reorder buffer
+ * until all boards before them are written. The reader takes a permit per board before
+ * queueing it and the writer returns it once the board is written, so a slow board can not
+ * make the reorder buffer grow: boards in flight never exceed what queues and solvers hold,
+ * 2 * queueCapacity + solverCount, and memory stays bounded.
+ * Boards travel as flat Boards, so full queues and reorder buffer hold little memory.
+ *
+ * Items, busy time and blocked time are counted per stage, and current and
+ * maximum depth per queue. Counters may be read while the pipeline runs.
+ * Instance runs one pipeline at a time.
+ * @author aparna
+ *
+ */
+public class PipelinedBatchRunner
+{
+	public static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+	private static final String BINARY_EXTENSION = ".sdkb";
+
+	private final int solverCount;
+
+	private final int queueCapacity;
+
+	private final Supplier<SolverStrategy> solverFactory;
+
+	private final StageStats readerStats = new StageStats("reader");
+
+	private final StageStats solverStats = new StageStats("solvers");
+
+	private final StageStats writerStats = new StageStats("writer");
+
+	private final QueueStats solveQueueStats = new QueueStats("solve queue");
+
+	private final QueueStats writeQueueStats = new QueueStats("write queue");
+
+	private BlockingQueue<Item> solveQueue;
+
+	private BlockingQueue<Item> writeQueue;
+
+	/* permits for boards read but not yet written */
+	private Semaphore inFlight;
+
+	/* dimension given by binary input header, 0 when input is not binary */
+	private volatile int inputDimension;
+
+	private final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+
+	private final List<Thread> threads = new ArrayList<Thread>();
+
+	/* written by writer thread, read after it is joined */
+	private boolean[] solved;
+
+	private int solvedCount;
+
+	public PipelinedBatchRunner(int solverCount)
+	{
+		this(solverCount, DEFAULT_QUEUE_CAPACITY, new Supplier<SolverStrategy>() {
+			@Override
+			public SolverStrategy get() {
+				return new HeursiticAlgo();
+			}
+		});
+	}
+
+	/**
+	 * @param solverCount - number of solver threads
+	 * @param queueCapacity - boards held at most by each queue
+	 * @param solverFactory - creates solver instance for each solver thread
+	 */
+	public PipelinedBatchRunner(int solverCount, int queueCapacity, Supplier<SolverStrategy> solverFactory)
+	{
+		if(solverCount < 1 || queueCapacity < 1)
+		{
+			throw new IllegalArgumentException("solverCount and queueCapacity must be positive");
+		}
+		this.solverCount = solverCount;
+		this.queueCapacity = queueCapacity;
+		this.solverFactory = solverFactory;
+	}
+
+	/**
+	 * Reads, solves and writes all boards, returns when the last board is written.
+	 * Boards which can not be solved are written with their original values
+	 * (with status UNSOLVABLE in binary file). Binary output of empty input gets the dimension
+	 * of binary input in its header, for csv input no binary file is created as dimension is unknown.
+	 * If any stage fails, output file is deleted and the failure is thrown.
+	 * @param inputPath - csv file, binary board file or directory of csv files
+	 * @param outputPath - csv or binary board (.sdkb) output file, existing file is overwritten
+	 * @return result holding which boards were solved and time taken
+	 */
+	public synchronized BatchResult run(String inputPath, String outputPath) throws IOException, InvalidDataException
+	{
+		solveQueue = new ArrayBlockingQueue<Item>(queueCapacity);
+		writeQueue = new ArrayBlockingQueue<Item>(queueCapacity);
+		inFlight = new Semaphore(2 * queueCapacity + solverCount);
+		inputDimension = 0;
+		failure.set(null);
+		threads.clear();
+		solved = new boolean[64];
+		solvedCount = 0;
+		for(StageStats stats : getStageStats())
+			stats.reset();
+		solveQueueStats.reset();
+		writeQueueStats.reset();
+
+		/* all threads exist before any starts, as failing stage interrupts all of them */
+		addStage("pipeline-reader", new ReaderStage(inputPath));
+		for(int idx = 0; idx < solverCount; idx++)
+		{
+			addStage("pipeline-solver-" + idx, new SolverStage());
+		}
+		addStage("pipeline-writer", new WriterStage(outputPath));
+
+		long start = System.nanoTime();
+		for(Thread thread : threads)
+		{
+			thread.start();
+		}
+
+		for(Thread thread : threads)
+		{
+			try
+			{
+				thread.join();
+			}
+			catch(InterruptedException e)
+			{
+				fail(e);
+				Thread.currentThread().interrupt();
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+
+		Exception error = failure.get();
+		if(error instanceof IOException)
+			throw (IOException)error;
+		if(error instanceof InvalidDataException)
+			throw (InvalidDataException)error;
+		if(error instanceof RuntimeException)
+			throw (RuntimeException)error;
+		if(error != null)
+			throw new IOException("Pipeline interrupted", error);
+
+		return new BatchResult(Arrays.copyOf(solved, (int)writerStats.getItems()), solvedCount, elapsed);
+	}
+
+	public StageStats[] getStageStats()
+	{
+		return new StageStats[] {readerStats, solverStats, writerStats};
+	}
+
+	public QueueStats[] getQueueStats()
+	{
+		return new QueueStats[] {solveQueueStats, writeQueueStats};
+	}
+
+	/**
+	 * Returns one line per stage and per queue.
+	 */
+	public String describeStats()
+	{
+		StringBuilder sb = new StringBuilder();
+		for(StageStats stats : getStageStats())
+			sb.append(stats).append('\n');
+		for(QueueStats stats : getQueueStats())
+			sb.append(stats).append('\n');
+		return sb.toString();
+	}
+
+	private void addStage(String name, final Stage stage)
+	{
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try
+				{
+					stage.run();
+				}
+				catch(Exception e)
+				{
+					fail(e);
+				}
+			}
+		}, name);
+		thread.setDaemon(true);
+		threads.add(thread);
+	}
+
+	/* first failure is kept, all stages are stopped */
+	private void fail(Exception e)
+	{
+		if(failure.compareAndSet(null, e))
+		{
+			for(Thread thread : threads)
+			{
+				if(thread != Thread.currentThread())
+					thread.interrupt();
+			}
+		}
+	}
+
+	private void put(BlockingQueue<Item> queue, QueueStats queueStats, StageStats stageStats, Item item) throws InterruptedException
+	{
+		long start = System.nanoTime();
+		queue.put(item);
+		stageStats.blockedNanos.addAndGet(System.nanoTime() - start);
+		queueStats.recordDepth(queue.size());
+	}
+
+	/* waits until the writer has written enough boards, then queues board for the solvers */
+	private void putRead(Item item) throws InterruptedException
+	{
+		long start = System.nanoTime();
+		inFlight.acquire();
+		readerStats.blockedNanos.addAndGet(System.nanoTime() - start);
+		put(solveQueue, solveQueueStats, readerStats, item);
+	}
+
+	private Item take(BlockingQueue<Item> queue, StageStats stageStats) throws InterruptedException
+	{
+		long start = System.nanoTime();
+		Item item = queue.take();
+		stageStats.blockedNanos.addAndGet(System.nanoTime() - start);
+		return item;
+	}
+
+	private static boolean isBinary(String path)
+	{
+		return path.toLowerCase().endsWith(BINARY_EXTENSION);
+	}
+
+	private interface Stage
+	{
+		void run() throws Exception;
+	}
+
+	/* board travelling through the pipeline, board is null for end of input */
+	private static class Item
+	{
+		final int index;
+		final Board board;
+		boolean solved;
+
+		Item(int index, Board board)
+		{
+			this.index = index;
+			this.board = board;
+		}
+	}
+
+	private class ReaderStage implements Stage
+	{
+		private final String inputPath;
+
+		ReaderStage(String inputPath)
+		{
+			this.inputPath = inputPath;
+		}
+
+		@Override
+		public void run() throws Exception
+		{
+			try
+			{
+				if(new File(inputPath).isDirectory())
+					readDirectory();
+				else if(isBinary(inputPath))
+					readBinary();
+				else
+					readCSV();
+			}
+			catch(Exception e)
+			{
+				/* failed before end markers are sent, so solvers and writer are stopped instead */
+				fail(e);
+				throw e;
+			}
+			finally
+			{
+				/* every solver stops at its own end marker */
+				if(failure.get() == null)
+				{
+					for(int idx = 0; idx < solverCount; idx++)
+						put(solveQueue, solveQueueStats, readerStats, new Item(-1, null));
+				}
+			}
+		}
+
+		private void readCSV() throws Exception
+		{
+			StreamingCSVParser parser = new StreamingCSVParser(new FileInputStream(inputPath), true);
+			try
+			{
+				int index = 0;
+				while(true)
+				{
+					long start = System.nanoTime();
+					Board board = parser.nextBoard((Board) null);
+					readerStats.addBusy(System.nanoTime() - start);
+					if(board == null)
+						break;
+					readerStats.items.incrementAndGet();
+					putRead(new Item(index++, board));
+				}
+			}
+			finally
+			{
+				parser.close();
+			}
+		}
+
+		private void readBinary() throws Exception
+		{
+			BinaryBoardReader reader = BinaryBoardReader.open(inputPath);
+			inputDimension = reader.getDimension();
+			try
+			{
+				int index = 0;
+				while(true)
+				{
+					long start = System.nanoTime();
+					Board board = reader.nextBoard((Board) null);
+					readerStats.addBusy(System.nanoTime() - start);
+					if(board == null)
+						break;
+					readerStats.items.incrementAndGet();
+					putRead(new Item(index++, board));
+				}
+			}
+			finally
+			{
+				reader.close();
+			}
+		}
+
+		private void readDirectory() throws Exception
+		{
+			long start = System.nanoTime();
+			List<Board> boards = ManagerFactory.getCSVFileManager().readFlatBoards(inputPath);
+			readerStats.addBusy(System.nanoTime() - start);
+			for(int index = 0; index < boards.size(); index++)
+			{
+				readerStats.items.incrementAndGet();
+				putRead(new Item(index, boards.get(index)));
+			}
+		}
+	}
+
+	private class SolverStage implements Stage
+	{
+		private final BatchSolver solver = new BatchSolver(solverFactory.get());
+
+		@Override
+		public void run() throws Exception
+		{
+			while(true)
+			{
+				Item item = take(solveQueue, solverStats);
+				if(item.board != null)
+				{
+					long start = System.nanoTime();
+					item.solved = solver.solve(item.board);
+					solverStats.addBusy(System.nanoTime() - start);
+					solverStats.items.incrementAndGet();
+				}
+				put(writeQueue, writeQueueStats, solverStats, item);
+				if(item.board == null)
+					return;
+			}
+		}
+	}
+
+	private class WriterStage implements Stage
+	{
+		private final String outputPath;
+
+		/* boards finished ahead of their turn, by index */
+		private final Map<Integer, Item> reorderBuffer = new HashMap<Integer, Item>();
+
+		private int nextIndex;
+
+		private BoardOutputSink sink;
+
+		private BinaryBoardWriter binaryWriter;
+
+		WriterStage(String outputPath)
+		{
+			this.outputPath = outputPath;
+		}
+
+		@Override
+		public void run() throws Exception
+		{
+			if(!isBinary(outputPath))
+				sink = new BoardOutputSink(outputPath, false, 0, 0, false, BoardOutputSink.DEFAULT_BUFFER_SIZE);
+			try
+			{
+				int finishedSolvers = 0;
+				while(finishedSolvers < solverCount)
+				{
+					Item item = take(writeQueue, writerStats);
+					if(item.board == null)
+					{
+						finishedSolvers++;
+						continue;
+					}
+					reorderBuffer.put(item.index, item);
+					Item next;
+					while((next = reorderBuffer.remove(nextIndex)) != null)
+					{
+						long start = System.nanoTime();
+						write(next);
+						inFlight.release();
+						writerStats.addBusy(System.nanoTime() - start);
+						writerStats.items.incrementAndGet();
+						nextIndex++;
+					}
+				}
+				if(sink == null && binaryWriter == null && inputDimension != 0)
+				{
+					/* no boards, binary file still gets header of binary input's dimension */
+					binaryWriter = BinaryBoardWriter.create(outputPath, inputDimension);
+				}
+			}
+			catch(Exception e)
+			{
+				/* recorded before finally, so the partial file is deleted */
+				fail(e);
+				throw e;
+			}
+			finally
+			{
+				if(sink != null)
+					sink.close();
+				if(binaryWriter != null)
+					binaryWriter.close();
+				if(failure.get() != null && (sink != null || binaryWriter != null))
+				{
+					/* partial output is not left behind */
+					new File(outputPath).delete();
+				}
+			}
+		}
+
+		private void write(Item item) throws IOException
+		{
+			if(sink != null)
+			{
+				sink.write(item.board);
+			}
+			else
+			{
+				if(binaryWriter == null)
+					binaryWriter = BinaryBoardWriter.create(outputPath, item.board.getDimension());
+				binaryWriter.write(item.board, item.solved ? BoardStatus.SOLVED : BoardStatus.UNSOLVABLE);
+			}
+
+			if(item.index >= solved.length)
+				solved = Arrays.copyOf(solved, solved.length * 2);
+			solved[item.index] = item.solved;
+			if(item.solved)
+				solvedCount++;
+		}
+	}
+
+	/**
+	 * Counters of one stage. Busy and blocked time are summed over the threads of the stage.
+	 */
+	public static class StageStats
+	{
+		private final String name;
+		private final AtomicLong items = new AtomicLong();
+		private final AtomicLong busyNanos = new AtomicLong();
+		private final AtomicLong blockedNanos = new AtomicLong();
+
+		StageStats(String name)
+		{
+			this.name = name;
+		}
+
+		void addBusy(long nanos)
+		{
+			busyNanos.addAndGet(nanos);
+		}
+
+		void reset()
+		{
+			items.set(0);
+			busyNanos.set(0);
+			blockedNanos.set(0);
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+
+		public long getItems()
+		{
+			return items.get();
+		}
+
+		/* time spent reading, solving or writing */
+		public long getBusyNanos()
+		{
+			return busyNanos.get();
+		}
+
+		/* time spent waiting on full or empty queue */
+		public long getBlockedNanos()
+		{
+			return blockedNanos.get();
+		}
+
+		/* boards per busy second of one thread, the rate stage could sustain */
+		public double getItemsPerBusySecond()
+		{
+			long busy = busyNanos.get();
+			return (busy == 0) ? 0 : items.get() / (busy / 1e9);
+		}
+
+		@Override
+		public String toString()
+		{
+			return String.format("%-8s %d boards, busy %.1f ms (%.1f boards/sec), blocked %.1f ms",
+					name, getItems(), getBusyNanos() / 1e6, getItemsPerBusySecond(), getBlockedNanos() / 1e6);
+		}
+	}
+
+	/**
+	 * Depth of one queue, current and maximum seen after put.
+	 */
+	public class QueueStats
+	{
+		private final String name;
+		private final AtomicInteger maxDepth = new AtomicInteger();
+
+		QueueStats(String name)
+		{
+			this.name = name;
+		}
+
+		void recordDepth(int depth)
+		{
+			int max;
+			while(depth > (max = maxDepth.get()) && !maxDepth.compareAndSet(max, depth))
+			{
+				/* retry, other thread raised maximum meanwhile */
+			}
+		}
+
+		void reset()
+		{
+			maxDepth.set(0);
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+
+		public int getDepth()
+		{
+			BlockingQueue<Item> queue = (this == solveQueueStats) ? solveQueue : writeQueue;
+			return (queue == null) ? 0 : queue.size();
+		}
+
+		public int getMaxDepth()
+		{
+			return maxDepth.get();
+		}
+
+		public int getCapacity()
+		{
+			return queueCapacity;
+		}
+
+		@Override
+		public String toString()
+		{
+			return String.format("%-11s depth %d, max %d of %d", name, getDepth(), getMaxDepth(), getCapacity());
+		}
+	}
+}
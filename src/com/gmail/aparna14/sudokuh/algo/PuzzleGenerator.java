@@ -0,0 +1,361 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.gmail.aparna14.sudokuh.data.BoardGeometry;
+import com.gmail.aparna14.sudokuh.data.Difficulty;
+import com.gmail.aparna14.sudokuh.data.GeneratedPuzzle;
+
+/**
+ * This class generates puzzles having exactly one solution, optionally of given difficulty.
+ *
+ * A full grid is made by filling the grids on the diagonal, which share no row or column, with random
+ * permutations of values and solving for the rest. Rows are then shuffled within bands, columns within
+ * stacks, and bands and stacks among themselves.
+ * Clues are removed in random order, and a removal is taken back if the puzzle no longer has one solution,
+ * or with target difficulty, if it is no longer solved by the techniques of target.
+ * Once no clue can be removed, puzzle is graded. If it is easier than target, a new grid is tried.
+ *
+ * A puzzle which propagation solves has one solution, hence SolutionCounter is only run
+ * for puzzles propagation does not solve.
+ * Puzzles are repeatable: generate(seed, target) always gives the same puzzle for the same dimension.
+ * Instance is not thread safe, use one instance per thread, or generateAll for many puzzles in parallel.
+ * @author aparna
+ *
+ */
+public class PuzzleGenerator
+{
+	/* grids tried for target difficulty, before giving up */
+	public static final int MAX_ATTEMPTS = 1000;
+
+	/* ranges of at most these many puzzles are generated without splitting further */
+	private static final int SPLIT_THRESHOLD = 4;
+
+	private static final Set<Technique> EASY_TECHNIQUES = EnumSet.of(Technique.NAKED_SINGLE);
+
+	private static final Set<Technique> MEDIUM_TECHNIQUES = EnumSet.of(Technique.NAKED_SINGLE, Technique.HIDDEN_SINGLE);
+
+	private static final Set<Technique> ALL_TECHNIQUES = EnumSet.allOf(Technique.class);
+
+	private final BoardGeometry geometry;
+
+	/* draws seed of each puzzle returned by next */
+	private final Random seeds;
+
+	/* reseeded for every puzzle */
+	private final Random random = new Random();
+
+	private final ConstraintPropagator propagator = new ConstraintPropagator();
+
+	private final SolutionCounter counter = new SolutionCounter();
+
+	/* cell indices in the order clues are removed */
+	private final int[] removalOrder;
+
+	/* guesses made by last grade */
+	private long gradeNodeCount;
+
+	/**
+	 * @param dimension - no of rows /columns of generated boards, e.g 9 or 16
+	 * @param seed - seed of the sequence of puzzles returned by next
+	 * @throws IllegalArgumentException - if dimension is not supported by BoardGeometry
+	 */
+	public PuzzleGenerator(int dimension, long seed)
+	{
+		this.geometry = BoardGeometry.forDimension(dimension);
+		this.seeds = new Random(seed);
+		this.removalOrder = new int[geometry.getCellCount()];
+	}
+
+	/**
+	 * Generates next puzzle of the sequence, of any difficulty.
+	 */
+	public GeneratedPuzzle next()
+	{
+		return generate(seeds.nextLong(), null);
+	}
+
+	/**
+	 * Generates next puzzle of the sequence, of target difficulty.
+	 * @return puzzle, null if none of MAX_ATTEMPTS grids gave puzzle of target difficulty
+	 */
+	public GeneratedPuzzle next(Difficulty target)
+	{
+		return generate(seeds.nextLong(), target);
+	}
+
+	/**
+	 * Generates puzzle from seed.
+	 * @param seed - same seed gives same puzzle
+	 * @param target - difficulty of puzzle, null for any difficulty
+	 * @return puzzle, null if none of MAX_ATTEMPTS grids gave puzzle of target difficulty
+	 */
+	public GeneratedPuzzle generate(long seed, Difficulty target)
+	{
+		random.setSeed(seed);
+		for(int attempt = 0; attempt < MAX_ATTEMPTS; attempt++)
+		{
+			int[][] solution = fullGrid();
+			int[][] puzzle = copyOf(solution);
+			removeClues(puzzle, target);
+			Difficulty difficulty = grade(puzzle);
+			if(target == null || difficulty == target)
+			{
+				return new GeneratedPuzzle(puzzle, solution, difficulty, gradeNodeCount, seed);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Grades puzzle by the easiest set of techniques which solves it.
+	 * Puzzle is expected to have one solution and is not modified.
+	 */
+	public Difficulty grade(int[][] puzzle)
+	{
+		gradeNodeCount = 0;
+		if(solvesWith(puzzle, EASY_TECHNIQUES))
+			return Difficulty.EASY;
+		if(solvesWith(puzzle, MEDIUM_TECHNIQUES))
+			return Difficulty.MEDIUM;
+		if(solvesWith(puzzle, ALL_TECHNIQUES))
+			return Difficulty.HARD;
+
+		propagator.solve(copyOf(puzzle));
+		gradeNodeCount = propagator.getNodeCount();
+		return Difficulty.EXPERT;
+	}
+
+	/**
+	 * Generates count puzzles on parallel threads.
+	 * Puzzle i is generated from seed derived from seed and i, so the puzzles
+	 * do not depend on number of threads.
+	 * @param target - difficulty of puzzles, null for any difficulty
+	 * @return puzzles in index order, leaving out those for which target was not met
+	 */
+	public static List<GeneratedPuzzle> generateAll(final int dimension, final long seed, int count,
+			Difficulty target, int parallelism)
+	{
+		BoardGeometry.forDimension(dimension);
+		GeneratedPuzzle[] puzzles = new GeneratedPuzzle[count];
+		ThreadLocal<PuzzleGenerator> generators = new ThreadLocal<PuzzleGenerator>() {
+			@Override
+			protected PuzzleGenerator initialValue() {
+				return new PuzzleGenerator(dimension, seed);
+			}
+		};
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try
+		{
+			pool.invoke(new GenerateRangeTask(generators, seed, target, puzzles, 0, count));
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+
+		List<GeneratedPuzzle> generated = new ArrayList<GeneratedPuzzle>(count);
+		for(GeneratedPuzzle puzzle : puzzles)
+		{
+			if(puzzle != null)
+				generated.add(puzzle);
+		}
+		return generated;
+	}
+
+	/*
+	 * Mixes seed and index into well spread seed of puzzle index (SplitMix64 finalizer).
+	 */
+	static long seedOf(long seed, int index)
+	{
+		long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	private boolean solvesWith(int[][] puzzle, Set<Technique> techniques)
+	{
+		propagator.setTechniques(techniques);
+		boolean solved = propagator.load(puzzle) && propagator.propagate() && propagator.isSolved();
+		propagator.setTechniques(ALL_TECHNIQUES);
+		return solved;
+	}
+
+	/*
+	 * Random full grid: random diagonal grids, solved and shuffled.
+	 */
+	private int[][] fullGrid()
+	{
+		int dimension = geometry.getDimension();
+		int gridDimension = geometry.getGridDimension();
+		while(true)
+		{
+			int[][] grid = new int[dimension][dimension];
+			int[] values = new int[dimension];
+			for(int box = 0; box < gridDimension; box++)
+			{
+				shuffledValues(values);
+				int start = box * gridDimension;
+				for(int idx = 0; idx < dimension; idx++)
+				{
+					grid[start + idx / gridDimension][start + idx % gridDimension] = values[idx];
+				}
+			}
+			if(propagator.solve(grid))
+			{
+				return shuffleLines(grid);
+			}
+		}
+	}
+
+	/* permutation of values 1 - dimension */
+	private void shuffledValues(int[] values)
+	{
+		for(int idx = 0; idx < values.length; idx++)
+		{
+			int swap = random.nextInt(idx + 1);
+			values[idx] = values[swap];
+			values[swap] = idx + 1;
+		}
+	}
+
+	/*
+	 * Shuffles rows within bands and bands, then columns within stacks and stacks.
+	 */
+	private int[][] shuffleLines(int[][] grid)
+	{
+		int[] rowOrder = lineOrder();
+		int[] colOrder = lineOrder();
+		int dimension = grid.length;
+		int[][] shuffled = new int[dimension][dimension];
+		for(int row = 0; row < dimension; row++)
+		{
+			for(int col = 0; col < dimension; col++)
+			{
+				shuffled[row][col] = grid[rowOrder[row]][colOrder[col]];
+			}
+		}
+		return shuffled;
+	}
+
+	/* order of lines which keeps lines of a band together */
+	private int[] lineOrder()
+	{
+		int gridDimension = geometry.getGridDimension();
+		int[] bands = new int[gridDimension];
+		shuffledValues(bands);
+		int[] order = new int[geometry.getDimension()];
+		int[] within = new int[gridDimension];
+		for(int band = 0; band < gridDimension; band++)
+		{
+			shuffledValues(within);
+			for(int idx = 0; idx < gridDimension; idx++)
+			{
+				order[band * gridDimension + idx] = (bands[band] - 1) * gridDimension + within[idx] - 1;
+			}
+		}
+		return order;
+	}
+
+	/*
+	 * Removes clues in random order, keeping those whose removal gives more solutions,
+	 * or a puzzle harder than target.
+	 */
+	private void removeClues(int[][] puzzle, Difficulty target)
+	{
+		Set<Technique> allowed = null;
+		if(target == Difficulty.EASY)
+			allowed = EASY_TECHNIQUES;
+		else if(target == Difficulty.MEDIUM)
+			allowed = MEDIUM_TECHNIQUES;
+		else if(target == Difficulty.HARD)
+			allowed = ALL_TECHNIQUES;
+
+		for(int idx = 0; idx < removalOrder.length; idx++)
+		{
+			int swap = random.nextInt(idx + 1);
+			removalOrder[idx] = removalOrder[swap];
+			removalOrder[swap] = idx;
+		}
+
+		for(int cell : removalOrder)
+		{
+			int row = geometry.rowOf(cell);
+			int col = geometry.colOf(cell);
+			int value = puzzle[row][col];
+			puzzle[row][col] = 0;
+
+			boolean removable;
+			if(allowed != null)
+				removable = solvesWith(puzzle, allowed);
+			else
+				removable = solvesWith(puzzle, ALL_TECHNIQUES) || counter.isUnique(puzzle);
+			if(!removable)
+			{
+				puzzle[row][col] = value;
+			}
+		}
+	}
+
+	private static int[][] copyOf(int[][] board)
+	{
+		int[][] copy = new int[board.length][];
+		for(int row = 0; row < board.length; row++)
+		{
+			copy[row] = board[row].clone();
+		}
+		return copy;
+	}
+
+	/*
+	 * Generates puzzles of index range [from, to) with the worker thread's generator.
+	 */
+	private static class GenerateRangeTask extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final ThreadLocal<PuzzleGenerator> generators;
+		private final long seed;
+		private final Difficulty target;
+		private final GeneratedPuzzle[] puzzles;
+		private final int from;
+		private final int to;
+
+		GenerateRangeTask(ThreadLocal<PuzzleGenerator> generators, long seed, Difficulty target,
+				GeneratedPuzzle[] puzzles, int from, int to)
+		{
+			this.generators = generators;
+			this.seed = seed;
+			this.target = target;
+			this.puzzles = puzzles;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if(to - from <= SPLIT_THRESHOLD)
+			{
+				PuzzleGenerator generator = generators.get();
+				for(int idx = from; idx < to; idx++)
+				{
+					puzzles[idx] = generator.generate(seedOf(seed, idx), target);
+				}
+				return;
+			}
+
+			int mid = (from + to) >>> 1;
+			invokeAll(new GenerateRangeTask(generators, seed, target, puzzles, from, mid),
+					new GenerateRangeTask(generators, seed, target, puzzles, mid, to));
+		}
+	}
+}
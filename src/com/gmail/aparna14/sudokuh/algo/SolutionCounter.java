@@ -0,0 +1,65 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.gmail.aparna14.sudokuh.data.SolutionCount;
+
+/**
+ * This class counts solutions of a board, stopping once limit solutions are found.
+ * With limit 2 it tells boards with no solution, one solution and several solutions apart,
+ * which is what is checked before a puzzle is accepted.
+ *
+ * Counting uses ConstraintPropagator's search: bitmap candidates, propagation after every guess
+ * and undo trail, continuing past the first solution instead of stopping at it.
+ * Board passed in is not modified.
+ * Instance is not thread safe, use one instance per thread.
+ * @author aparna
+ *
+ */
+public class SolutionCounter
+{
+	private final ConstraintPropagator propagator = new ConstraintPropagator();
+
+	/**
+	 * Counts solutions of board.
+	 * @param board - sudoku matrix, blank cells hold 0
+	 * @param limit - counting stops after these many solutions, 2 to check uniqueness
+	 * @return count, with the solutions found
+	 * @throws IllegalArgumentException - if limit is less than 1
+	 */
+	public SolutionCount countSolutions(int[][] board, int limit)
+	{
+		List<int[][]> solutions = new ArrayList<int[][]>();
+		return new SolutionCount(count(board, limit, solutions), limit, solutions);
+	}
+
+	/**
+	 * Returns true if board has exactly one solution, without keeping the solutions.
+	 */
+	public boolean isUnique(int[][] board)
+	{
+		return count(board, 2, null) == 1;
+	}
+
+	/**
+	 * Returns number of guesses made during last count.
+	 */
+	public long getNodeCount()
+	{
+		return propagator.getNodeCount();
+	}
+
+	private int count(int[][] board, int limit, List<int[][]> solutions)
+	{
+		if(limit < 1)
+		{
+			throw new IllegalArgumentException("Solution limit must be at least 1 :" + limit);
+		}
+		if(!propagator.load(board) || !propagator.propagate())
+		{
+			return 0;
+		}
+		return propagator.countSolutions(limit, solutions);
+	}
+}
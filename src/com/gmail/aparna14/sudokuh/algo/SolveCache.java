@@ -0,0 +1,197 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class holds solutions of recently solved boards, keyed by canonical form of the board,
+ * so that a board equivalent to one solved before is answered without solving.
+ * Solutions are kept in canonical form too, CachingSolver maps them back to the board asked for.
+ * Boards found to have no solution are remembered as well.
+ *
+ * At most capacity boards are kept, the least recently used one is evicted to make room.
+ * Hits, misses, evictions and an estimate of memory held are counted.
+ * Instance is thread safe, solvers of all threads may share one cache.
+ * @author aparna
+ *
+ */
+public class SolveCache
+{
+	public static final int DEFAULT_CAPACITY = 100000;
+
+	/* solution of boards without solution */
+	static final byte[] NO_SOLUTION = new byte[0];
+
+	/* object header, fields and padding of one LinkedHashMap entry and its table slot */
+	private static final int ENTRY_OVERHEAD_BYTES = 48;
+
+	/* header of Key object and of its long[] */
+	private static final int KEY_OVERHEAD_BYTES = 40;
+
+	private static final int ARRAY_HEADER_BYTES = 16;
+
+	private final int capacity;
+
+	private final Map<Key, byte[]> entries;
+
+	private long hits;
+
+	private long misses;
+
+	private long evictions;
+
+	private long estimatedBytes;
+
+	/**
+	 * @param capacity - most boards kept
+	 * @throws IllegalArgumentException - if capacity is less than 1
+	 */
+	public SolveCache(final int capacity)
+	{
+		if(capacity < 1)
+		{
+			throw new IllegalArgumentException("Cache capacity must be at least 1 :" + capacity);
+		}
+		this.capacity = capacity;
+		this.entries = new LinkedHashMap<Key, byte[]>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, byte[]> eldest) {
+				if(size() <= SolveCache.this.capacity)
+					return false;
+				evictions++;
+				estimatedBytes -= sizeOf(eldest.getKey(), eldest.getValue());
+				return true;
+			}
+		};
+	}
+
+	public SolveCache()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	/*
+	 * Returns canonical solution, NO_SOLUTION, or null if board is not cached.
+	 */
+	synchronized byte[] get(Key key)
+	{
+		byte[] solution = entries.get(key);
+		if(solution == null)
+			misses++;
+		else
+			hits++;
+		return solution;
+	}
+
+	synchronized void put(Key key, byte[] solution)
+	{
+		byte[] previous = entries.put(key, solution);
+		if(previous != null)
+			estimatedBytes -= sizeOf(key, previous);
+		estimatedBytes += sizeOf(key, solution);
+	}
+
+	public int getCapacity()
+	{
+		return capacity;
+	}
+
+	public synchronized int size()
+	{
+		return entries.size();
+	}
+
+	public synchronized long getHitCount()
+	{
+		return hits;
+	}
+
+	public synchronized long getMissCount()
+	{
+		return misses;
+	}
+
+	public synchronized long getEvictionCount()
+	{
+		return evictions;
+	}
+
+	/**
+	 * Returns fraction of lookups answered from cache, 0 before any lookup.
+	 */
+	public synchronized double getHitRate()
+	{
+		long lookups = hits + misses;
+		return lookups == 0 ? 0 : (double) hits / lookups;
+	}
+
+	/**
+	 * Returns estimate of heap held by cached boards, in bytes, for 64 bit JVM with compressed pointers.
+	 */
+	public synchronized long getEstimatedBytes()
+	{
+		return estimatedBytes;
+	}
+
+	/**
+	 * Removes all boards, counts are kept.
+	 */
+	public synchronized void clear()
+	{
+		entries.clear();
+		estimatedBytes = 0;
+	}
+
+	@Override
+	public synchronized String toString()
+	{
+		return String.format("Solve cache: %d of %d boards, %d hits, %d misses (hit rate %.1f%%), %d evictions, about %d KB",
+				entries.size(), capacity, hits, misses, getHitRate() * 100, evictions, estimatedBytes / 1024);
+	}
+
+	private static long sizeOf(Key key, byte[] solution)
+	{
+		return ENTRY_OVERHEAD_BYTES + KEY_OVERHEAD_BYTES + 8L * key.words.length
+				+ ((ARRAY_HEADER_BYTES + solution.length + 7) & ~7);
+	}
+
+	/*
+	 * Canonical form of a board: its values packed bitsPerValue bits each in canonical cell order.
+	 * Two keys are equal only if the packed boards are equal, hash collisions never give a wrong hit.
+	 */
+	static final class Key
+	{
+		private final int dimension;
+
+		private final long[] words;
+
+		private final int hash;
+
+		Key(int dimension, long[] words)
+		{
+			this.dimension = dimension;
+			this.words = words;
+			this.hash = 31 * dimension + Arrays.hashCode(words);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object other)
+		{
+			if(this == other)
+				return true;
+			if(!(other instanceof Key))
+				return false;
+			Key key = (Key) other;
+			return hash == key.hash && dimension == key.dimension && Arrays.equals(words, key.words);
+		}
+	}
+}
@@ -0,0 +1,33 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+/**
+ * Receives statistics of each board solved by HeursiticAlgo or BackTrackingStrategy.
+ * Calls are made once per board, after the solve, so the solve loop itself is not slowed down
+ * and a solver without listener does not even read the clock.
+ * Solvers running on several threads may share one listener, which then has to be thread safe.
+ * @author aparna
+ *
+ */
+public interface SolveListener
+{
+	/**
+	 * Cells filled by technique during the solve, only called for techniques which filled a cell.
+	 */
+	void cellsFilled(Technique technique, long cellCount);
+
+	/**
+	 * Search statistics of the solve, all 0 if no guess was needed.
+	 * @param nodes - values tried by backtracking
+	 * @param deadEnds - cells for which every value tried failed
+	 * @param maxDepth - most guesses in force at once, 0 if the strategy does not track it
+	 */
+	void searchFinished(long nodes, long deadEnds, int maxDepth);
+
+	/**
+	 * Called last for every board.
+	 * @param dimension - no of rows /columns of the board
+	 * @param solved - false if the board has no solution
+	 * @param elapsedNanos - time taken by the solve
+	 */
+	void boardFinished(int dimension, boolean solved, long elapsedNanos);
+}
@@ -0,0 +1,230 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.gmail.aparna14.sudokuh.data.LatencyHistogram;
+
+/**
+ * This class sums up solve statistics over a batch of boards: cells filled per technique,
+ * backtracking nodes and dead ends, deepest search and a histogram of per board latency.
+ * It is thread safe, so solvers of all worker threads can share one instance.
+ * Every worker reports each board, so nothing is shared under one lock: counters are LongAdder
+ * cells and latency goes to one of several histogram stripes picked by thread, merged on read.
+ * Values read while boards are being solved need not be of the same instant.
+ * Statistics are written as JSON by toJson, latencies in microseconds.
+ * @author aparna
+ *
+ */
+public class SolveMetrics implements SolveListener
+{
+	private static final Technique[] TECHNIQUES = Technique.values();
+
+	private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+	private final LongAdder[] fillCounts = new LongAdder[TECHNIQUES.length];
+
+	/* latency stripes, count is a power of two */
+	private final LatencyHistogram[] latencyStripes;
+	private final ReentrantLock[] stripeLocks;
+
+	private final LongAdder boards = new LongAdder();
+
+	private final LongAdder solved = new LongAdder();
+
+	private final LongAdder nodes = new LongAdder();
+
+	private final LongAdder deadEnds = new LongAdder();
+
+	private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+
+	public SolveMetrics()
+	{
+		for(int idx = 0; idx < fillCounts.length; idx++)
+		{
+			fillCounts[idx] = new LongAdder();
+		}
+		/* smallest power of two not below 4 * processors, so concurrent workers seldom share a stripe */
+		int stripeCount = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+		this.latencyStripes = new LatencyHistogram[stripeCount];
+		this.stripeLocks = new ReentrantLock[stripeCount];
+		for(int idx = 0; idx < stripeCount; idx++)
+		{
+			latencyStripes[idx] = new LatencyHistogram();
+			stripeLocks[idx] = new ReentrantLock();
+		}
+	}
+
+	@Override
+	public void cellsFilled(Technique technique, long cellCount)
+	{
+		fillCounts[technique.ordinal()].add(cellCount);
+	}
+
+	@Override
+	public void searchFinished(long nodes, long deadEnds, int maxDepth)
+	{
+		this.nodes.add(nodes);
+		this.deadEnds.add(deadEnds);
+		this.maxDepth.accumulate(maxDepth);
+	}
+
+	@Override
+	public void boardFinished(int dimension, boolean solved, long elapsedNanos)
+	{
+		boards.increment();
+		if(solved)
+			this.solved.increment();
+		int stripe = (int) Thread.currentThread().getId() & (latencyStripes.length - 1);
+		ReentrantLock lock = stripeLocks[stripe];
+		lock.lock();
+		try
+		{
+			latencyStripes[stripe].record(elapsedNanos);
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	public long getBoardCount()
+	{
+		return boards.sum();
+	}
+
+	public long getSolvedCount()
+	{
+		return solved.sum();
+	}
+
+	public long getFillCount(Technique technique)
+	{
+		return fillCounts[technique.ordinal()].sum();
+	}
+
+	public long getNodeCount()
+	{
+		return nodes.sum();
+	}
+
+	public long getDeadEndCount()
+	{
+		return deadEnds.sum();
+	}
+
+	public int getMaxDepth()
+	{
+		return (int) maxDepth.get();
+	}
+
+	/**
+	 * Returns latency of given percentile of boards in nanoseconds.
+	 */
+	public long getLatencyAtPercentile(double percentile)
+	{
+		return mergeLatency().getValueAtPercentile(percentile);
+	}
+
+	/**
+	 * Clears statistics, boards reported meanwhile may be partly kept.
+	 */
+	public void reset()
+	{
+		for(LongAdder fillCount : fillCounts)
+		{
+			fillCount.reset();
+		}
+		for(int stripe = 0; stripe < latencyStripes.length; stripe++)
+		{
+			stripeLocks[stripe].lock();
+			try
+			{
+				latencyStripes[stripe].reset();
+			}
+			finally
+			{
+				stripeLocks[stripe].unlock();
+			}
+		}
+		boards.reset();
+		solved.reset();
+		nodes.reset();
+		deadEnds.reset();
+		maxDepth.reset();
+	}
+
+	/**
+	 * Returns statistics as one JSON object.
+	 */
+	public String toJson()
+	{
+		LatencyHistogram latency = mergeLatency();
+		StringBuilder json = new StringBuilder(512);
+		json.append("{\n");
+		json.append("  \"boards\": ").append(boards.sum()).append(",\n");
+		json.append("  \"solved\": ").append(solved.sum()).append(",\n");
+		json.append("  \"cellsFilled\": {");
+		for(int idx = 0; idx < TECHNIQUES.length; idx++)
+		{
+			json.append(idx == 0 ? "" : ", ").append('"').append(TECHNIQUES[idx].name()).append("\": ").append(fillCounts[idx].sum());
+		}
+		json.append("},\n");
+		json.append("  \"nodes\": ").append(nodes.sum()).append(",\n");
+		json.append("  \"deadEnds\": ").append(deadEnds.sum()).append(",\n");
+		json.append("  \"maxDepth\": ").append(maxDepth.get()).append(",\n");
+		json.append("  \"latencyMicros\": {");
+		json.append("\"min\": ").append(micros(latency.getMin()));
+		json.append(", \"mean\": ").append(micros(latency.getMean()));
+		for(double percentile : PERCENTILES)
+		{
+			json.append(", \"p").append(percentileName(percentile)).append("\": ")
+				.append(micros(latency.getValueAtPercentile(percentile)));
+		}
+		json.append(", \"max\": ").append(micros(latency.getMax()));
+		json.append("}\n");
+		json.append("}\n");
+		return json.toString();
+	}
+
+	@Override
+	public String toString()
+	{
+		return toJson();
+	}
+
+	/* sums stripes into a new histogram, locking one stripe at a time */
+	private LatencyHistogram mergeLatency()
+	{
+		LatencyHistogram merged = new LatencyHistogram();
+		for(int stripe = 0; stripe < latencyStripes.length; stripe++)
+		{
+			stripeLocks[stripe].lock();
+			try
+			{
+				merged.add(latencyStripes[stripe]);
+			}
+			finally
+			{
+				stripeLocks[stripe].unlock();
+			}
+		}
+		return merged;
+	}
+
+	private static String micros(double nanos)
+	{
+		return String.format(Locale.ROOT, "%.3f", nanos / 1000.0);
+	}
+
+	/* 99.9 becomes 999, as in p999 */
+	private static String percentileName(double percentile)
+	{
+		String name = Double.toString(percentile);
+		if(name.endsWith(".0"))
+			name = name.substring(0, name.length() - 2);
+		return name.replace(".", "");
+	}
+}
@@ -0,0 +1,542 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import com.gmail.aparna14.sudokuh.data.Board;
+import com.gmail.aparna14.sudokuh.data.BoardGeometry;
+import com.gmail.aparna14.sudokuh.data.LatencyHistogram;
+import com.gmail.aparna14.sudokuh.exceptions.InvalidDataException;
+
+/**
+ * This class serves board solving over TCP, so clients pay JVM startup and solver warm up once
+ * instead of once per board. Protocol is line based ASCII, one request per board:
+ * - 81 (or 16) characters, digits with '0' or '.' for blank cells, answered in the same form
+ * - csv rows exactly as in board files, first row giving the dimension, answered as csv rows
+ * - all cells of the board comma separated on one line (81, 256 or 625 values), answered the same way
+ * Unsolvable board is answered "NO SOLUTION", malformed one "ERROR message", and the connection stays open.
+ * Line "STATS" is answered with request counts and latency percentiles, "QUIT" closes the connection.
+ * Clients may send many requests before reading answers, answers come back in request order and are
+ * flushed once no more request is buffered, so pipelined requests share network writes.
+ *
+ * Each connection is served by its own thread: a virtual thread on JDK 21 or later, a platform thread
+ * otherwise. Connection threads only parse and format, boards are solved by solvers lent from a
+ * SolverPool, hence the pool size bounds CPU used for solving however many clients are connected.
+ * Latency is counted per request from parsing to answer formatted, including wait for a solver
+ * but excluding network time. Requests share no lock: counts are LongAdders and latencies go to
+ * one of several histograms picked by thread, each behind its own lock, merged when stats are read.
+ * Instance is thread safe.
+ * @author aparna
+ *
+ */
+public class SolveServer implements Closeable
+{
+	public static final String STATS_REQUEST = "STATS";
+
+	public static final String QUIT_REQUEST = "QUIT";
+
+	public static final String NO_SOLUTION = "NO SOLUTION";
+
+	public static final String ERROR_PREFIX = "ERROR ";
+
+	private static final int BUFFER_SIZE = 1 << 14;
+
+	private static final int MAX_COMPACT_DIMENSION = 9;
+
+	private final int port;
+
+	private final SolverPool solverPool;
+
+	/* latency stripes, count is a power of two */
+	private final LatencyHistogram[] latencyStripes;
+	private final ReentrantLock[] stripeLocks;
+
+	private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+
+	private final AtomicInteger connectionCount = new AtomicInteger();
+
+	private ServerSocket serverSocket;
+
+	private ExecutorService connectionExecutor;
+
+	private Thread acceptor;
+
+	private final LongAdder requests = new LongAdder();
+
+	private final LongAdder solved = new LongAdder();
+
+	private final LongAdder unsolved = new LongAdder();
+
+	private final LongAdder errors = new LongAdder();
+
+	/**
+	 * @param port - port to listen on, 0 for any free port
+	 * @param solverCount - number of boards solved at once
+	 * @param solverFactory - makes the pooled solvers
+	 */
+	public SolveServer(int port, int solverCount, Supplier<SolverStrategy> solverFactory)
+	{
+		this.port = port;
+		this.solverPool = new SolverPool(solverCount, solverFactory);
+		/* smallest power of two not below 4 * processors, so concurrent requests seldom share a stripe */
+		int stripeCount = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+		this.latencyStripes = new LatencyHistogram[stripeCount];
+		this.stripeLocks = new ReentrantLock[stripeCount];
+		for(int idx = 0; idx < stripeCount; idx++)
+		{
+			latencyStripes[idx] = new LatencyHistogram();
+			stripeLocks[idx] = new ReentrantLock();
+		}
+	}
+
+	/**
+	 * Binds to port on all addresses and starts accepting connections on a non daemon thread,
+	 * which keeps the JVM running until close.
+	 */
+	public synchronized void start() throws IOException
+	{
+		if(serverSocket != null)
+		{
+			throw new IllegalStateException("Server already started");
+		}
+		serverSocket = new ServerSocket();
+		serverSocket.setReuseAddress(true);
+		serverSocket.bind(new InetSocketAddress((InetAddress) null, port), 1024);
+		connectionExecutor = newConnectionExecutor();
+		acceptor = new Thread(this::acceptConnections, "solve-server-acceptor");
+		acceptor.start();
+	}
+
+	/**
+	 * Returns port the server listens on, useful when started on port 0.
+	 */
+	public synchronized int getPort()
+	{
+		return (serverSocket == null) ? port : serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Stops accepting, closes open connections and waits for the acceptor to finish.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		Thread acceptorThread;
+		synchronized(this)
+		{
+			if(serverSocket == null)
+			{
+				return;
+			}
+			serverSocket.close();
+			acceptorThread = acceptor;
+		}
+		try
+		{
+			acceptorThread.join();
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		for(Socket socket : openSockets)
+		{
+			closeQuietly(socket);
+		}
+		connectionExecutor.shutdown();
+	}
+
+	public long getRequestCount()
+	{
+		return requests.sum();
+	}
+
+	public long getSolvedCount()
+	{
+		return solved.sum();
+	}
+
+	public long getErrorCount()
+	{
+		return errors.sum();
+	}
+
+	/**
+	 * @param percentile - 0 to 100
+	 * @return request latency in nanoseconds at percentile
+	 */
+	public long getLatencyAtPercentile(double percentile)
+	{
+		return mergeLatency().getValueAtPercentile(percentile);
+	}
+
+	public String describeStats()
+	{
+		LatencyHistogram latency = mergeLatency();
+		return String.format("requests %d, solved %d, no solution %d, errors %d, connections %d, p50 %.1f us, p99 %.1f us, max %.1f us",
+				requests.sum(), solved.sum(), unsolved.sum(), errors.sum(), connectionCount.get(),
+				latency.getValueAtPercentile(50) / 1000.0, latency.getValueAtPercentile(99) / 1000.0, latency.getMax() / 1000.0);
+	}
+
+	private void record(RequestStatus status, long elapsedNanos)
+	{
+		requests.increment();
+		if(status == RequestStatus.SOLVED)
+			solved.increment();
+		else if(status == RequestStatus.UNSOLVED)
+			unsolved.increment();
+		else
+			errors.increment();
+		/* ReentrantLock rather than synchronized, so a virtual thread waiting on it does not pin its carrier */
+		int stripe = (int) Thread.currentThread().getId() & (latencyStripes.length - 1);
+		ReentrantLock lock = stripeLocks[stripe];
+		lock.lock();
+		try
+		{
+			latencyStripes[stripe].record(elapsedNanos);
+		}
+		finally
+		{
+			lock.unlock();
+		}
+	}
+
+	/* sums stripes into a new histogram, locking one stripe at a time */
+	private LatencyHistogram mergeLatency()
+	{
+		LatencyHistogram merged = new LatencyHistogram();
+		for(int stripe = 0; stripe < latencyStripes.length; stripe++)
+		{
+			stripeLocks[stripe].lock();
+			try
+			{
+				merged.add(latencyStripes[stripe]);
+			}
+			finally
+			{
+				stripeLocks[stripe].unlock();
+			}
+		}
+		return merged;
+	}
+
+	private void acceptConnections()
+	{
+		while(true)
+		{
+			Socket socket;
+			try
+			{
+				socket = serverSocket.accept();
+			}
+			catch(IOException e)
+			{
+				/* server socket closed */
+				return;
+			}
+			try
+			{
+				socket.setTcpNoDelay(true);
+				openSockets.add(socket);
+				connectionCount.incrementAndGet();
+				connectionExecutor.execute(new Connection(socket));
+			}
+			catch(SocketException | RuntimeException e)
+			{
+				openSockets.remove(socket);
+				closeQuietly(socket);
+			}
+		}
+	}
+
+	/*
+	 * Executors.newVirtualThreadPerTaskExecutor exists from JDK 21 (19 and 20 with preview enabled),
+	 * it is looked up so the class still compiles and runs on older JDKs, which get a thread per
+	 * connection from a cached pool.
+	 */
+	private static ExecutorService newConnectionExecutor()
+	{
+		try
+		{
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		}
+		catch(ReflectiveOperationException | UnsupportedOperationException e)
+		{
+			AtomicInteger threadCount = new AtomicInteger();
+			return Executors.newCachedThreadPool(task -> {
+				Thread thread = new Thread(task, "solve-connection-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	private static void closeQuietly(Socket socket)
+	{
+		try
+		{
+			socket.close();
+		}
+		catch(IOException e)
+		{
+			/* nothing to do, connection is gone */
+		}
+	}
+
+	private enum RequestStatus
+	{
+		SOLVED, UNSOLVED, ERROR
+	}
+
+	/* shape of board in request, answer is given in the same shape */
+	private enum RequestForm
+	{
+		COMPACT, CSV_ROWS, CSV_LINE
+	}
+
+	/*
+	 * Serves requests of one connection in order. Boards are reused per dimension.
+	 */
+	private class Connection implements Runnable
+	{
+		private final Socket socket;
+
+		private final Board[] boards = new Board[BoardGeometry.MAX_DIMENSION + 1];
+
+		private final StringBuilder answer = new StringBuilder(BUFFER_SIZE);
+
+		private BufferedReader in;
+
+		private RequestForm form;
+
+		Connection(Socket socket)
+		{
+			this.socket = socket;
+		}
+
+		@Override
+		public void run()
+		{
+			try
+			{
+				in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII), BUFFER_SIZE);
+				BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII), BUFFER_SIZE);
+				String line;
+				while((line = in.readLine()) != null)
+				{
+					line = line.trim();
+					if(line.isEmpty())
+						continue;
+					if(QUIT_REQUEST.equals(line))
+						break;
+					answer.setLength(0);
+					if(STATS_REQUEST.equals(line))
+						answer.append(describeStats()).append('\n');
+					else
+						serve(line);
+					out.append(answer);
+					if(!in.ready())
+						out.flush();
+				}
+				out.flush();
+			}
+			catch(IOException e)
+			{
+				/* client went away or server closed */
+			}
+			catch(InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			finally
+			{
+				openSockets.remove(socket);
+				closeQuietly(socket);
+			}
+		}
+
+		private void serve(String line) throws IOException, InterruptedException
+		{
+			long start = System.nanoTime();
+			RequestStatus status;
+			try
+			{
+				Board board = parse(line);
+				SolverStrategy solver = solverPool.acquire();
+				boolean boardSolved;
+				try
+				{
+					boardSolved = solver.solve(board);
+				}
+				finally
+				{
+					solverPool.release(solver);
+				}
+				if(boardSolved)
+				{
+					format(board);
+					status = RequestStatus.SOLVED;
+				}
+				else
+				{
+					answer.append(NO_SOLUTION).append('\n');
+					status = RequestStatus.UNSOLVED;
+				}
+			}
+			catch(InvalidDataException ide)
+			{
+				answer.append(ERROR_PREFIX).append(ide.getMessage()).append('\n');
+				status = RequestStatus.ERROR;
+			}
+			catch(IllegalArgumentException iae)
+			{
+				/* unsupported dimension or value out of range */
+				answer.append(ERROR_PREFIX).append(iae.getMessage()).append('\n');
+				status = RequestStatus.ERROR;
+			}
+			record(status, System.nanoTime() - start);
+		}
+
+		/*
+		 * Line without comma is compact form. Line with comma holding dimension values is the first
+		 * of dimension csv rows, further rows are read from the connection. Otherwise it holds all cells.
+		 */
+		private Board parse(String line) throws IOException, InvalidDataException
+		{
+			if(line.indexOf(',') < 0)
+			{
+				form = RequestForm.COMPACT;
+				int dimension = (int)Math.round(Math.sqrt(line.length()));
+				if(dimension * dimension != line.length() || dimension > MAX_COMPACT_DIMENSION)
+				{
+					throw new InvalidDataException("Board of " + line.length() + " characters is not supported");
+				}
+				Board board = boardOf(dimension);
+				for(int cell = 0; cell < line.length(); cell++)
+				{
+					char ch = line.charAt(cell);
+					if(ch == '.')
+						board.set(cell, 0);
+					else if(ch >= '0' && ch <= '9')
+						board.set(cell, ch - '0');
+					else
+						throw new InvalidDataException("For input string: \"" + ch + "\"");
+				}
+				return board;
+			}
+
+			String[] values = line.split(",");
+			if(isDimension(values.length))
+			{
+				form = RequestForm.CSV_ROWS;
+				int dimension = values.length;
+				/* all rows are read before any is parsed, so a bad cell does not leave rows behind */
+				String[][] rows = new String[dimension][];
+				rows[0] = values;
+				for(int row = 1; row < dimension; row++)
+				{
+					String rowLine = in.readLine();
+					if(rowLine == null)
+					{
+						throw new InvalidDataException("Board ends after " + row + " rows, expected " + dimension);
+					}
+					rows[row] = rowLine.trim().split(",");
+					if(rows[row].length != dimension)
+					{
+						throw new InvalidDataException("Column length does not match row length in row " + (row + 1));
+					}
+				}
+				Board board = boardOf(dimension);
+				for(int row = 0; row < dimension; row++)
+				{
+					parseValues(rows[row], board, row * dimension);
+				}
+				return board;
+			}
+
+			form = RequestForm.CSV_LINE;
+			int dimension = (int)Math.round(Math.sqrt(values.length));
+			if(dimension * dimension != values.length || !isDimension(dimension))
+			{
+				throw new InvalidDataException("Board of " + values.length + " values is not supported");
+			}
+			Board board = boardOf(dimension);
+			parseValues(values, board, 0);
+			return board;
+		}
+
+		private void parseValues(String[] values, Board board, int firstCell) throws InvalidDataException
+		{
+			for(int idx = 0; idx < values.length; idx++)
+			{
+				try
+				{
+					board.set(firstCell + idx, Integer.parseInt(values[idx].trim()));
+				}
+				catch(NumberFormatException nfe)
+				{
+					throw new InvalidDataException(nfe.getMessage(), nfe);
+				}
+			}
+		}
+
+		private boolean isDimension(int count)
+		{
+			int gridDimension = (int)Math.round(Math.sqrt(count));
+			return count > 1 && count <= BoardGeometry.MAX_DIMENSION && gridDimension * gridDimension == count;
+		}
+
+		private Board boardOf(int dimension)
+		{
+			if(boards[dimension] == null)
+			{
+				boards[dimension] = new Board(dimension);
+			}
+			return boards[dimension];
+		}
+
+		private void format(Board board)
+		{
+			int cellCount = board.getCellCount();
+			int dimension = board.getDimension();
+			if(form == RequestForm.COMPACT)
+			{
+				for(int cell = 0; cell < cellCount; cell++)
+				{
+					answer.append((char) ('0' + board.get(cell)));
+				}
+				answer.append('\n');
+				return;
+			}
+			for(int cell = 0; cell < cellCount; cell++)
+			{
+				answer.append(board.get(cell));
+				boolean rowEnd = (cell + 1) % dimension == 0;
+				if(cell + 1 == cellCount || (rowEnd && form == RequestForm.CSV_ROWS))
+					answer.append('\n');
+				else
+					answer.append(',');
+			}
+		}
+	}
+}
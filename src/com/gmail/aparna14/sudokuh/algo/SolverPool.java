@@ -0,0 +1,66 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * This class holds a fixed number of solvers made by a factory, lent to one thread at a time.
+ * Solvers keep working arrays between boards, so pooling them lets any number of threads solve
+ * without a solver per thread and without serializing on one shared instance.
+ * The pool size also bounds how many boards are solved at once, threads beyond it wait in acquire.
+ * Instance is thread safe.
+ * @author aparna
+ *
+ */
+public class SolverPool
+{
+	private final BlockingQueue<SolverStrategy> idleSolvers;
+
+	private final int size;
+
+	/**
+	 * @param size - number of solvers, normally the number of processors
+	 * @param solverFactory - called size times, up front
+	 * @throws IllegalArgumentException - if size is less than 1
+	 */
+	public SolverPool(int size, Supplier<SolverStrategy> solverFactory)
+	{
+		if(size < 1)
+		{
+			throw new IllegalArgumentException("Pool size must be at least 1 :" + size);
+		}
+		this.size = size;
+		this.idleSolvers = new ArrayBlockingQueue<SolverStrategy>(size);
+		for(int i = 0; i < size; i++)
+		{
+			idleSolvers.add(solverFactory.get());
+		}
+	}
+
+	/**
+	 * Takes an idle solver, waiting for one to be released if all are lent.
+	 */
+	public SolverStrategy acquire() throws InterruptedException
+	{
+		return idleSolvers.take();
+	}
+
+	/**
+	 * Returns solver taken by acquire.
+	 */
+	public void release(SolverStrategy solver)
+	{
+		idleSolvers.offer(solver);
+	}
+
+	public int getSize()
+	{
+		return size;
+	}
+
+	public int getIdleCount()
+	{
+		return idleSolvers.size();
+	}
+}
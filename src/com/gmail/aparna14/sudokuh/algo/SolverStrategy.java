@@ -0,0 +1,42 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+import com.gmail.aparna14.sudokuh.data.Board;
+
+/**
+ * This interface declares the contract shared by sudoku solving engines.
+ * Board is passed as n^2*n^2 matrix, where 0 marks a blank cell.
+ * On success the blank cells are filled in place.
+ * Board may also be passed as flat Board, which solvers working on flat cell arrays take as is.
+ * @author aparna
+ *
+ */
+public interface SolverStrategy
+{
+	/**
+	 * Solves for the missing spaces in sudoku board.
+	 * @param sudokuArr - sudoku matrix, blank cells hold 0
+	 * @return true, if solution exists and was written to sudokuArr
+	 */
+	public boolean solve(int[][] sudokuArr);
+	
+	/**
+	 * Same as solve(int[][]) for flat board. By default board is copied to matrix and back,
+	 * solvers keeping cells in flat arrays override this to read the board directly.
+	 */
+	public default boolean solve(Board board)
+	{
+		int[][] sudokuArr = board.toArray();
+		if(!solve(sudokuArr))
+		{
+			return false;
+		}
+		board.copyFrom(sudokuArr);
+		return true;
+	}
+	
+	/**
+	 * Returns number of search nodes visited during last solve,
+	 * used for comparing strategies on the same input.
+	 */
+	public long getNodeCount();
+}
@@ -0,0 +1,390 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.gmail.aparna14.sudokuh.data.Board;
+import com.gmail.aparna14.sudokuh.exceptions.InvalidDataException;
+
+/**
+ * This class parses sudoku boards in csv form directly from bytes of input stream.
+ * Digits are accumulated into int values and stored straight into board rows,
+ * no String, boxed Integer or intermediate list is created per line or per cell.
+ * Shape of the board is checked while reading: the first row gives the dimension n,
+ * every other row must have n values and the board must have n rows.
+ *
+ * Cells are accepted exactly like Integer.parseInt accepts them, and errors are reported
+ * with the same InvalidDataException messages as the line based reader:
+ * "For input string: ..." for bad cell and "Column length does not match row length..."
+ * for ragged rows. As with String.split, empty cells at end of line are ignored.
+ *
+ * In single board mode every line is a row, hence blank line is bad cell.
+ * In multi board mode boards are separated by one or more blank lines.
+ * Boards are returned as matrix, or as flat Board parsed through one reused matrix.
+ * Bytes come from input stream, subclass may supply them from other source by overriding fill.
+ * Instance is not thread safe.
+ * @author aparna
+ *
+ */
+public class StreamingCSVParser implements Closeable
+{
+	private static final String INEQUALCOLUMNLENGTH = "Column length does not match row length";
+
+	static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+	private static final byte COMMA = ',';
+	private static final byte NEWLINE = '\n';
+	private static final byte CARRIAGE_RETURN = '\r';
+
+	/* result of reading one line */
+	private static final int END_OF_INPUT = -1;
+	private static final int BLANK_LINE = -2;
+
+	private final InputStream in;
+
+	private final boolean multiBoard;
+
+	/* bytes not yet parsed are between position and limit */
+	protected ByteBuffer buffer;
+
+	/* first row of a board is parsed here, as dimension is not known before */
+	private int[] firstRow = new int[32];
+
+	/* bytes of current cell, only used for building error message */
+	private byte[] cellBytes = new byte[16];
+
+	private int cellLength;
+
+	/* boards returned so far */
+	private int boardCount;
+
+	/* matrix flat boards are parsed into */
+	private int[][] scratch;
+
+	/**
+	 * @param in - input stream, read in large blocks, hence need not be buffered
+	 * @param multiBoard - true, if boards are separated by blank lines
+	 */
+	public StreamingCSVParser(InputStream in, boolean multiBoard)
+	{
+		this(in, multiBoard, DEFAULT_BUFFER_SIZE);
+	}
+
+	/**
+	 * @param bufferSize - size of read buffer, small files need not pay for default size
+	 */
+	public StreamingCSVParser(InputStream in, boolean multiBoard, int bufferSize)
+	{
+		this.in = in;
+		this.multiBoard = multiBoard;
+		this.buffer = ByteBuffer.wrap(new byte[Math.max(1, bufferSize)]);
+		this.buffer.limit(0);
+	}
+
+	/**
+	 * For subclass supplying bytes by overriding fill, starts with empty buffer.
+	 */
+	protected StreamingCSVParser(boolean multiBoard)
+	{
+		this.in = null;
+		this.multiBoard = multiBoard;
+		this.buffer = ByteBuffer.allocate(0);
+	}
+
+	/**
+	 * Reads next board.
+	 * @param reuse - board to fill, if it has same dimension as board read, may be null
+	 * @return board read (reuse or newly allocated), null if there are no more boards.
+	 * In single board mode, empty input gives 0*0 board.
+	 */
+	public int[][] nextBoard(int[][] reuse) throws IOException, InvalidDataException
+	{
+		int firstCount;
+		do
+		{
+			firstCount = readLine(firstRow, true);
+		}
+		while(firstCount == BLANK_LINE);
+
+		if(firstCount == END_OF_INPUT)
+		{
+			return (!multiBoard && boardCount++ == 0) ? new int[0][0] : null;
+		}
+
+		int dimension = firstCount;
+		int[][] board = (reuse != null && reuse.length == dimension) ? reuse : new int[dimension][dimension];
+		if(dimension > 0)
+		{
+			System.arraycopy(firstRow, 0, board[0], 0, dimension);
+		}
+
+		/*
+		 * Rows are read upto end of board before shape is judged, so that bad cell
+		 * in later row is reported first, as before. Rows beyond dimension are only counted.
+		 */
+		int rows = 1;
+		int raggedRow = -1;
+		int raggedCount = 0;
+		while(true)
+		{
+			int[] target = firstRow;
+			if(rows < dimension)
+			{
+				if(board[rows].length != dimension)
+					board[rows] = new int[dimension];
+				target = board[rows];
+			}
+
+			int count = readLine(target, false);
+			if(count == END_OF_INPUT || count == BLANK_LINE)
+			{
+				break;
+			}
+			if(count != dimension && raggedRow == -1)
+			{
+				raggedRow = rows;
+				raggedCount = count;
+			}
+			rows++;
+		}
+
+		if(rows != dimension)
+		{
+			throw new InvalidDataException(INEQUALCOLUMNLENGTH + "in column 1:" + dimension);
+		}
+		if(raggedRow != -1)
+		{
+			throw new InvalidDataException(INEQUALCOLUMNLENGTH + "in column " + (raggedRow + 1) + ":" + raggedCount);
+		}
+		boardCount++;
+		return board;
+	}
+
+	/**
+	 * Same as nextBoard(int[][]) for flat board.
+	 * @param reuse - board to fill, if it has same dimension as board read, may be null
+	 * @return board read (reuse or newly allocated), null if there are no more boards
+	 * @throws InvalidDataException - also if dimension is not a perfect square, or a value is out of range
+	 */
+	public Board nextBoard(Board reuse) throws IOException, InvalidDataException
+	{
+		scratch = nextBoard(scratch);
+		if(scratch == null)
+		{
+			return null;
+		}
+		try
+		{
+			Board board = (reuse != null && reuse.getDimension() == scratch.length) ? reuse : new Board(scratch.length);
+			board.copyFrom(scratch);
+			return board;
+		}
+		catch(IllegalArgumentException e)
+		{
+			throw new InvalidDataException(e.getMessage() + " of board " + boardCount, e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		if(in != null)
+		{
+			in.close();
+		}
+	}
+
+	/*
+	 * Parses one line into row. Values beyond row length are counted but not stored,
+	 * unless growRow is set, then row grows (used for first row of board, kept in firstRow).
+	 * Returns number of values, END_OF_INPUT or BLANK_LINE (multi board mode only).
+	 */
+	private int readLine(int[] row, boolean growRow) throws IOException, InvalidDataException
+	{
+		int b = read();
+		if(b == -1)
+		{
+			return END_OF_INPUT;
+		}
+
+		/* in multi board mode, line of only white space separates boards */
+		cellLength = 0;
+		if(multiBoard)
+		{
+			while(b != -1 && b != NEWLINE && b != CARRIAGE_RETURN && b <= ' ')
+			{
+				appendCellByte(b);
+				b = read();
+			}
+			if(b == -1 || b == NEWLINE || b == CARRIAGE_RETURN)
+			{
+				skipLineFeed(b);
+				return BLANK_LINE;
+			}
+		}
+
+		int count = 0;
+		int pendingEmptyCells = 0;
+		boolean lineEmpty = true;
+
+		while(true)
+		{
+			/* parse one cell, starting with byte b */
+			boolean negative = false;
+			boolean digitSeen = false;
+			/* leading white space is part of the cell, which makes it bad */
+			boolean invalid = cellLength > 0;
+			long value = 0;
+
+			if(b == '-' || b == '+')
+			{
+				negative = (b == '-');
+				appendCellByte(b);
+				b = read();
+			}
+			while(b != -1 && b != COMMA && b != NEWLINE && b != CARRIAGE_RETURN)
+			{
+				appendCellByte(b);
+				if(b >= '0' && b <= '9' && !invalid)
+				{
+					value = value * 10 + (b - '0');
+					digitSeen = true;
+					if(value > (long)Integer.MAX_VALUE + 1)
+						invalid = true;
+				}
+				else
+				{
+					invalid = true;
+				}
+				b = read();
+			}
+
+			boolean emptyCell = (cellLength == 0);
+			if(!emptyCell)
+			{
+				lineEmpty = false;
+				if(invalid || !digitSeen || (!negative && value > Integer.MAX_VALUE))
+				{
+					throw badCell();
+				}
+				/* empty cell followed by value is not ignored, like with String.split */
+				if(pendingEmptyCells > 0)
+				{
+					cellLength = 0;
+					throw badCell();
+				}
+				if(count >= row.length && growRow)
+				{
+					row = growFirstRow(count);
+				}
+				if(count < row.length)
+				{
+					row[count] = negative ? (int)-value : (int)value;
+				}
+				count++;
+			}
+			else
+			{
+				pendingEmptyCells++;
+			}
+			cellLength = 0;
+
+			if(b != COMMA)
+			{
+				break;
+			}
+			lineEmpty = false;
+			b = read();
+		}
+		skipLineFeed(b);
+
+		/* empty line has one empty cell, which Integer.parseInt rejects */
+		if(lineEmpty)
+		{
+			throw badCell();
+		}
+		return count;
+	}
+
+	private InvalidDataException badCell()
+	{
+		String cell = new String(cellBytes, 0, cellLength, StandardCharsets.UTF_8);
+		String message = "For input string: \"" + cell + "\"";
+		if(multiBoard)
+		{
+			message += " in board " + (boardCount + 1);
+		}
+		return new InvalidDataException(message);
+	}
+
+	private int[] growFirstRow(int count)
+	{
+		int[] grown = new int[Math.max(count + 1, firstRow.length * 2)];
+		System.arraycopy(firstRow, 0, grown, 0, firstRow.length);
+		firstRow = grown;
+		return grown;
+	}
+
+	private void appendCellByte(int b)
+	{
+		if(cellLength == cellBytes.length)
+		{
+			byte[] grown = new byte[cellBytes.length * 2];
+			System.arraycopy(cellBytes, 0, grown, 0, cellLength);
+			cellBytes = grown;
+		}
+		cellBytes[cellLength++] = (byte)b;
+	}
+
+	/* "\r\n" ends line like "\n" and "\r" */
+	private void skipLineFeed(int b) throws IOException
+	{
+		if(b == CARRIAGE_RETURN && peek() == NEWLINE)
+		{
+			buffer.get();
+		}
+	}
+
+	private int read() throws IOException
+	{
+		if(!buffer.hasRemaining() && !fill())
+		{
+			return -1;
+		}
+		return buffer.get() & 0xFF;
+	}
+
+	private int peek() throws IOException
+	{
+		if(!buffer.hasRemaining() && !fill())
+		{
+			return -1;
+		}
+		return buffer.get(buffer.position()) & 0xFF;
+	}
+
+	/**
+	 * Refills buffer once all its bytes are parsed.
+	 * @return false, if there are no more bytes
+	 */
+	protected boolean fill() throws IOException
+	{
+		int read;
+		do
+		{
+			read = in.read(buffer.array(), 0, buffer.capacity());
+		}
+		while(read == 0);
+
+		if(read < 0)
+		{
+			return false;
+		}
+		buffer.position(0);
+		buffer.limit(read);
+		return true;
+	}
+}
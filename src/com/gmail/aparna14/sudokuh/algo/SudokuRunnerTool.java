@@ -1,27 +1,128 @@
 package com.gmail.aparna14.sudokuh.algo;
 
+import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
 
+import com.gmail.aparna14.sudokuh.data.BatchResult;
+import com.gmail.aparna14.sudokuh.data.Board;
+import com.gmail.aparna14.sudokuh.data.Difficulty;
+import com.gmail.aparna14.sudokuh.data.GeneratedPuzzle;
+import com.gmail.aparna14.sudokuh.data.SolutionCount;
 import com.gmail.aparna14.sudokuh.exceptions.InvalidDataException;
 import com.gmail.aparna14.sudokuh.algo.CSVFileManager;
 import com.gmail.aparna14.sudokuh.algo.ManagerFactory;
 
+/**
+ * Command line entry point.
+ * Usage:
+ * SudokuRunnerTool inputFile.csv [trace options] - solves one board
+ * SudokuRunnerTool -batch inputFileOrDirectory [outputFile.csv] [-parallel threads] [-pipeline] [-metrics metricsFile.json]
+ *   [-cache capacity] [trace options] - solves many boards in one run, with -pipeline reading, solving (on parallel threads) and
+ *   writing overlap, boards are not all held in memory. With -metrics, solve statistics of the batch are written as JSON.
+ *   With -cache, boards equivalent to a board solved before are answered from a cache of that many boards
+ * SudokuRunnerTool -convert inputFile.csv outputFile.sdkb - converts csv boards to binary board file
+ * SudokuRunnerTool -check inputFileOrDirectory - reports boards which do not have exactly one solution
+ * SudokuRunnerTool -generate count outputFile [-dimension n] [-difficulty EASY|MEDIUM|HARD|EXPERT] [-seed seed] [-parallel threads]
+ *   - generates puzzles with one solution, same seed gives same puzzles
+ * SudokuRunnerTool -serve port [-solvers count] [-metrics metricsFile.json] [-cache capacity] [trace options]
+ *   - answers boards over TCP (see SolveServer) until stopped, solving up to count boards at once,
+ *   by default one per processor. Server statistics are printed and metrics written on shutdown.
+ * In batch mode, input and output files ending with .sdkb are binary board files.
+ * Trace options: -trace OFF|SUMMARY|STEP [-traceFile file] - solve trace, written to standard error
+ *   unless file is given. Default is SUMMARY for one board and OFF in batch mode.
+ * @author aparna
+ *
+ */
 public class SudokuRunnerTool {
 	
+	private static final String BATCH_OPTION = "-batch";
+	private static final String PARALLEL_OPTION = "-parallel";
+	private static final String CONVERT_OPTION = "-convert";
+	private static final String PIPELINE_OPTION = "-pipeline";
+	private static final String CHECK_OPTION = "-check";
+	private static final String GENERATE_OPTION = "-generate";
+	private static final String DIMENSION_OPTION = "-dimension";
+	private static final String DIFFICULTY_OPTION = "-difficulty";
+	private static final String SEED_OPTION = "-seed";
+	private static final String METRICS_OPTION = "-metrics";
+	private static final String TRACE_OPTION = "-trace";
+	private static final String TRACE_FILE_OPTION = "-traceFile";
+	private static final String CACHE_OPTION = "-cache";
+	private static final String SERVE_OPTION = "-serve";
+	private static final String SOLVERS_OPTION = "-solvers";
+	private static final String BINARY_EXTENSION = ".sdkb";
+	
 	public static void main(String[] args)
 	{
+		if(args.length > 1 && BATCH_OPTION.equals(args[0]))
+		{
+			String outputPath = defaultBatchOutputPath(args[1]);
+			int parallelism = 1;
+			boolean pipeline = false;
+			SolverSettings settings = new SolverSettings(TraceLevel.OFF);
+			for(int i = 2; i < args.length; i++)
+			{
+				if(PARALLEL_OPTION.equals(args[i]) && i + 1 < args.length)
+					parallelism = Integer.parseInt(args[++i]);
+				else if(PIPELINE_OPTION.equals(args[i]))
+					pipeline = true;
+				else if(settings.isOption(args[i]) && i + 1 < args.length)
+					settings.setOption(args[i], args[++i]);
+				else
+					outputPath = args[i];
+			}
+			runBatch(args[1], outputPath, parallelism, pipeline, settings);
+			return;
+		}
+		if(args.length > 2 && CONVERT_OPTION.equals(args[0]))
+		{
+			runConvert(args[1], args[2]);
+			return;
+		}
+		if(args.length > 1 && CHECK_OPTION.equals(args[0]))
+		{
+			runCheck(args[1]);
+			return;
+		}
+		if(args.length > 2 && GENERATE_OPTION.equals(args[0]))
+		{
+			runGenerate(args);
+			return;
+		}
+		if(args.length > 1 && SERVE_OPTION.equals(args[0]))
+		{
+			runServer(args);
+			return;
+		}
+		
 		int[][] sudokuArr = null;
+		SolverSettings settings = new SolverSettings(TraceLevel.SUMMARY);
 		try
 		{
+			for(int i = 1; i + 1 < args.length; i += 2)
+			{
+				if(settings.isOption(args[i]))
+					settings.setOption(args[i], args[i + 1]);
+			}
 			CSVFileManager csvFileManager = ManagerFactory.getCSVFileManager();
 			sudokuArr  = csvFileManager.readFile(args[0]);
 		
 			if(sudokuArr != null)
 			{
 				/* solve blank spaces in sudoku board */
- 				 HeursiticAlgo hr = new HeursiticAlgo();
-				 if(hr.solveBoard(sudokuArr))
+				 settings.open();
+ 				 SolverStrategy hr = settings.get();
+				 boolean solved = hr.solve(sudokuArr);
+				 settings.close();
+				 if(solved)
 				 {
 					 printArr(sudokuArr);
 					 /* write output to file */
@@ -46,17 +147,402 @@ public class SudokuRunnerTool {
 		{
 			System.out.println(ide.getMessage() + ":" + ide.getCause());
 		}
-		
+		catch(IllegalArgumentException iae)
+		{
+			System.out.println(iae.getMessage());
+		}
+		finally
+		{
+			settings.closeQuietly();
+		}
+	}
+	
+	/*
+	 * Reads all boards as flat boards, solves them with reused solvers and writes results to one file.
+	 * With parallelism more than 1, boards are spread over that many threads.
+	 * With pipeline, boards stream through PipelinedBatchRunner instead.
+	 * Solvers are made by settings, which share one SolveMetrics and one trace sink among them.
+	 */
+	private static void runBatch(String inputPath, String outputPath, int parallelism, boolean pipeline, SolverSettings settings)
+	{
+		Supplier<SolverStrategy> solverFactory = settings;
+		try
+		{
+			settings.open();
+			if(pipeline)
+			{
+				PipelinedBatchRunner runner = new PipelinedBatchRunner(Math.max(1, parallelism),
+						PipelinedBatchRunner.DEFAULT_QUEUE_CAPACITY, solverFactory);
+				BatchResult result = runner.run(inputPath, outputPath);
+				printBatchResult(result);
+				System.out.print(runner.describeStats());
+				settings.close();
+				return;
+			}
+			
+			CSVFileManager csvFileManager = ManagerFactory.getCSVFileManager();
+			BinaryFileManager binaryFileManager = ManagerFactory.getBinaryFileManager();
+			List<Board> boards = isBinary(inputPath) ? binaryFileManager.readFlatBoards(inputPath) : csvFileManager.readFlatBoards(inputPath);
+			
+			BatchResult result;
+			if(parallelism > 1)
+			{
+				ParallelBatchSolver parallelSolver = new ParallelBatchSolver(parallelism, solverFactory);
+				try
+				{
+					result = parallelSolver.solveBoards(boards);
+				}
+				finally
+				{
+					parallelSolver.shutdown();
+				}
+			}
+			else
+			{
+				result = new BatchSolver(solverFactory.get()).solveBoards(boards);
+			}
+			if(isBinary(outputPath))
+				binaryFileManager.writeFlatBoardsToFile(boards, result, outputPath);
+			else
+				csvFileManager.writeFlatBoardsToFile(boards, outputPath);
+			printBatchResult(result);
+			settings.close();
+		}
+		catch(FileNotFoundException fe)
+		{
+			System.out.println(" Unable to open file " + inputPath);
+		}
+		catch(IOException e)
+		{
+			System.out.println("Error reading from input file or writing to output file " + e.getMessage());
+		}
+		catch(InvalidDataException ide)
+		{
+			System.out.println(ide.getMessage() + ":" + ide.getCause());
+		}
+		catch(IllegalArgumentException iae)
+		{
+			/* binary file holds boards of one dimension only */
+			System.out.println(iae.getMessage());
+		}
+		finally
+		{
+			settings.closeQuietly();
+		}
+	}
+	
+	private static void printBatchResult(BatchResult result)
+	{
+		for(int idx = 0; idx < result.getBoardCount(); idx++)
+		{
+			if(!result.isSolved(idx))
+				System.out.println("Solution for board " + (idx + 1) + " does not exist");
+		}
+		System.out.println(result);
+	}
+	
+	private static void runConvert(String inputPath, String outputPath)
+	{
+		try
+		{
+			int count = ManagerFactory.getBinaryFileManager().convertFromCSV(inputPath, outputPath);
+			System.out.println("Converted " + count + " boards to " + outputPath);
+		}
+		catch(FileNotFoundException fe)
+		{
+			System.out.println(" Unable to open file " + inputPath);
+		}
+		catch(IOException e)
+		{
+			System.out.println("Error reading from input file or writing to output file " + e.getMessage());
+		}
+		catch(InvalidDataException ide)
+		{
+			System.out.println(ide.getMessage() + ":" + ide.getCause());
+		}
+	}
+	
+	/*
+	 * Counts solutions of every board up to 2, printing boards with none or several.
+	 */
+	private static void runCheck(String inputPath)
+	{
+		try
+		{
+			List<int[][]> boards = isBinary(inputPath) ? ManagerFactory.getBinaryFileManager().readBoards(inputPath)
+					: ManagerFactory.getCSVFileManager().readBoards(inputPath);
+			SolutionCounter counter = new SolutionCounter();
+			int unique = 0;
+			int unsolvable = 0;
+			for(int idx = 0; idx < boards.size(); idx++)
+			{
+				SolutionCount count = counter.countSolutions(boards.get(idx), 2);
+				if(count.isUnique())
+				{
+					unique++;
+					continue;
+				}
+				if(!count.hasSolution())
+					unsolvable++;
+				System.out.println("Board " + (idx + 1) + " has " + count);
+			}
+			System.out.println("Checked " + boards.size() + " boards: " + unique + " unique, " + unsolvable
+					+ " without solution, " + (boards.size() - unique - unsolvable) + " with several solutions");
+		}
+		catch(FileNotFoundException fe)
+		{
+			System.out.println(" Unable to open file " + inputPath);
+		}
+		catch(IOException e)
+		{
+			System.out.println("Error reading from input file " + e.getMessage());
+		}
+		catch(InvalidDataException ide)
+		{
+			System.out.println(ide.getMessage() + ":" + ide.getCause());
+		}
+		catch(IllegalArgumentException iae)
+		{
+			System.out.println(iae.getMessage());
+		}
+	}
+	
+	/*
+	 * Generates puzzles as given by -generate arguments and writes them to output file.
+	 */
+	private static void runGenerate(String[] args)
+	{
+		String outputPath = args[2];
+		try
+		{
+			int count = Integer.parseInt(args[1]);
+			int dimension = 9;
+			Difficulty difficulty = null;
+			long seed = System.nanoTime();
+			int parallelism = 1;
+			for(int i = 3; i + 1 < args.length; i += 2)
+			{
+				if(DIMENSION_OPTION.equals(args[i]))
+					dimension = Integer.parseInt(args[i + 1]);
+				else if(DIFFICULTY_OPTION.equals(args[i]))
+					difficulty = Difficulty.valueOf(args[i + 1].toUpperCase());
+				else if(SEED_OPTION.equals(args[i]))
+					seed = Long.parseLong(args[i + 1]);
+				else if(PARALLEL_OPTION.equals(args[i]))
+					parallelism = Integer.parseInt(args[i + 1]);
+			}
+
+			long start = System.nanoTime();
+			List<GeneratedPuzzle> puzzles = PuzzleGenerator.generateAll(dimension, seed, count, difficulty, Math.max(1, parallelism));
+			long elapsedNanos = System.nanoTime() - start;
+
+			List<int[][]> boards = new ArrayList<int[][]>(puzzles.size());
+			int[] perDifficulty = new int[Difficulty.values().length];
+			for(GeneratedPuzzle puzzle : puzzles)
+			{
+				boards.add(puzzle.getPuzzle());
+				perDifficulty[puzzle.getDifficulty().ordinal()]++;
+			}
+			if(isBinary(outputPath))
+				ManagerFactory.getBinaryFileManager().writeBoardsToFile(boards, outputPath);
+			else
+				ManagerFactory.getCSVFileManager().writeBoardsToFile(boards, outputPath);
+
+			StringBuilder sb = new StringBuilder();
+			sb.append(String.format("Generated %d of %d puzzles in %.1f ms, seed %d:", puzzles.size(), count, elapsedNanos / 1e6, seed));
+			for(Difficulty level : Difficulty.values())
+			{
+				sb.append(' ').append(level).append('=').append(perDifficulty[level.ordinal()]);
+			}
+			System.out.println(sb.toString());
+		}
+		catch(IOException e)
+		{
+			System.out.println("Error writing to output file " + e.getMessage());
+		}
+		catch(IllegalArgumentException iae)
+		{
+			/* also thrown for malformed number or unknown difficulty */
+			System.out.println(iae.getMessage());
+		}
+	}
+	
+	/*
+	 * Starts SolveServer as given by -serve arguments. The acceptor thread keeps the JVM running,
+	 * a shutdown hook closes the server, prints its statistics and writes metrics.
+	 */
+	private static void runServer(String[] args)
+	{
+		SolverSettings settings = new SolverSettings(TraceLevel.OFF);
+		try
+		{
+			int port = Integer.parseInt(args[1]);
+			int solverCount = Runtime.getRuntime().availableProcessors();
+			for(int i = 2; i + 1 < args.length; i += 2)
+			{
+				if(SOLVERS_OPTION.equals(args[i]))
+					solverCount = Integer.parseInt(args[i + 1]);
+				else if(settings.isOption(args[i]))
+					settings.setOption(args[i], args[i + 1]);
+			}
+			settings.open();
+			SolveServer server = new SolveServer(port, solverCount, settings);
+			server.start();
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try
+				{
+					server.close();
+					System.out.println(server.describeStats());
+					settings.close();
+				}
+				catch(IOException e)
+				{
+					System.out.println("Error closing server " + e.getMessage());
+				}
+			}, "solve-server-shutdown"));
+			System.out.println("Solving boards on port " + server.getPort() + " with " + solverCount + " solvers");
+		}
+		catch(IOException e)
+		{
+			System.out.println("Unable to start server " + e.getMessage());
+			settings.closeQuietly();
+		}
+		catch(IllegalArgumentException iae)
+		{
+			/* also thrown for malformed number or unknown trace level */
+			System.out.println(iae.getMessage());
+			settings.closeQuietly();
+		}
+	}
+	
+	private static boolean isBinary(String path)
+	{
+		return path.toLowerCase().endsWith(BINARY_EXTENSION);
+	}
+	
+	/* input name with _batch_output.csv suffix, in current working directory */
+	private static String defaultBatchOutputPath(String inputPath)
+	{
+		String inputName = new File(inputPath).getName();
+		if(inputName.lastIndexOf('.') > 0)
+			inputName = inputName.substring(0, inputName.lastIndexOf('.'));
+		return new File(System.getProperty("user.dir"), inputName + "_batch_output.csv").getPath();
 	}
 	
 	private static void printArr(int[][] sudokuArr)
 	{
-		for(int i=0; i<9; i++)
+		/* values of boards larger than 9*9 have two digits, pad to keep columns aligned */
+		String format = (sudokuArr.length > 9) ? "%2d " : "%d ";
+		for(int i=0; i<sudokuArr.length; i++)
 		{
-			for(int j=0; j<9; j++)
-				System.out.print(sudokuArr[i][j] + " ");
-			System.out.println();
+			StringBuilder sb = new StringBuilder();
+			for(int j=0; j<sudokuArr[i].length; j++)
+				sb.append(String.format(format, sudokuArr[i][j]));
+			System.out.println(sb.toString());
 		}
 	}
 
+	/*
+	 * Solver options common to single board and batch mode: -metrics, -cache and trace options.
+	 * Makes HeursiticAlgo solvers which share one SolveMetrics, one SolveCache and one trace sink,
+	 * opened by open and written out or closed by close.
+	 */
+	private static class SolverSettings implements Supplier<SolverStrategy>
+	{
+		private String metricsPath;
+		private TraceLevel traceLevel;
+		private String tracePath;
+		private int cacheCapacity;
+		private SolveMetrics metrics;
+		private SolveCache cache;
+		private AsyncTraceSink traceSink;
+		
+		SolverSettings(TraceLevel defaultTraceLevel)
+		{
+			this.traceLevel = defaultTraceLevel;
+		}
+		
+		boolean isOption(String arg)
+		{
+			return METRICS_OPTION.equals(arg) || TRACE_OPTION.equals(arg) || TRACE_FILE_OPTION.equals(arg)
+					|| CACHE_OPTION.equals(arg);
+		}
+		
+		/* throws IllegalArgumentException for unknown trace level or malformed cache capacity */
+		void setOption(String option, String value)
+		{
+			if(METRICS_OPTION.equals(option))
+				metricsPath = value;
+			else if(TRACE_OPTION.equals(option))
+				traceLevel = TraceLevel.valueOf(value.toUpperCase());
+			else if(TRACE_FILE_OPTION.equals(option))
+				tracePath = value;
+			else if(CACHE_OPTION.equals(option))
+				cacheCapacity = Integer.parseInt(value);
+		}
+		
+		void open() throws IOException
+		{
+			if(metricsPath != null)
+				metrics = new SolveMetrics();
+			if(cacheCapacity != 0)
+				cache = new SolveCache(cacheCapacity);
+			if(traceLevel != TraceLevel.OFF)
+				traceSink = (tracePath == null) ? new AsyncTraceSink(System.err) : new AsyncTraceSink(tracePath);
+		}
+		
+		@Override
+		public SolverStrategy get()
+		{
+			HeursiticAlgo solver = new HeursiticAlgo();
+			solver.setListener(metrics);
+			solver.setTrace(traceLevel, traceSink);
+			return (cache == null) ? solver : new CachingSolver(solver, cache);
+		}
+		
+		/* writes metrics, prints cache statistics and flushes trace */
+		void close() throws IOException
+		{
+			if(cache != null)
+			{
+				System.out.println(cache);
+				cache = null;
+			}
+			if(traceSink != null)
+			{
+				AsyncTraceSink sink = traceSink;
+				traceSink = null;
+				sink.close();
+			}
+			if(metrics != null)
+			{
+				Writer writer = new OutputStreamWriter(new FileOutputStream(metricsPath), StandardCharsets.UTF_8);
+				try
+				{
+					writer.write(metrics.toJson());
+				}
+				finally
+				{
+					writer.close();
+				}
+				metrics = null;
+				System.out.println("Solve metrics written to " + metricsPath);
+			}
+		}
+		
+		/* stops trace writer after a failure, without writing metrics */
+		void closeQuietly()
+		{
+			metrics = null;
+			cache = null;
+			try
+			{
+				close();
+			}
+			catch(IOException e)
+			{
+				System.out.println("Error writing trace " + e.getMessage());
+			}
+		}
+	}
 }
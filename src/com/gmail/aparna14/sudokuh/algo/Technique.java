@@ -0,0 +1,25 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+/**
+ * Human solving techniques applied by ConstraintPropagator.
+ * Singles fill cells, the others only remove candidates, which in turn lead to more singles.
+ * @author aparna
+ *
+ */
+public enum Technique
+{
+	/* blank cell has only one candidate left */
+	NAKED_SINGLE,
+
+	/* value has only one candidate cell left in row, column or grid */
+	HIDDEN_SINGLE,
+
+	/* candidates of k cells of a unit hold only k values, which are removed from rest of the unit */
+	NAKED_GROUP,
+
+	/* value's candidates in a grid lie in one row or column, value is removed from rest of that line */
+	POINTING,
+
+	/* value's candidates in a row or column lie in one grid, value is removed from rest of that grid */
+	BOX_LINE_REDUCTION
+}
@@ -0,0 +1,18 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+/**
+ * How much HeursiticAlgo writes to its AsyncTraceSink while solving.
+ * @author aparna
+ *
+ */
+public enum TraceLevel
+{
+	/* nothing is traced, solve is not timed for tracing */
+	OFF,
+
+	/* one line per board: solved or not, search nodes, dead ends and time taken */
+	SUMMARY,
+
+	/* summary, preceded by every cell determined by the rules */
+	STEP
+}
@@ -0,0 +1,51 @@
+package com.gmail.aparna14.sudokuh.data;
+
+/*
+ * This class holds the outcome of solving many boards in one run.
+ */
+public class BatchResult {
+	
+	/* solved[i] is true, if ith board of the batch was solved */
+	private boolean[] solved;
+	
+	private int solvedCount;
+	
+	private long elapsedNanos;
+	
+	public BatchResult(boolean[] solved, int solvedCount, long elapsedNanos)
+	{
+		this.solved = solved;
+		this.solvedCount = solvedCount;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	public boolean isSolved(int boardIdx) {
+		return solved[boardIdx];
+	}
+
+	public int getBoardCount() {
+		return solved.length;
+	}
+
+	public int getSolvedCount() {
+		return solvedCount;
+	}
+
+	public int getFailedCount() {
+		return solved.length - solvedCount;
+	}
+
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	public double getPuzzlesPerSecond() {
+		return (elapsedNanos == 0) ? 0 : solved.length / (elapsedNanos / 1e9);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Solved %d of %d puzzles in %.1f ms (%.1f puzzles/sec), failures: %d",
+				solvedCount, solved.length, elapsedNanos / 1e6, getPuzzlesPerSecond(), getFailedCount());
+	}
+}
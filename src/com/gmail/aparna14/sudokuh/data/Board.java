@@ -0,0 +1,191 @@
+package com.gmail.aparna14.sudokuh.data;
+
+import java.util.Arrays;
+
+/**
+ * This class holds n^2*n^2 sudoku board in one byte array, cells in row major order
+ * (cell = row * dimension + col) as numbered by BoardGeometry, 0 marking blank cell.
+ * A 9*9 board takes one 81 byte array instead of the 10 arrays and 4 bytes per cell of int[][],
+ * so large batches need about a quarter of the heap and a board is scanned without pointer chasing.
+ * Row, column and grid of a cell, its peers and the cells of each unit come from getGeometry().
+ *
+ * Values are checked to be in range 0 - dimension when set, solvers need not check them again.
+ * Adapters fromArray, toArray and copyTo keep int[][] boards working.
+ * Instance is not thread safe.
+ * @author aparna
+ *
+ */
+public final class Board
+{
+	private final BoardGeometry geometry;
+
+	private final byte[] cells;
+
+	/**
+	 * Creates blank board.
+	 * @param dimension - no of rows /columns, e.g 9 , 16 or 25
+	 * @throws IllegalArgumentException - if dimension is not a perfect square or is too large
+	 */
+	public Board(int dimension)
+	{
+		this.geometry = BoardGeometry.forDimension(dimension);
+		this.cells = new byte[geometry.getCellCount()];
+	}
+
+	/**
+	 * Creates board holding values of matrix.
+	 * @throws IllegalArgumentException - if matrix is not n^2*n^2 or has value out of range
+	 */
+	public static Board fromArray(int[][] sudokuArr)
+	{
+		Board board = new Board(sudokuArr.length);
+		board.copyFrom(sudokuArr);
+		return board;
+	}
+
+	public BoardGeometry getGeometry()
+	{
+		return geometry;
+	}
+
+	public int getDimension()
+	{
+		return geometry.getDimension();
+	}
+
+	public int getCellCount()
+	{
+		return cells.length;
+	}
+
+	public int get(int cell)
+	{
+		return cells[cell];
+	}
+
+	public int get(int row, int col)
+	{
+		return cells[row * geometry.getDimension() + col];
+	}
+
+	/**
+	 * @throws IllegalArgumentException - if value is not in range 0 - dimension
+	 */
+	public void set(int cell, int value)
+	{
+		if(value < 0 || value > geometry.getDimension())
+		{
+			throw new IllegalArgumentException("Value " + value + " out of range in row " + (geometry.rowOf(cell) + 1));
+		}
+		cells[cell] = (byte) value;
+	}
+
+	public void set(int row, int col, int value)
+	{
+		set(row * geometry.getDimension() + col, value);
+	}
+
+	public boolean isBlank(int cell)
+	{
+		return cells[cell] == 0;
+	}
+
+	public int getBlankCount()
+	{
+		int count = 0;
+		for(byte value : cells)
+		{
+			if(value == 0)
+				count++;
+		}
+		return count;
+	}
+
+	public void clear()
+	{
+		Arrays.fill(cells, (byte) 0);
+	}
+
+	/**
+	 * Copies values of board of same dimension.
+	 * @throws IllegalArgumentException - if dimensions differ
+	 */
+	public void copyFrom(Board other)
+	{
+		if(other.cells.length != cells.length)
+		{
+			throw new IllegalArgumentException("Board dimension " + other.getDimension() + " does not match " + getDimension());
+		}
+		System.arraycopy(other.cells, 0, cells, 0, cells.length);
+	}
+
+	/**
+	 * Copies values of matrix of same dimension.
+	 * @throws IllegalArgumentException - if matrix is not of board's dimension or has value out of range
+	 */
+	public void copyFrom(int[][] sudokuArr)
+	{
+		int dimension = geometry.getDimension();
+		if(sudokuArr.length != dimension)
+		{
+			throw new IllegalArgumentException("Board dimension " + sudokuArr.length + " does not match " + dimension);
+		}
+		int cell = 0;
+		for(int row = 0; row < dimension; row++)
+		{
+			if(sudokuArr[row].length != dimension)
+			{
+				throw new IllegalArgumentException("Row " + (row + 1) + " has " + sudokuArr[row].length + " values, expected " + dimension);
+			}
+			for(int col = 0; col < dimension; col++, cell++)
+			{
+				set(cell, sudokuArr[row][col]);
+			}
+		}
+	}
+
+	/**
+	 * Writes values into matrix of same dimension.
+	 */
+	public void copyTo(int[][] sudokuArr)
+	{
+		int dimension = geometry.getDimension();
+		int cell = 0;
+		for(int row = 0; row < dimension; row++)
+			for(int col = 0; col < dimension; col++, cell++)
+			{
+				sudokuArr[row][col] = cells[cell];
+			}
+	}
+
+	public int[][] toArray()
+	{
+		int dimension = geometry.getDimension();
+		int[][] sudokuArr = new int[dimension][dimension];
+		copyTo(sudokuArr);
+		return sudokuArr;
+	}
+
+	public Board copy()
+	{
+		Board board = new Board(geometry.getDimension());
+		board.copyFrom(this);
+		return board;
+	}
+
+	@Override
+	public boolean equals(Object other)
+	{
+		if(this == other)
+			return true;
+		if(!(other instanceof Board))
+			return false;
+		return Arrays.equals(cells, ((Board) other).cells) && geometry == ((Board) other).geometry;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return Arrays.hashCode(cells);
+	}
+}
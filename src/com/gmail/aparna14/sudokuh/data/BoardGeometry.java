@@ -0,0 +1,176 @@
+package com.gmail.aparna14.sudokuh.data;
+
+/**
+ * This class holds the index tables describing the layout of n^2*n^2 sudoku board.
+ * Cells are numbered in row major order (cell = row * dimension + col),
+ * and for each cell the row, column and grid (box) number is precomputed
+ * so that solvers do not need to do divisions in their hot loops.
+ * Instances are immutable and cached per dimension.
+ * @author aparna
+ *
+ */
+public class BoardGeometry
+{
+	/* largest dimension whose candidates fit into int bitmap */
+	public static final int MAX_DIMENSION = 25;
+
+	private static final BoardGeometry[] CACHE = new BoardGeometry[MAX_DIMENSION + 1];
+
+	private final int dimension;
+
+	private final int gridDimension;
+
+	private final int cellCount;
+
+	private final int[] rowOf;
+
+	private final int[] colOf;
+
+	private final int[] boxOf;
+
+	/* for each cell, the other cells sharing its row, column or grid */
+	private final int[][] peers;
+
+	/* cells of each unit: rows first, then columns, then grids */
+	private final int[][] unitCells;
+
+	private BoardGeometry(int dimension, int gridDimension)
+	{
+		this.dimension = dimension;
+		this.gridDimension = gridDimension;
+		this.cellCount = dimension * dimension;
+		this.rowOf = new int[cellCount];
+		this.colOf = new int[cellCount];
+		this.boxOf = new int[cellCount];
+
+		for(int cell = 0; cell < cellCount; cell++)
+		{
+			int row = cell / dimension;
+			int col = cell % dimension;
+			rowOf[cell] = row;
+			colOf[cell] = col;
+			boxOf[cell] = (row / gridDimension) * gridDimension + (col / gridDimension);
+		}
+
+		/* row and column contribute dimension - 1 peers each, grid adds cells outside both */
+		int peerCount = 2 * (dimension - 1) + (gridDimension - 1) * (gridDimension - 1);
+		this.peers = new int[cellCount][peerCount];
+		for(int cell = 0; cell < cellCount; cell++)
+		{
+			int idx = 0;
+			for(int other = 0; other < cellCount; other++)
+			{
+				if(other != cell && (rowOf[other] == rowOf[cell] || colOf[other] == colOf[cell]
+						|| boxOf[other] == boxOf[cell]))
+				{
+					peers[cell][idx++] = other;
+				}
+			}
+		}
+
+		this.unitCells = new int[3 * dimension][dimension];
+		int[] unitFill = new int[3 * dimension];
+		for(int cell = 0; cell < cellCount; cell++)
+		{
+			int rowUnit = rowUnitOf(cell);
+			int colUnit = colUnitOf(cell);
+			int boxUnit = boxUnitOf(cell);
+			unitCells[rowUnit][unitFill[rowUnit]++] = cell;
+			unitCells[colUnit][unitFill[colUnit]++] = cell;
+			unitCells[boxUnit][unitFill[boxUnit]++] = cell;
+		}
+	}
+
+	/**
+	 * Returns the geometry for board with given number of rows/columns.
+	 * @param dimension - no of rows /columns in n^2*n^2 board, e.g 9 , 16 or 25
+	 * @return geometry of board
+	 * @throws IllegalArgumentException - if dimension is not a perfect square or is too large
+	 */
+	public static synchronized BoardGeometry forDimension(int dimension)
+	{
+		if(dimension <= 0 || dimension > MAX_DIMENSION)
+		{
+			throw new IllegalArgumentException("Unsupported board dimension :" + dimension);
+		}
+
+		BoardGeometry geometry = CACHE[dimension];
+		if(geometry == null)
+		{
+			int gridDimension = (int)Math.round(Math.sqrt(dimension));
+			if(gridDimension * gridDimension != dimension)
+			{
+				throw new IllegalArgumentException("Board dimension is not a perfect square :" + dimension);
+			}
+			geometry = new BoardGeometry(dimension, gridDimension);
+			CACHE[dimension] = geometry;
+		}
+		return geometry;
+	}
+
+	public int getDimension() {
+		return dimension;
+	}
+
+	public int getGridDimension() {
+		return gridDimension;
+	}
+
+	public int getCellCount() {
+		return cellCount;
+	}
+
+	/* bitmap with one bit set for every value 1 - dimension */
+	public int getAllValuesMask() {
+		return (1 << dimension) - 1;
+	}
+
+	public int rowOf(int cell) {
+		return rowOf[cell];
+	}
+
+	public int colOf(int cell) {
+		return colOf[cell];
+	}
+
+	public int boxOf(int cell) {
+		return boxOf[cell];
+	}
+
+	/**
+	 * Returns cells sharing row, column or grid with given cell.
+	 * Returned array is shared and must not be modified.
+	 */
+	public int[] peersOf(int cell) {
+		return peers[cell];
+	}
+
+	/**
+	 * Returns number of units (rows, columns and grids), 3 * dimension.
+	 * Unit u is row u for u < dimension, column u - dimension for u < 2 * dimension,
+	 * grid u - 2 * dimension otherwise.
+	 */
+	public int getUnitCount() {
+		return unitCells.length;
+	}
+
+	public int rowUnitOf(int cell) {
+		return rowOf[cell];
+	}
+
+	public int colUnitOf(int cell) {
+		return dimension + colOf[cell];
+	}
+
+	public int boxUnitOf(int cell) {
+		return 2 * dimension + boxOf[cell];
+	}
+
+	/**
+	 * Returns cells of unit in row major order.
+	 * Returned array is shared and must not be modified.
+	 */
+	public int[] cellsOf(int unit) {
+		return unitCells[unit];
+	}
+}
@@ -0,0 +1,46 @@
+package com.gmail.aparna14.sudokuh.data;
+
+/**
+ * Status stored with every board of binary board file.
+ * @author aparna
+ *
+ */
+public enum BoardStatus
+{
+	/* board has blank cells, not yet solved */
+	PUZZLE(0),
+
+	/* board is completely filled */
+	SOLVED(1),
+
+	/* solving was tried, board has no solution */
+	UNSOLVABLE(2);
+
+	/* values() copies the array on every call */
+	private static final BoardStatus[] STATUSES = values();
+
+	private final int code;
+
+	private BoardStatus(int code)
+	{
+		this.code = code;
+	}
+
+	public int getCode()
+	{
+		return code;
+	}
+
+	/**
+	 * Returns status for code, null if code is unknown.
+	 */
+	public static BoardStatus fromCode(int code)
+	{
+		for(BoardStatus status : STATUSES)
+		{
+			if(status.code == code)
+				return status;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,21 @@
+package com.gmail.aparna14.sudokuh.data;
+
+/**
+ * Difficulty of puzzle, graded by the solving techniques it needs.
+ * @author aparna
+ *
+ */
+public enum Difficulty
+{
+	/* naked singles alone solve the puzzle */
+	EASY,
+
+	/* naked and hidden singles solve the puzzle */
+	MEDIUM,
+
+	/* singles with naked groups, pointing pairs/triples and box line reduction solve the puzzle */
+	HARD,
+
+	/* puzzle can not be solved without guessing */
+	EXPERT
+}
@@ -0,0 +1,66 @@
+package com.gmail.aparna14.sudokuh.data;
+
+/*
+ * This class holds a generated puzzle along with its solution and grading.
+ */
+public class GeneratedPuzzle {
+
+	private int[][] puzzle;
+
+	private int[][] solution;
+
+	private Difficulty difficulty;
+
+	/* guesses made solving the puzzle with all techniques, 0 unless puzzle is EXPERT */
+	private long nodeCount;
+
+	/* seed the puzzle was generated from, generating again from it gives the same puzzle */
+	private long seed;
+
+	public GeneratedPuzzle(int[][] puzzle, int[][] solution, Difficulty difficulty, long nodeCount, long seed)
+	{
+		this.puzzle = puzzle;
+		this.solution = solution;
+		this.difficulty = difficulty;
+		this.nodeCount = nodeCount;
+		this.seed = seed;
+	}
+
+	public int[][] getPuzzle() {
+		return puzzle;
+	}
+
+	public int[][] getSolution() {
+		return solution;
+	}
+
+	public Difficulty getDifficulty() {
+		return difficulty;
+	}
+
+	public long getNodeCount() {
+		return nodeCount;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Returns number of given (non blank) cells of the puzzle.
+	 */
+	public int getClueCount() {
+		int clues = 0;
+		for(int[] row : puzzle)
+			for(int value : row)
+				if(value != 0)
+					clues++;
+		return clues;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%dx%d %s puzzle, %d clues, %d guesses, seed %d",
+				puzzle.length, puzzle.length, difficulty, getClueCount(), nodeCount, seed);
+	}
+}
@@ -0,0 +1,132 @@
+package com.gmail.aparna14.sudokuh.data;
+
+import java.util.Arrays;
+
+/*
+ * This class counts latencies in log linear buckets, the way HdrHistogram does.
+ * Every power of two range is split into SUB_BUCKET_HALF_COUNT equal buckets, so a
+ * recorded value is known to within 1/128 of itself from 1 ns up to MAX_TRACKABLE_VALUE.
+ * Larger values are counted in the last bucket, max is still exact.
+ * Recording is a few shifts and one array increment, no allocation.
+ * Instance is not thread safe.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 8;
+
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+	private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+
+	/* about 2.4 hours in nanoseconds */
+	public static final long MAX_TRACKABLE_VALUE = (1L << 43) - 1;
+
+	private static final int BUCKET_COUNT = 64 - Long.numberOfLeadingZeros(MAX_TRACKABLE_VALUE) - SUB_BUCKET_BITS + 1;
+
+	private final long[] counts = new long[(BUCKET_COUNT + 1) * SUB_BUCKET_HALF_COUNT];
+
+	private long totalCount;
+
+	private long sum;
+
+	private long min = Long.MAX_VALUE;
+
+	private long max;
+
+	/**
+	 * Counts one value, negative values are counted as 0.
+	 */
+	public void record(long value) {
+		if(value < 0)
+			value = 0;
+		counts[indexOf(Math.min(value, MAX_TRACKABLE_VALUE))]++;
+		totalCount++;
+		sum += value;
+		if(value < min)
+			min = value;
+		if(value > max)
+			max = value;
+	}
+
+	/**
+	 * Adds counts of other histogram to this one.
+	 */
+	public void add(LatencyHistogram other) {
+		for(int idx = 0; idx < counts.length; idx++) {
+			counts[idx] += other.counts[idx];
+		}
+		totalCount += other.totalCount;
+		sum += other.sum;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	public void reset() {
+		Arrays.fill(counts, 0);
+		totalCount = 0;
+		sum = 0;
+		min = Long.MAX_VALUE;
+		max = 0;
+	}
+
+	public long getTotalCount() {
+		return totalCount;
+	}
+
+	public long getMin() {
+		return totalCount == 0 ? 0 : min;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public double getMean() {
+		return totalCount == 0 ? 0 : (double) sum / totalCount;
+	}
+
+	/**
+	 * Returns value at or below which percentile percent of recorded values lie,
+	 * reported as the highest value of its bucket, but never more than max.
+	 * @param percentile - 0 to 100
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if(totalCount == 0)
+			return 0;
+		long rank = (long) Math.ceil(Math.min(100.0, Math.max(0.0, percentile)) / 100.0 * totalCount);
+		rank = Math.max(1, rank);
+		long seen = 0;
+		for(int idx = 0; idx < counts.length; idx++) {
+			seen += counts[idx];
+			if(seen >= rank)
+				return Math.min(highestValueAt(idx), max);
+		}
+		return max;
+	}
+
+	/*
+	 * Bucket is the power of two range above the first SUB_BUCKET_COUNT values,
+	 * sub bucket the top SUB_BUCKET_BITS bits of value within it.
+	 */
+	private static int indexOf(long value) {
+		int bucket = 64 - Long.numberOfLeadingZeros(value | (SUB_BUCKET_COUNT - 1)) - SUB_BUCKET_BITS;
+		int subBucket = (int) (value >>> bucket);
+		return (bucket + 1) * SUB_BUCKET_HALF_COUNT + subBucket - SUB_BUCKET_HALF_COUNT;
+	}
+
+	private static long highestValueAt(int index) {
+		int bucket = index / SUB_BUCKET_HALF_COUNT - 1;
+		int subBucket = index % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+		if(bucket < 0) {
+			bucket = 0;
+			subBucket -= SUB_BUCKET_HALF_COUNT;
+		}
+		return (((long) subBucket + 1) << bucket) - 1;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count %d, min %d, p50 %d, p99 %d, max %d",
+				totalCount, getMin(), getValueAtPercentile(50), getValueAtPercentile(99), max);
+	}
+}
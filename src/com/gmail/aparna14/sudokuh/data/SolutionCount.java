@@ -0,0 +1,65 @@
+package com.gmail.aparna14.sudokuh.data;
+
+import java.util.List;
+
+/*
+ * This class holds the outcome of counting solutions of one board, up to a limit.
+ */
+public class SolutionCount {
+
+	private int count;
+
+	private int limit;
+
+	/* solved boards found, in the order found */
+	private List<int[][]> solutions;
+
+	public SolutionCount(int count, int limit, List<int[][]> solutions)
+	{
+		this.count = count;
+		this.limit = limit;
+		this.solutions = solutions;
+	}
+
+	/**
+	 * Returns number of solutions found, never more than limit.
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	public List<int[][]> getSolutions() {
+		return solutions;
+	}
+
+	public boolean hasSolution() {
+		return count > 0;
+	}
+
+	/**
+	 * Returns true if board has exactly one solution, which needs limit of at least 2 to tell.
+	 */
+	public boolean isUnique() {
+		return count == 1 && limit > 1;
+	}
+
+	/**
+	 * Returns true if counting stopped at limit, board may have more solutions.
+	 */
+	public boolean isLimitReached() {
+		return count >= limit;
+	}
+
+	@Override
+	public String toString() {
+		if(count == 0)
+			return "no solution";
+		if(isUnique())
+			return "unique solution";
+		return isLimitReached() ? "at least " + count + " solutions" : count + " solutions";
+	}
+}
@@ -0,0 +1,142 @@
+package com.gmail.aparna14.sudokuh.algo;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import com.gmail.aparna14.sudokuh.data.BoardGeometry;
+
+/**
+ * This class runs the passes of LaneBatchSolver on IntVector blocks of lanes, using jdk.incubator.vector.
+ * Lane innermost arrays hold the lanes of one cell or unit side by side, so a block is one plain load.
+ * Loops go over blocks outside and cells inside, so values of the block gathered over the cells of a unit,
+ * and dead, changed and blank flags, stay in vector registers instead of per lane arrays.
+ * Deductions are those of the scalar passes, with the shift tricks written as lane masks.
+ *
+ * Built from its own source root with javac --add-modules jdk.incubator.vector and loaded by
+ * LaneBatchSolver by name, only when the module is resolved. Species is the preferred one,
+ * so lane count has to be a multiple of its length, 16 lanes fit 128 to 512 bit vectors.
+ * @author aparna
+ *
+ */
+final class VectorLaneKernel implements LaneKernel
+{
+	/* constant species, so the JIT compiles vector operations to instructions */
+	private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+	@Override
+	public boolean supports(int laneCount)
+	{
+		return laneCount % SPECIES.length() == 0;
+	}
+
+	@Override
+	public void formUnitMasks(LaneBatchSolver solver)
+	{
+		int lanes = solver.laneCount;
+		int[] placed = solver.placed;
+		int[] unitUsed = solver.unitUsed;
+		int[] dead = solver.dead;
+		BoardGeometry geometry = solver.geometry;
+		int units = geometry.getUnitCount();
+		for(int block = 0; block < lanes; block += SPECIES.length())
+		{
+			IntVector blockDead = IntVector.fromArray(SPECIES, dead, block);
+			for(int unit = 0; unit < units; unit++)
+			{
+				IntVector once = IntVector.zero(SPECIES);
+				IntVector twice = IntVector.zero(SPECIES);
+				for(int cell : geometry.cellsOf(unit))
+				{
+					IntVector bit = IntVector.fromArray(SPECIES, placed, cell * lanes + block);
+					twice = twice.or(once.and(bit));
+					once = once.or(bit);
+				}
+				once.intoArray(unitUsed, unit * lanes + block);
+				blockDead = blockDead.or(twice);
+			}
+			blockDead.intoArray(dead, block);
+		}
+	}
+
+	@Override
+	public void placeNakedSingles(LaneBatchSolver solver)
+	{
+		int lanes = solver.laneCount;
+		int[] placed = solver.placed;
+		int[] candidates = solver.candidates;
+		int[] unitUsed = solver.unitUsed;
+		BoardGeometry geometry = solver.geometry;
+		IntVector allValues = IntVector.broadcast(SPECIES, geometry.getAllValuesMask());
+		int cellCount = geometry.getCellCount();
+		for(int block = 0; block < lanes; block += SPECIES.length())
+		{
+			IntVector blockDead = IntVector.fromArray(SPECIES, solver.dead, block);
+			IntVector blockChanged = IntVector.fromArray(SPECIES, solver.changed, block);
+			IntVector blockBlank = IntVector.fromArray(SPECIES, solver.blank, block);
+			for(int cell = 0; cell < cellCount; cell++)
+			{
+				int base = cell * lanes + block;
+				int rowBase = geometry.rowUnitOf(cell) * lanes + block;
+				int colBase = geometry.colUnitOf(cell) * lanes + block;
+				int boxBase = geometry.boxUnitOf(cell) * lanes + block;
+				IntVector bit = IntVector.fromArray(SPECIES, placed, base);
+				IntVector row = IntVector.fromArray(SPECIES, unitUsed, rowBase);
+				IntVector col = IntVector.fromArray(SPECIES, unitUsed, colBase);
+				IntVector box = IntVector.fromArray(SPECIES, unitUsed, boxBase);
+				VectorMask<Integer> isBlank = bit.compare(VectorOperators.EQ, 0);
+				/* placed cell keeps its bit as only candidate */
+				IntVector cellCandidates = bit.blend(allValues.lanewise(VectorOperators.AND_NOT, row.or(col).or(box)), isBlank);
+				blockDead = blockDead.blend(-1, cellCandidates.compare(VectorOperators.EQ, 0));
+				VectorMask<Integer> single = isBlank.and(cellCandidates.and(cellCandidates.sub(1)).compare(VectorOperators.EQ, 0));
+				IntVector newBit = IntVector.zero(SPECIES).blend(cellCandidates, single);
+				bit.or(newBit).intoArray(placed, base);
+				row.or(newBit).intoArray(unitUsed, rowBase);
+				col.or(newBit).intoArray(unitUsed, colBase);
+				box.or(newBit).intoArray(unitUsed, boxBase);
+				blockChanged = blockChanged.or(newBit);
+				blockBlank = blockBlank.blend(-1, isBlank.andNot(single));
+				cellCandidates.intoArray(candidates, base);
+			}
+			blockDead.intoArray(solver.dead, block);
+			blockChanged.intoArray(solver.changed, block);
+			blockBlank.intoArray(solver.blank, block);
+		}
+	}
+
+	@Override
+	public void placeHiddenSingles(LaneBatchSolver solver, int[] unitCells)
+	{
+		int lanes = solver.laneCount;
+		int[] placed = solver.placed;
+		int[] candidates = solver.candidates;
+		for(int block = 0; block < lanes; block += SPECIES.length())
+		{
+			IntVector once = IntVector.zero(SPECIES);
+			IntVector twice = IntVector.zero(SPECIES);
+			for(int cell : unitCells)
+			{
+				IntVector cellCandidates = IntVector.fromArray(SPECIES, candidates, cell * lanes + block);
+				twice = twice.or(once.and(cellCandidates));
+				once = once.or(cellCandidates);
+			}
+			IntVector unique = once.lanewise(VectorOperators.AND_NOT, twice);
+			IntVector blockDead = IntVector.fromArray(SPECIES, solver.dead, block);
+			IntVector blockChanged = IntVector.fromArray(SPECIES, solver.changed, block);
+			for(int cell : unitCells)
+			{
+				int base = cell * lanes + block;
+				IntVector bit = IntVector.fromArray(SPECIES, placed, base);
+				IntVector hidden = IntVector.fromArray(SPECIES, candidates, base).and(unique)
+						.blend(0, bit.compare(VectorOperators.NE, 0));
+				/* two hidden singles in one cell */
+				blockDead = blockDead.or(hidden.and(hidden.sub(1)));
+				bit.or(hidden).intoArray(placed, base);
+				blockChanged = blockChanged.or(hidden);
+			}
+			blockDead.intoArray(solver.dead, block);
+			blockChanged.intoArray(solver.changed, block);
+		}
+	}
+}